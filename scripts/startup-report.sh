@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Сравнение режимов запуска users-service: время до готовности и латентность первого запроса.
+# Режимы без собранных артефактов пропускаются:
+#   jvm          - ./mvnw package
+#   aot, aot+cds - ./mvnw package -Pfast-start
+#   native       - ./mvnw package -Pnative
+# Нужны запущенная база из application.yml и свободный порт 8082.
+# Использование: scripts/startup-report.sh [runs]   (по умолчанию 3 запуска на режим)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS="${1:-3}"
+PORT="${SERVER_PORT:-8082}"
+BASE="http://localhost:${PORT}"
+JAR="$(ls target/users-service-*.jar 2>/dev/null | grep -v plain | head -n 1 || true)"
+EXTRACTED_JAR="target/extracted/$(basename "${JAR:-missing.jar}")"
+CDS_ARCHIVE="target/extracted/application.jsa"
+NATIVE="target/users-service"
+REPORT="target/startup-report.md"
+COMMON_ARGS=(--spring.cloud.config.enabled=false --eureka.client.register-with-eureka=false)
+
+now_ms() { date +%s%3N; }
+
+run_mode() {
+  local mode="$1"; shift
+  local total_ready=0 total_first=0
+  for i in $(seq 1 "$RUNS"); do
+    local start; start=$(now_ms)
+    "$@" "${COMMON_ARGS[@]}" > "target/startup-${mode}-${i}.log" 2>&1 &
+    local pid=$!
+    # actuator требует JWT: любой HTTP-ответ (в т.ч. 401) означает, что контекст поднят и порт открыт
+    until [[ "$(curl -s -o /dev/null -w '%{http_code}' "${BASE}/actuator/health")" != "000" ]]; do
+      if ! kill -0 "$pid" 2>/dev/null; then
+        echo "mode ${mode}: process exited, see target/startup-${mode}-${i}.log" >&2
+        return 1
+      fi
+      sleep 0.05
+    done
+    local ready=$(( $(now_ms) - start ))
+    # Первый бизнес-запрос: публичная проверка доступности проходит security, сервис и базу
+    local first
+    first=$(curl -s -o /dev/null -w '%{time_total}' "${BASE}/api/users/availability?username=startup_probe")
+    first=$(awk -v t="$first" 'BEGIN { printf "%d", t * 1000 }')
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+    total_ready=$(( total_ready + ready ))
+    total_first=$(( total_first + first ))
+  done
+  printf '| %-8s | %14d | %22d |\n' "$mode" $(( total_ready / RUNS )) $(( total_first / RUNS )) >> "$REPORT"
+}
+
+mkdir -p target
+{
+  echo "# Startup report ($(date -u +%Y-%m-%dT%H:%M:%SZ), ${RUNS} runs per mode)"
+  echo
+  echo "| mode     | ready (ms) avg | first request (ms) avg |"
+  echo "|----------|----------------|------------------------|"
+} > "$REPORT"
+
+if [[ -n "$JAR" ]]; then
+  run_mode jvm java -jar "$JAR"
+fi
+if [[ -f "$EXTRACTED_JAR" ]]; then
+  run_mode aot java -Dspring.aot.enabled=true -jar "$EXTRACTED_JAR"
+  if [[ -f "$CDS_ARCHIVE" ]]; then
+    run_mode aot+cds java -XX:SharedArchiveFile="$CDS_ARCHIVE" -Dspring.aot.enabled=true -jar "$EXTRACTED_JAR"
+  fi
+fi
+if [[ -x "$NATIVE" ]]; then
+  run_mode native "$NATIVE"
+fi
+
+cat "$REPORT"
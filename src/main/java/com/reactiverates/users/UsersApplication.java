@@ -2,17 +2,33 @@ package com.reactiverates.users;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.reactiverates.users.infrastructure.config.UsersRuntimeHints;
 
 /**
  * Users Service Application
  * 
  * Микросервис для управления пользователями
  */
-@SpringBootApplication
+@SpringBootApplication(exclude = {
+		// R2DBC поднимается только в профиле reactive, см. ReactivePersistenceConfig
+		R2dbcAutoConfiguration.class,
+		R2dbcDataAutoConfiguration.class,
+		R2dbcRepositoriesAutoConfiguration.class,
+		R2dbcTransactionManagerAutoConfiguration.class
+})
 @EnableDiscoveryClient
 @EnableFeignClients
+@EnableScheduling
+@ImportRuntimeHints(UsersRuntimeHints.class)
 public class UsersApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,76 @@
+package com.reactiverates.users.api.controller;
+
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.service.UsersService;
+import com.reactiverates.users.infrastructure.security.JwtService;
+import com.reactiverates.users.infrastructure.security.TokenRevocationRegistry;
+
+import io.jsonwebtoken.Claims;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Function;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/users")
+@RequiredArgsConstructor
+@Tag(name = "Токены", description = "Отзыв access-токенов")
+@Slf4j
+public class UserTokensController {
+    
+    private final UsersService service;
+    private final JwtService jwtService;
+    private final TokenRevocationRegistry revocations;
+    
+    @PostMapping("/logout")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Отозвать текущий access-токен",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Токен отозван"),
+            @ApiResponse(responseCode = "400", description = "В токене нет jti или exp"),
+            @ApiResponse(responseCode = "401", description = "Не авторизован")
+    })
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        Claims claims = jwtService.extractClaim(authorization.substring(7), Function.identity());
+        if (claims.getId() == null || claims.getExpiration() == null) {
+            log.warn("HTTP POST /api/users/logout - Token of user {} has no jti or exp", claims.getSubject());
+            return ResponseEntity.badRequest().build();
+        }
+        revocations.revokeToken(claims.getId(), claims.getExpiration());
+        return ResponseEntity.noContent().build();
+    }
+    
+    @PostMapping("/{id}/revoke-tokens")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Отозвать все выданные пользователю токены",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Токены отозваны"),
+            @ApiResponse(responseCode = "401", description = "Не авторизован"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен"),
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден")
+    })
+    public ResponseEntity<Void> revokeTokens(
+            @Parameter(description = "ID пользователя", example = "1")
+            @PathVariable Long id) {
+        log.info("Revoking all tokens of user with ID: {}", id);
+        Optional<UserDto> user = service.getUserById(id);
+        user.ifPresent(u -> revocations.revokeIssuedBefore(u.username(), Instant.now()));
+        return user.isPresent() ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -1,9 +1,14 @@
 package com.reactiverates.users.api.controller;
 
+import com.reactiverates.users.domain.model.AvailabilityDto;
 import com.reactiverates.users.domain.model.CreateUserRequest;
 import com.reactiverates.users.domain.model.UpdateUserRequest;
 import com.reactiverates.users.domain.model.User;
 import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.model.UserPageDto;
+import com.reactiverates.users.domain.model.UserQuery;
+import com.reactiverates.users.domain.model.UserStatsDto;
+import com.reactiverates.users.domain.model.UserSuggestionDto;
 import com.reactiverates.users.domain.service.UsersService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,23 +22,30 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 @Tag(name = "Пользователи", description = "API для управления пользователями")
 @Slf4j
 public class UsersController {
     
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_QUERY_LIMIT = 500;
+    
     private final UsersService service;
     
     @GetMapping
@@ -201,6 +213,141 @@ public class UsersController {
         return ResponseEntity.ok(users);
     }
     
+    @GetMapping("/query")
+    @PreAuthorize("hasAnyRole('USER', 'MODERATOR', 'ADMIN')")
+    @Operation(summary = "Поиск пользователей по комбинации фильтров",
+               description = "Роль, активность, диапазоны дат создания и обновления и префикс username, имени "
+                       + "или фамилии в любой комбинации - одним запросом к базе. Keyset-пагинация: "
+                       + "nextCursor ответа передается в cursor следующего запроса с той же сортировкой",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Страница пользователей успешно получена",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UserPageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Неверный диапазон дат или курсор"),
+            @ApiResponse(responseCode = "401", description = "Не авторизован"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен"),
+            @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    public ResponseEntity<UserPageDto> queryUsers(
+            @Parameter(description = "Роль пользователя", example = "USER")
+            @RequestParam(required = false) User.UserRole role,
+            @Parameter(description = "Статус активности", example = "true")
+            @RequestParam(required = false) Boolean active,
+            @Parameter(description = "Создан не раньше (включительно)", example = "2024-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @Parameter(description = "Создан не позже (включительно)", example = "2024-01-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @Parameter(description = "Обновлен не раньше (включительно)", example = "2024-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate updatedFrom,
+            @Parameter(description = "Обновлен не позже (включительно)", example = "2024-01-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate updatedTo,
+            @Parameter(description = "Начало username, имени или фамилии без учета регистра", example = "jo")
+            @RequestParam(required = false) String namePrefix,
+            @Parameter(description = "Поле сортировки", example = "CREATED_AT")
+            @RequestParam(defaultValue = "ID") UserQuery.SortField sort,
+            @Parameter(description = "Сортировка по убыванию", example = "false")
+            @RequestParam(defaultValue = "false") boolean desc,
+            @Parameter(description = "Курсор из nextCursor предыдущей страницы")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы (1-" + MAX_QUERY_LIMIT + ")", example = "50")
+            @RequestParam(defaultValue = "50") int limit) {
+        log.debug("HTTP GET /api/users/query - role: {}, active: {}, created: {}..{}, updated: {}..{}, namePrefix: {}, "
+                + "sort: {}, desc: {}, limit: {}", role, active, createdFrom, createdTo, updatedFrom, updatedTo,
+                namePrefix, sort, desc, limit);
+        UserQuery query;
+        try {
+            query = new UserQuery(role, active, createdFrom, createdTo, updatedFrom, updatedTo, namePrefix,
+                    sort, desc, cursor != null ? UserQuery.Cursor.decode(cursor) : null,
+                    Math.clamp(limit, 1, MAX_QUERY_LIMIT));
+        } catch (IllegalArgumentException e) {
+            log.warn("HTTP GET /api/users/query - Invalid query: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(service.queryUsers(query));
+    }
+    
+    @GetMapping("/suggest")
+    @PreAuthorize("hasAnyRole('USER', 'MODERATOR', 'ADMIN')")
+    @Operation(summary = "Подсказки пользователей по префиксу",
+               description = "Префикс username, email, имени или фамилии без учета регистра. "
+                       + "Отвечает из in-memory индекса, без запросов к базе",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Подсказки успешно получены",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UserSuggestionDto.class))),
+            @ApiResponse(responseCode = "401", description = "Не авторизован"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен"),
+            @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    public ResponseEntity<List<UserSuggestionDto>> suggestUsers(
+            @Parameter(description = "Начало username, email, имени или фамилии", example = "jo")
+            @RequestParam String prefix,
+            @Parameter(description = "Максимальное число подсказок (1-" + MAX_SUGGESTIONS + ")", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        log.debug("HTTP GET /api/users/suggest - prefix: {}, limit: {}", prefix, limit);
+        return ResponseEntity.ok(service.suggestUsers(prefix, Math.clamp(limit, 1, MAX_SUGGESTIONS)));
+    }
+    
+    @GetMapping("/availability")
+    @PreAuthorize("hasAnyRole('USER', 'MODERATOR', 'ADMIN')")
+    @Operation(summary = "Проверить доступность username и email",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Результат проверки успешно получен",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = AvailabilityDto.class))),
+            @ApiResponse(responseCode = "400", description = "Не указан ни username, ни email"),
+            @ApiResponse(responseCode = "401", description = "Не авторизован"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен"),
+            @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    public ResponseEntity<AvailabilityDto> checkAvailability(
+            @Parameter(description = "Имя пользователя", example = "john_doe")
+            @RequestParam(required = false) String username,
+            @Parameter(description = "Email пользователя", example = "john@example.com")
+            @RequestParam(required = false) String email) {
+        log.debug("HTTP GET /api/users/availability - username: {}, email: {}", username, email);
+        if (username == null && email == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(service.checkAvailability(username, email));
+    }
+    
+    @GetMapping("/stats")
+    @PreAuthorize("hasAnyRole('USER', 'MODERATOR', 'ADMIN')")
+    @Operation(summary = "Получить агрегированную статистику пользователей",
+               description = "Количество по ролям, активные/неактивные и регистрации по дням или неделям. "
+                       + "По умолчанию - последние 30 дней по дням",
+               security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Статистика успешно получена",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UserStatsDto.class))),
+            @ApiResponse(responseCode = "400", description = "Неверный диапазон дат"),
+            @ApiResponse(responseCode = "401", description = "Не авторизован"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен"),
+            @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    public ResponseEntity<UserStatsDto> getUserStats(
+            @Parameter(description = "Начало диапазона регистраций", example = "2024-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Конец диапазона регистраций", example = "2024-01-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Шаг группировки регистраций", example = "DAY")
+            @RequestParam(defaultValue = "DAY") UserStatsDto.Granularity granularity) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        log.debug("HTTP GET /api/users/stats - from: {}, to: {}, granularity: {}", start, end, granularity);
+        try {
+            return ResponseEntity.ok(service.getUserStats(start, end, granularity));
+        } catch (IllegalArgumentException e) {
+            log.warn("HTTP GET /api/users/stats - Invalid range: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @PostMapping
     @PreAuthorize("hasAnyRole('MODERATOR', 'ADMIN')")
     @Operation(summary = "Создать нового пользователя", 
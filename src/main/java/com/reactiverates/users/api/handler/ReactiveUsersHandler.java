@@ -0,0 +1,259 @@
+package com.reactiverates.users.api.handler;
+
+import com.reactiverates.users.domain.model.CreateUserRequest;
+import com.reactiverates.users.domain.model.UpdateUserRequest;
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.model.UserQuery;
+import com.reactiverates.users.domain.model.UserStatsDto;
+import com.reactiverates.users.domain.service.UsersService;
+import com.reactiverates.users.infrastructure.persistence.reactive.ReactiveUsersRepository;
+import com.reactiverates.users.infrastructure.persistence.reactive.UserRow;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Функциональные обработчики /api/users для профиля reactive.
+ * Чтение идет через R2DBC без блокировки event-loop, списки отдаются потоком с учетом backpressure
+ * (application/x-ndjson - построчно). Запись делегируется блокирующему {@link UsersService} на boundedElastic.
+ */
+@Component
+@Profile("reactive")
+@Slf4j
+public class ReactiveUsersHandler {
+
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_QUERY_LIMIT = 500;
+
+    private final ReactiveUsersRepository repository;
+    private final UsersService service;
+    private final Validator validator;
+    private final int prefetch;
+
+    public ReactiveUsersHandler(ReactiveUsersRepository repository,
+                                UsersService service,
+                                Validator validator,
+                                @Value("${users.reactive.stream-prefetch:64}") int prefetch) {
+        this.repository = repository;
+        this.service = service;
+        this.validator = validator;
+        this.prefetch = prefetch;
+    }
+
+    public Mono<ServerResponse> getAllUsers(ServerRequest request) {
+        log.debug("HTTP GET /api/users - Getting all users (reactive)");
+        return list(request, repository.findAll());
+    }
+
+    public Mono<ServerResponse> getUserById(ServerRequest request) {
+        Long id = Long.valueOf(request.pathVariable("id"));
+        log.debug("HTTP GET /api/users/{} - Getting user by ID (reactive)", id);
+        return single(repository.findById(id).switchIfEmpty(repository.findArchivedById(id)));
+    }
+
+    public Mono<ServerResponse> getUserByUsername(ServerRequest request) {
+        String username = request.pathVariable("username");
+        log.info("Getting user by username: {}", username);
+        return single(repository.findByUsername(username)
+                .switchIfEmpty(repository.findArchivedByUsername(username)));
+    }
+
+    public Mono<ServerResponse> getUserByEmail(ServerRequest request) {
+        // Та же нормализация, что в DefaultUsersService: email хранится без пробелов и в нижнем регистре
+        String email = request.pathVariable("email").trim().toLowerCase(Locale.ROOT);
+        log.info("Getting user by email: {}", email);
+        return single(repository.findByEmail(email).switchIfEmpty(repository.findArchivedByEmail(email)));
+    }
+
+    public Mono<ServerResponse> getUsersByRole(ServerRequest request) {
+        User.UserRole role;
+        try {
+            role = User.UserRole.valueOf(request.pathVariable("role"));
+        } catch (IllegalArgumentException e) {
+            return ServerResponse.badRequest().build();
+        }
+        log.info("Getting users by role: {}", role);
+        return list(request, repository.findByRole(role));
+    }
+
+    public Mono<ServerResponse> getActiveUsers(ServerRequest request) {
+        log.info("Getting active users");
+        return list(request, repository.findByIsActive(true));
+    }
+
+    public Mono<ServerResponse> searchUsers(ServerRequest request) {
+        return request.queryParam("q")
+                .map(q -> {
+                    log.info("Searching users with query: {}", q);
+                    return list(request, repository.findBySearchTerm(q));
+                })
+                .orElseGet(() -> ServerResponse.badRequest().build());
+    }
+
+    public Mono<ServerResponse> suggestUsers(ServerRequest request) {
+        String prefix = request.queryParam("prefix").orElse(null);
+        int limit;
+        try {
+            limit = Math.clamp(Integer.parseInt(request.queryParam("limit").orElse("10")), 1, MAX_SUGGESTIONS);
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().build();
+        }
+        if (prefix == null) {
+            return ServerResponse.badRequest().build();
+        }
+        // Из in-memory индекса без ожидания, до его готовности - запрос к базе
+        return blocking(() -> service.suggestUsers(prefix, limit))
+                .flatMap(suggestions -> ServerResponse.ok().bodyValue(suggestions));
+    }
+
+    // Комбинированный фильтр строит запрос JPA Criteria, поэтому идет через UsersService, а не R2DBC
+    public Mono<ServerResponse> queryUsers(ServerRequest request) {
+        UserQuery query;
+        try {
+            query = new UserQuery(
+                    request.queryParam("role").map(User.UserRole::valueOf).orElse(null),
+                    request.queryParam("active").map(Boolean::valueOf).orElse(null),
+                    request.queryParam("createdFrom").map(LocalDate::parse).orElse(null),
+                    request.queryParam("createdTo").map(LocalDate::parse).orElse(null),
+                    request.queryParam("updatedFrom").map(LocalDate::parse).orElse(null),
+                    request.queryParam("updatedTo").map(LocalDate::parse).orElse(null),
+                    request.queryParam("namePrefix").orElse(null),
+                    UserQuery.SortField.valueOf(request.queryParam("sort").orElse("ID")),
+                    Boolean.parseBoolean(request.queryParam("desc").orElse("false")),
+                    request.queryParam("cursor").map(UserQuery.Cursor::decode).orElse(null),
+                    Math.clamp(Integer.parseInt(request.queryParam("limit").orElse("50")), 1, MAX_QUERY_LIMIT));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ServerResponse.badRequest().build();
+        }
+        return blocking(() -> service.queryUsers(query))
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    public Mono<ServerResponse> checkAvailability(ServerRequest request) {
+        String username = request.queryParam("username").orElse(null);
+        String email = request.queryParam("email").orElse(null);
+        if (username == null && email == null) {
+            return ServerResponse.badRequest().build();
+        }
+        return blocking(() -> service.checkAvailability(username, email))
+                .flatMap(availability -> ServerResponse.ok().bodyValue(availability));
+    }
+
+    public Mono<ServerResponse> getUserStats(ServerRequest request) {
+        LocalDate end;
+        LocalDate start;
+        UserStatsDto.Granularity granularity;
+        try {
+            end = request.queryParam("to").map(LocalDate::parse).orElseGet(LocalDate::now);
+            start = request.queryParam("from").map(LocalDate::parse).orElseGet(() -> end.minusDays(29));
+            granularity = UserStatsDto.Granularity.valueOf(request.queryParam("granularity").orElse("DAY"));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ServerResponse.badRequest().build();
+        }
+        return blocking(() -> service.getUserStats(start, end, granularity))
+                .flatMap(stats -> ServerResponse.ok().bodyValue(stats))
+                .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.badRequest().build());
+    }
+
+    public Mono<ServerResponse> createUser(ServerRequest request) {
+        return request.bodyToMono(CreateUserRequest.class)
+                .flatMap(body -> validated(body, valid -> blocking(() -> service.createUser(valid))
+                        .flatMap(created -> ServerResponse.status(HttpStatus.CREATED).bodyValue(created))
+                        .onErrorResume(RuntimeException.class, e -> {
+                            log.error("HTTP POST /api/users - Error creating user with username: {} - {}", valid.username(), e.getMessage());
+                            return ServerResponse.badRequest().build();
+                        })));
+    }
+
+    public Mono<ServerResponse> updateUser(ServerRequest request) {
+        Long id = Long.valueOf(request.pathVariable("id"));
+        return request.bodyToMono(UpdateUserRequest.class)
+                .flatMap(body -> validated(body, valid -> blocking(() -> service.updateUser(id, valid))
+                        .flatMap(updated -> updated
+                                .map(user -> ServerResponse.ok().bodyValue(user))
+                                .orElseGet(() -> ServerResponse.notFound().build()))
+                        .onErrorResume(RuntimeException.class, e -> {
+                            log.error("Error updating user: {}", e.getMessage());
+                            return ServerResponse.badRequest().build();
+                        })));
+    }
+
+    public Mono<ServerResponse> deleteUser(ServerRequest request) {
+        Long id = Long.valueOf(request.pathVariable("id"));
+        log.info("Deleting user with ID: {}", id);
+        return blocking(() -> service.deleteUser(id))
+                .flatMap(deleted -> deleted ? ServerResponse.noContent().build() : ServerResponse.notFound().build());
+    }
+
+    public Mono<ServerResponse> deactivateUser(ServerRequest request) {
+        Long id = Long.valueOf(request.pathVariable("id"));
+        log.info("Deactivating user with ID: {}", id);
+        return blocking(() -> service.deactivateUser(id))
+                .flatMap(done -> done ? ServerResponse.ok().build() : ServerResponse.notFound().build());
+    }
+
+    public Mono<ServerResponse> activateUser(ServerRequest request) {
+        Long id = Long.valueOf(request.pathVariable("id"));
+        log.info("Activating user with ID: {}", id);
+        return blocking(() -> service.activateUser(id))
+                .flatMap(done -> done ? ServerResponse.ok().build() : ServerResponse.notFound().build());
+    }
+
+    private Mono<ServerResponse> single(Mono<UserRow> row) {
+        return row.map(ReactiveUsersHandler::toDto)
+                .flatMap(user -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(user))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    // Flux передается в ответ как есть: строки запрашиваются у драйвера по мере записи в сокет
+    private Mono<ServerResponse> list(ServerRequest request, Flux<UserRow> rows) {
+        boolean streaming = request.headers().accept().stream()
+                .anyMatch(accepted -> accepted.equalsTypeAndSubtype(MediaType.APPLICATION_NDJSON));
+        MediaType mediaType = streaming
+                ? MediaType.APPLICATION_NDJSON
+                : MediaType.APPLICATION_JSON;
+        Flux<UserDto> users = rows.limitRate(prefetch).map(ReactiveUsersHandler::toDto);
+        return ServerResponse.ok().contentType(mediaType).body(users, UserDto.class);
+    }
+
+    private <T> Mono<ServerResponse> validated(T body, Function<T, Mono<ServerResponse>> next) {
+        Set<ConstraintViolation<T>> violations = validator.validate(body);
+        if (violations.isEmpty()) {
+            return next.apply(body);
+        }
+        Map<String, String> errors = new HashMap<>();
+        violations.forEach(v -> errors.put(v.getPropertyPath().toString(), v.getMessage()));
+        return ServerResponse.badRequest().bodyValue(errors);
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static UserDto toDto(UserRow row) {
+        return UserDto.fromDomain(row.toDomain());
+    }
+}
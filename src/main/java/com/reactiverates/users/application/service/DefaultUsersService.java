@@ -1,21 +1,54 @@
 package com.reactiverates.users.application.service;
 
+import com.reactiverates.users.domain.event.UserChangedEvent;
+import com.reactiverates.users.domain.model.AvailabilityDto;
 import com.reactiverates.users.domain.model.CreateUserRequest;
 import com.reactiverates.users.domain.model.UpdateUserRequest;
 import com.reactiverates.users.domain.model.User;
 import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.model.UserPageDto;
+import com.reactiverates.users.domain.model.UserQuery;
+import com.reactiverates.users.domain.model.UserStatsDto;
+import com.reactiverates.users.domain.model.UserSuggestionDto;
 import com.reactiverates.users.domain.service.UsersService;
+import com.reactiverates.users.infrastructure.availability.UserAvailabilityIndex;
+import com.reactiverates.users.infrastructure.concurrency.UserLookupCoalescer;
+import com.reactiverates.users.infrastructure.directory.UserDirectory;
+import com.reactiverates.users.infrastructure.hotkeys.HotKeyDetector;
+import com.reactiverates.users.infrastructure.persistence.repository.UsersArchiveRepository;
 import com.reactiverates.users.infrastructure.persistence.repository.UsersRepository;
 import com.reactiverates.users.infrastructure.persistence.entity.UserEntity;
+import com.reactiverates.users.infrastructure.persistence.projection.SignupCountView;
+import com.reactiverates.users.infrastructure.persistence.projection.UserCountView;
+import com.reactiverates.users.infrastructure.sharding.UserIdentityCatalog;
+import com.reactiverates.users.infrastructure.stats.UserStatsCache;
+import com.reactiverates.users.infrastructure.suggest.UserSuggestIndex;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,8 +56,19 @@ import java.util.stream.Collectors;
 @Transactional
 public class DefaultUsersService implements UsersService {
     
+    private static final long MAX_STATS_RANGE_DAYS = 731;
+    
     private final UsersRepository repository;
+    private final UsersArchiveRepository archive;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher events;
+    private final ObjectProvider<UserDirectory> directory;
+    private final ObjectProvider<UserAvailabilityIndex> availability;
+    private final ObjectProvider<UserIdentityCatalog> identityCatalog;
+    private final ObjectProvider<UserSuggestIndex> suggestions;
+    private final ObjectProvider<HotKeyDetector> hotKeys;
+    private final UserLookupCoalescer lookups;
+    private final UserStatsCache statsCache;
     
     @Override
     public List<UserDto> getAllUsers() {
@@ -35,26 +79,108 @@ public class DefaultUsersService implements UsersService {
     }
     
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<UserDto> getUserById(Long id) {
-        return repository.findById(id)
+        hotKeys.ifAvailable(detector -> detector.recordId(id));
+        UserDirectory replica = readyDirectory();
+        if (replica != null) {
+            return replica.findById(id).or(() -> archive.findById(id).map(UserDto::fromDomain));
+        }
+        return lookups.byId(id, () -> repository.findById(id)
                 .map(UserEntity::toDomain)
-                .map(UserDto::fromDomain);
+                .or(() -> archive.findById(id))
+                .map(UserDto::fromDomain));
     }
     
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<UserDto> getUserByUsername(String username) {
-        return repository.findByUsername(username)
+        hotKeys.ifAvailable(detector -> detector.recordUsername(username));
+        if (isUsernameDefinitelyAbsent(username)) {
+            return Optional.empty();
+        }
+        UserDirectory replica = readyDirectory();
+        if (replica != null) {
+            return replica.findByUsername(username).or(() -> archive.findByUsername(username).map(UserDto::fromDomain));
+        }
+        return lookups.byUsername(username, () -> repository.findByUsername(username)
                 .map(UserEntity::toDomain)
-                .map(UserDto::fromDomain);
+                .or(() -> archive.findByUsername(username))
+                .map(UserDto::fromDomain));
     }
     
     @Override
-    public Optional<UserDto> getUserByEmail(String email) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<UserDto> getUserByEmail(String rawEmail) {
+        String email = normalizeEmail(rawEmail);
+        hotKeys.ifAvailable(detector -> detector.recordEmail(email));
+        if (isEmailDefinitelyAbsent(email)) {
+            return Optional.empty();
+        }
+        UserDirectory replica = readyDirectory();
+        if (replica != null) {
+            return replica.findByEmail(email).or(() -> archive.findByEmail(email).map(UserDto::fromDomain));
+        }
         return repository.findByEmail(email)
                 .map(UserEntity::toDomain)
+                .or(() -> archive.findByEmail(email))
                 .map(UserDto::fromDomain);
     }
     
+    // Пакетные методы частоты не считают: их вызывает UserLookupBatcher с уже схлопнутыми ключами,
+    // исходные запросы учитывает UsersGrpcService
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> getUsersByIds(Collection<Long> ids) {
+        UserDirectory replica = readyDirectory();
+        List<UserDto> found;
+        if (replica != null) {
+            found = ids.stream()
+                    .map(replica::findById)
+                    .flatMap(Optional::stream)
+                    .collect(Collectors.toList());
+        } else {
+            found = repository.findAllById(ids).stream()
+                    .map(UserEntity::toDomain)
+                    .map(UserDto::fromDomain)
+                    .collect(Collectors.toList());
+        }
+        Set<Long> missing = new HashSet<>(ids);
+        found.forEach(user -> missing.remove(user.id()));
+        if (!missing.isEmpty()) {
+            archive.findAllById(missing).forEach(user -> found.add(UserDto.fromDomain(user)));
+        }
+        return found;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> getUsersByUsernames(Collection<String> usernames) {
+        // Без учета регистра, как getUserByUsername: "Alice" и "alice" - один пользователь
+        Set<String> keys = usernames.stream()
+                .map(username -> username.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toCollection(HashSet::new));
+        UserDirectory replica = readyDirectory();
+        List<UserDto> found;
+        if (replica != null) {
+            found = keys.stream()
+                    .map(replica::findByUsername)
+                    .flatMap(Optional::stream)
+                    .collect(Collectors.toList());
+        } else {
+            found = repository.findByUsernameIn(keys).stream()
+                    .map(UserEntity::toDomain)
+                    .map(UserDto::fromDomain)
+                    .collect(Collectors.toList());
+        }
+        Set<String> missing = new HashSet<>(keys);
+        found.forEach(user -> missing.remove(user.username().toLowerCase(Locale.ROOT)));
+        if (!missing.isEmpty()) {
+            archive.findByUsernameIn(missing).forEach(user -> found.add(UserDto.fromDomain(user)));
+        }
+        return found;
+    }
+    
     @Override
     public List<UserDto> getUsersByRole(User.UserRole role) {
         return repository.findByRole(role).stream()
@@ -79,20 +205,50 @@ public class DefaultUsersService implements UsersService {
                 .collect(Collectors.toList());
     }
     
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<UserSuggestionDto> suggestUsers(String prefix, int limit) {
+        UserSuggestIndex index = suggestions.getIfAvailable();
+        if (index != null && index.isReady()) {
+            return index.suggest(prefix, limit);
+        }
+        String normalized = prefix.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return repository.findByPrefix(normalized, PageRequest.of(0, limit)).stream()
+                .map(UserEntity::toDomain)
+                .map(UserDto::fromDomain)
+                .map(UserSuggestionDto::fromUser)
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public UserPageDto queryUsers(UserQuery query) {
+        // Строка сверх limit означает, что есть следующая страница
+        List<UserDto> users = repository.findByQuery(query, query.limit() + 1).stream()
+                .map(UserEntity::toDomain)
+                .map(UserDto::fromDomain)
+                .collect(Collectors.toList());
+        return query.page(users, false);
+    }
+    
     @Override
     public UserDto createUser(CreateUserRequest request) {
         // Проверяем уникальность username и email
-        if (repository.existsByUsername(request.username())) {
+        if (usernameExists(request.username())) {
             throw new RuntimeException("Пользователь с таким именем уже существует");
         }
         
-        if (repository.existsByEmail(request.email())) {
+        String email = normalizeEmail(request.email());
+        if (emailExists(email)) {
             throw new RuntimeException("Пользователь с таким email уже существует");
         }
         
         User user = User.builder()
                 .username(request.username())
-                .email(request.email())
+                .email(email)
                 .password(passwordEncoder.encode(request.password()))
                 .firstName(request.firstName())
                 .lastName(request.lastName())
@@ -103,27 +259,32 @@ public class DefaultUsersService implements UsersService {
         
         UserEntity userEntity = UserEntity.fromDomain(user);
         UserEntity savedEntity = repository.save(userEntity);
-        return UserDto.fromDomain(savedEntity.toDomain());
+        UserDto created = UserDto.fromDomain(savedEntity.toDomain());
+        events.publishEvent(UserChangedEvent.created(created));
+        return created;
     }
     
     @Override
     public Optional<UserDto> updateUser(Long id, UpdateUserRequest request) {
-        return repository.findById(id)
+        return findForWrite(id)
                 .map(userEntity -> {
                     User user = userEntity.toDomain();
+                    UserDto previous = UserDto.fromDomain(userEntity.toDomain());
                     
                     if (request.username() != null && !request.username().equals(user.getUsername())) {
-                        if (repository.existsByUsername(request.username())) {
+                        // смена только регистра собственного username не конфликтует сама с собой
+                        if (!request.username().equalsIgnoreCase(user.getUsername()) && usernameExists(request.username())) {
                             throw new RuntimeException("Пользователь с таким именем уже существует");
                         }
                         user.setUsername(request.username());
                     }
                     
-                    if (request.email() != null && !request.email().equals(user.getEmail())) {
-                        if (repository.existsByEmail(request.email())) {
+                    String email = normalizeEmail(request.email());
+                    if (email != null && !email.equals(user.getEmail())) {
+                        if (!email.equalsIgnoreCase(user.getEmail()) && emailExists(email)) {
                             throw new RuntimeException("Пользователь с таким email уже существует");
                         }
-                        user.setEmail(request.email());
+                        user.setEmail(email);
                     }
                     
                     if (request.password() != null) {
@@ -151,28 +312,41 @@ public class DefaultUsersService implements UsersService {
                     }
                     
                     UserEntity updatedEntity = UserEntity.fromDomain(user);
-                    UserEntity savedEntity = repository.save(updatedEntity);
-                    return UserDto.fromDomain(savedEntity.toDomain());
+                    // flush сразу, чтобы @UpdateTimestamp попал в событие для реплик
+                    UserEntity savedEntity = repository.saveAndFlush(updatedEntity);
+                    UserDto updated = UserDto.fromDomain(savedEntity.toDomain());
+                    events.publishEvent(UserChangedEvent.updated(previous, updated));
+                    return updated;
                 });
     }
     
     @Override
     public boolean deleteUser(Long id) {
-        if (repository.existsById(id)) {
-            repository.deleteById(id);
-            return true;
-        }
-        return false;
+        return repository.findById(id)
+                .map(userEntity -> {
+                    UserDto previous = UserDto.fromDomain(userEntity.toDomain());
+                    repository.delete(userEntity);
+                    events.publishEvent(UserChangedEvent.deleted(previous));
+                    return true;
+                })
+                .or(() -> archive.delete(id)
+                        .map(archived -> {
+                            events.publishEvent(UserChangedEvent.deleted(UserDto.fromDomain(archived)));
+                            return true;
+                        }))
+                .orElse(false);
     }
     
     @Override
     public boolean deactivateUser(Long id) {
-        return repository.findById(id)
+        return findForWrite(id)
                 .map(userEntity -> {
+                    UserDto previous = UserDto.fromDomain(userEntity.toDomain());
                     User user = userEntity.toDomain();
                     user.setIsActive(false);
                     UserEntity updatedEntity = UserEntity.fromDomain(user);
-                    repository.save(updatedEntity);
+                    UserEntity savedEntity = repository.saveAndFlush(updatedEntity);
+                    events.publishEvent(UserChangedEvent.updated(previous, UserDto.fromDomain(savedEntity.toDomain())));
                     return true;
                 })
                 .orElse(false);
@@ -180,14 +354,135 @@ public class DefaultUsersService implements UsersService {
     
     @Override
     public boolean activateUser(Long id) {
-        return repository.findById(id)
+        return findForWrite(id)
                 .map(userEntity -> {
+                    UserDto previous = UserDto.fromDomain(userEntity.toDomain());
                     User user = userEntity.toDomain();
                     user.setIsActive(true);
                     UserEntity updatedEntity = UserEntity.fromDomain(user);
-                    repository.save(updatedEntity);
+                    UserEntity savedEntity = repository.saveAndFlush(updatedEntity);
+                    events.publishEvent(UserChangedEvent.updated(previous, UserDto.fromDomain(savedEntity.toDomain())));
                     return true;
                 })
                 .orElse(false);
     }
+    
+    /**
+     * Строка пользователя для изменения. Пользователь из архива возвращается в users с тем же id:
+     * чтение находит его в архиве, значит и изменение не должно отвечать "не найден".
+     */
+    private Optional<UserEntity> findForWrite(Long id) {
+        Optional<UserEntity> existing = repository.findById(id);
+        if (existing.isEmpty() && archive.restore(id)) {
+            existing = repository.findById(id);
+        }
+        return existing;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public AvailabilityDto checkAvailability(String username, String email) {
+        return new AvailabilityDto(
+                username,
+                username != null ? !usernameExists(username) : null,
+                email,
+                email != null ? !emailExists(normalizeEmail(email)) : null);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public UserStatsDto getUserStats(LocalDate from, LocalDate to, UserStatsDto.Granularity granularity) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало диапазона позже конца");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_STATS_RANGE_DAYS) {
+            throw new IllegalArgumentException("Диапазон не может превышать " + MAX_STATS_RANGE_DAYS + " дней");
+        }
+        return statsCache.get(from, to, granularity, () -> computeUserStats(from, to, granularity));
+    }
+    
+    private UserStatsDto computeUserStats(LocalDate from, LocalDate to, UserStatsDto.Granularity granularity) {
+        Map<User.UserRole, Long> byRole = new EnumMap<>(User.UserRole.class);
+        for (User.UserRole role : User.UserRole.values()) {
+            byRole.put(role, 0L);
+        }
+        long active = 0;
+        long inactive = 0;
+        List<UserCountView> counts = new ArrayList<>(repository.countByRoleAndActive());
+        counts.addAll(archive.countByRoleAndActive());
+        for (UserCountView row : counts) {
+            long count = row.getCount();
+            if (row.getRole() != null) {
+                byRole.merge(row.getRole(), count, Long::sum);
+            }
+            if (Boolean.TRUE.equals(row.getActive())) {
+                active += count;
+            } else {
+                inactive += count;
+            }
+        }
+        
+        String unit = granularity == UserStatsDto.Granularity.WEEK ? "week" : "day";
+        Map<LocalDate, Long> counted = new HashMap<>();
+        LocalDateTime rangeStart = from.atStartOfDay();
+        LocalDateTime rangeEnd = to.plusDays(1).atStartOfDay();
+        List<SignupCountView> signupRows = new ArrayList<>(repository.countSignups(unit, rangeStart, rangeEnd));
+        signupRows.addAll(archive.countSignups(unit, rangeStart, rangeEnd));
+        for (SignupCountView row : signupRows) {
+            counted.merge(LocalDate.parse(row.getPeriod()), row.getCount(), Long::sum);
+        }
+        // date_trunc('week') начинает неделю с понедельника; пустые периоды заполняем нулями
+        LocalDate period = granularity == UserStatsDto.Granularity.WEEK
+                ? from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                : from;
+        int step = granularity == UserStatsDto.Granularity.WEEK ? 7 : 1;
+        List<UserStatsDto.SignupBucket> signups = new ArrayList<>();
+        for (; !period.isAfter(to); period = period.plusDays(step)) {
+            signups.add(new UserStatsDto.SignupBucket(period, counted.getOrDefault(period, 0L)));
+        }
+        
+        return new UserStatsDto(from, to, granularity, active + inactive, active, inactive,
+                byRole, signups, LocalDateTime.now());
+    }
+    
+    // При шардировании пользователь может жить на любом шарде: проверка идет по глобальному каталогу
+    private boolean usernameExists(String username) {
+        if (isUsernameDefinitelyAbsent(username)) {
+            return false;
+        }
+        UserIdentityCatalog catalog = identityCatalog.getIfAvailable();
+        return catalog != null
+                ? catalog.existsByUsername(username)
+                : repository.existsByUsername(username) || archive.existsByUsername(username);
+    }
+    
+    private boolean emailExists(String email) {
+        if (isEmailDefinitelyAbsent(email)) {
+            return false;
+        }
+        UserIdentityCatalog catalog = identityCatalog.getIfAvailable();
+        return catalog != null
+                ? catalog.existsByEmail(email)
+                : repository.existsByEmail(email) || archive.existsByEmail(email);
+    }
+    
+    private boolean isUsernameDefinitelyAbsent(String username) {
+        UserAvailabilityIndex index = availability.getIfAvailable();
+        return index != null && index.isUsernameDefinitelyAbsent(username);
+    }
+    
+    private boolean isEmailDefinitelyAbsent(String email) {
+        UserAvailabilityIndex index = availability.getIfAvailable();
+        return index != null && index.isEmailDefinitelyAbsent(email);
+    }
+    
+    // email хранится в нижнем регистре, поэтому точное совпадение работает и в in-memory индексах
+    private static String normalizeEmail(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+    
+    private UserDirectory readyDirectory() {
+        UserDirectory replica = directory.getIfAvailable();
+        return replica != null && replica.isReady() ? replica : null;
+    }
 }
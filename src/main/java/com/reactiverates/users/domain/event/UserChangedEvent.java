@@ -0,0 +1,36 @@
+package com.reactiverates.users.domain.event;
+
+import com.reactiverates.users.domain.model.UserDto;
+
+/**
+ * Событие изменения пользователя, публикуется из write-path сервиса.
+ * previous - состояние до изменения (null для CREATED), current - после (null для DELETED).
+ */
+public record UserChangedEvent(
+    Type type,
+    UserDto previous,
+    UserDto current
+) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static UserChangedEvent created(UserDto current) {
+        return new UserChangedEvent(Type.CREATED, null, current);
+    }
+
+    public static UserChangedEvent updated(UserDto previous, UserDto current) {
+        return new UserChangedEvent(Type.UPDATED, previous, current);
+    }
+
+    public static UserChangedEvent deleted(UserDto previous) {
+        return new UserChangedEvent(Type.DELETED, previous, null);
+    }
+
+    public Long userId() {
+        return current != null ? current.id() : previous.id();
+    }
+}
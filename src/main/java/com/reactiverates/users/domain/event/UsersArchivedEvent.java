@@ -0,0 +1,11 @@
+package com.reactiverates.users.domain.event;
+
+import java.util.List;
+
+/**
+ * Пользователи перенесены в архив. Это не удаление: username/email остаются занятыми,
+ * токены не отзываются, пользователь доступен через fallback-lookup и возвращается при активации.
+ * Публикуется внутри транзакции переноса.
+ */
+public record UsersArchivedEvent(List<Long> userIds) {
+}
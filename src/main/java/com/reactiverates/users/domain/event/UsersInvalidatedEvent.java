@@ -0,0 +1,21 @@
+package com.reactiverates.users.domain.event;
+
+import com.reactiverates.users.domain.model.UserDto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Пакет инвалидаций, пришедший от других экземпляров сервиса через outbox.
+ * current - актуальные строки изменившихся пользователей, deletedIds - пользователи, которых больше нет,
+ * revokedSubjects - subject -> момент, до которого выпущенные токены недействительны.
+ * Публикуется вне транзакции, локальные изменения сюда не попадают (их применяет {@link UserChangedEvent}).
+ */
+public record UsersInvalidatedEvent(
+    List<UserDto> current,
+    Set<Long> deletedIds,
+    Map<String, Instant> revokedSubjects
+) {
+}
@@ -0,0 +1,19 @@
+package com.reactiverates.users.domain.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Доступность имени пользователя и email")
+public record AvailabilityDto(
+    @Schema(description = "Проверяемое имя пользователя", example = "john_doe")
+    String username,
+    
+    @Schema(description = "Имя пользователя свободно (null, если не проверялось)", example = "true")
+    Boolean usernameAvailable,
+    
+    @Schema(description = "Проверяемый email", example = "john@example.com")
+    String email,
+    
+    @Schema(description = "Email свободен (null, если не проверялся)", example = "false")
+    Boolean emailAvailable
+) {
+}
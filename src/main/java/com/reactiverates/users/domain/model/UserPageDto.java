@@ -0,0 +1,16 @@
+package com.reactiverates.users.domain.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Страница пользователей с keyset-пагинацией")
+public record UserPageDto(
+    @Schema(description = "Пользователи страницы в порядке сортировки")
+    List<UserDto> users,
+    
+    @Schema(description = "Курсор следующей страницы (параметр cursor); отсутствует на последней странице",
+            example = "SUQ6QTo0Mjo0Mg")
+    String nextCursor
+) {
+}
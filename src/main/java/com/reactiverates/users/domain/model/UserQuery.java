@@ -0,0 +1,155 @@
+package com.reactiverates.users.domain.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Комбинированный фильтр пользователей с сортировкой и keyset-пагинацией.
+ * Пустые (null) условия не применяются; диапазоны дат включают обе границы.
+ * Порядок - поле sort, затем id в том же направлении, поэтому курсор (значение поля и id
+ * последней строки) однозначно задает начало следующей страницы.
+ */
+public record UserQuery(
+    User.UserRole role,
+    Boolean active,
+    LocalDate createdFrom,
+    LocalDate createdTo,
+    LocalDate updatedFrom,
+    LocalDate updatedTo,
+    String namePrefix,
+    SortField sort,
+    boolean descending,
+    Cursor after,
+    int limit
+) {
+    
+    public enum SortField {
+        ID, CREATED_AT, UPDATED_AT, USERNAME
+    }
+    
+    public UserQuery {
+        if (sort == null) {
+            sort = SortField.ID;
+        }
+        if (namePrefix != null && namePrefix.isBlank()) {
+            namePrefix = null;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit должен быть положительным");
+        }
+        if (createdFrom != null && createdTo != null && createdFrom.isAfter(createdTo)) {
+            throw new IllegalArgumentException("Начало диапазона created позже конца");
+        }
+        if (updatedFrom != null && updatedTo != null && updatedFrom.isAfter(updatedTo)) {
+            throw new IllegalArgumentException("Начало диапазона updated позже конца");
+        }
+        if (after != null && (after.sort() != sort || after.descending() != descending)) {
+            throw new IllegalArgumentException("Курсор получен для другой сортировки");
+        }
+    }
+    
+    /**
+     * Порядок строк результата, тот же, что ORDER BY запроса: слияние страниц с нескольких шардов.
+     * username сравнивается по кодовым точкам - так упорядочивает запрос (COLLATE ucs_basic).
+     */
+    public Comparator<UserDto> comparator() {
+        Comparator<UserDto> order = switch (sort) {
+            case ID -> Comparator.comparing(UserDto::id);
+            case CREATED_AT -> Comparator.comparing(UserDto::createdAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(UserDto::id);
+            case UPDATED_AT -> Comparator.comparing(UserDto::updatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(UserDto::id);
+            case USERNAME -> Comparator.comparing(UserDto::username, UserQuery::compareCodePoints)
+                    .thenComparing(UserDto::id);
+        };
+        return descending ? order.reversed() : order;
+    }
+    
+    /**
+     * Сравнение строк по кодовым точкам - порядок COLLATE ucs_basic в PostgreSQL.
+     */
+    public static int compareCodePoints(String left, String right) {
+        int i = 0;
+        int j = 0;
+        while (i < left.length() && j < right.length()) {
+            int l = left.codePointAt(i);
+            int r = right.codePointAt(j);
+            if (l != r) {
+                return Integer.compare(l, r);
+            }
+            i += Character.charCount(l);
+            j += Character.charCount(r);
+        }
+        return Integer.compare(left.length() - i, right.length() - j);
+    }
+    
+    /**
+     * Курсор, продолжающий выдачу после user.
+     */
+    public Cursor cursorAfter(UserDto user) {
+        Function<UserDto, Object> value = switch (sort) {
+            case ID -> UserDto::id;
+            case CREATED_AT -> UserDto::createdAt;
+            case UPDATED_AT -> UserDto::updatedAt;
+            case USERNAME -> UserDto::username;
+        };
+        Object sortValue = value.apply(user);
+        return new Cursor(sort, descending, user.id(), sortValue != null ? sortValue.toString() : null);
+    }
+    
+    /**
+     * Страница из строк в порядке {@link #comparator()}: строк больше limit или more - есть продолжение,
+     * и курсор указывает на последнюю строку страницы.
+     */
+    public UserPageDto page(List<UserDto> sorted, boolean more) {
+        boolean hasMore = more || sorted.size() > limit;
+        List<UserDto> users = sorted.size() > limit ? List.copyOf(sorted.subList(0, limit)) : sorted;
+        String next = hasMore && !users.isEmpty() ? cursorAfter(users.get(users.size() - 1)).encode() : null;
+        return new UserPageDto(users, next);
+    }
+    
+    /**
+     * Позиция в выдаче: сортировка, id и значение поля сортировки последней строки страницы.
+     * Клиенту отдается как непрозрачная строка base64url.
+     */
+    public record Cursor(SortField sort, boolean descending, long id, String value) {
+        
+        public LocalDateTime dateTimeValue() {
+            return LocalDateTime.parse(value);
+        }
+        
+        public String encode() {
+            String raw = sort + ":" + (descending ? "D" : "A") + ":" + id + ":" + (value != null ? value : "");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        public static Cursor decode(String encoded) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+                // value идет последним и может сам содержать ':'
+                String[] parts = raw.split(":", 4);
+                if (parts.length != 4) {
+                    throw new IllegalArgumentException("Неверный курсор");
+                }
+                SortField sort = SortField.valueOf(parts[0]);
+                Cursor cursor = new Cursor(sort, "D".equals(parts[1]), Long.parseLong(parts[2]),
+                        parts[3].isEmpty() ? null : parts[3]);
+                if (sort == SortField.CREATED_AT || sort == SortField.UPDATED_AT) {
+                    if (cursor.value() == null) {
+                        throw new IllegalArgumentException("Неверный курсор");
+                    }
+                    cursor.dateTimeValue();
+                }
+                return cursor;
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Неверный курсор", e);
+            }
+        }
+    }
+}
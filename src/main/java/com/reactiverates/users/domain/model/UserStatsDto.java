@@ -0,0 +1,53 @@
+package com.reactiverates.users.domain.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Schema(description = "Агрегированная статистика пользователей")
+public record UserStatsDto(
+    @Schema(description = "Начало диапазона регистраций (включительно)", example = "2024-01-01")
+    LocalDate from,
+    
+    @Schema(description = "Конец диапазона регистраций (включительно)", example = "2024-01-31")
+    LocalDate to,
+    
+    @Schema(description = "Шаг группировки регистраций", example = "DAY")
+    Granularity granularity,
+    
+    @Schema(description = "Всего пользователей", example = "1250")
+    long total,
+    
+    @Schema(description = "Активных пользователей", example = "1200")
+    long active,
+    
+    @Schema(description = "Неактивных пользователей", example = "50")
+    long inactive,
+    
+    @Schema(description = "Количество пользователей по ролям")
+    Map<User.UserRole, Long> byRole,
+    
+    @Schema(description = "Регистрации по периодам, периоды без регистраций включены с нулем")
+    List<SignupBucket> signups,
+    
+    @Schema(description = "Момент расчета статистики", example = "2024-01-31T10:00:00")
+    LocalDateTime computedAt
+) {
+    
+    public enum Granularity {
+        DAY, WEEK
+    }
+    
+    @Schema(description = "Количество регистраций за период")
+    public record SignupBucket(
+        @Schema(description = "Начало периода (для недель - понедельник)", example = "2024-01-01")
+        LocalDate periodStart,
+        
+        @Schema(description = "Количество регистраций", example = "42")
+        long count
+    ) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.reactiverates.users.domain.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Подсказка пользователя для автодополнения")
+public record UserSuggestionDto(
+    @Schema(description = "Уникальный идентификатор пользователя", example = "1")
+    Long id,
+
+    @Schema(description = "Имя пользователя", example = "john_doe")
+    String username,
+
+    @Schema(description = "Email пользователя", example = "john@example.com")
+    String email,
+
+    @Schema(description = "Имя", example = "John")
+    String firstName,
+
+    @Schema(description = "Фамилия", example = "Doe")
+    String lastName
+) {
+
+    public static UserSuggestionDto fromUser(UserDto user) {
+        return new UserSuggestionDto(user.id(), user.username(), user.email(), user.firstName(), user.lastName());
+    }
+}
@@ -1,24 +1,37 @@
 package com.reactiverates.users.domain.service;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import com.reactiverates.users.domain.model.AvailabilityDto;
 import com.reactiverates.users.domain.model.CreateUserRequest;
 import com.reactiverates.users.domain.model.UpdateUserRequest;
 import com.reactiverates.users.domain.model.User;
 import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.model.UserPageDto;
+import com.reactiverates.users.domain.model.UserQuery;
+import com.reactiverates.users.domain.model.UserStatsDto;
+import com.reactiverates.users.domain.model.UserSuggestionDto;
 
 public interface UsersService {
     List<UserDto> getAllUsers();
     Optional<UserDto> getUserById(Long id);
     Optional<UserDto> getUserByUsername(String username);
     Optional<UserDto> getUserByEmail(String email);
+    List<UserDto> getUsersByIds(Collection<Long> ids);
+    List<UserDto> getUsersByUsernames(Collection<String> usernames);
     List<UserDto> getUsersByRole(User.UserRole role);
     List<UserDto> getActiveUsers();
     List<UserDto> searchUsers(String searchTerm);
+    List<UserSuggestionDto> suggestUsers(String prefix, int limit);
+    UserPageDto queryUsers(UserQuery query);
     UserDto createUser(CreateUserRequest request);
     Optional<UserDto> updateUser(Long id, UpdateUserRequest request);
     boolean deleteUser(Long id);
     boolean deactivateUser(Long id);
     boolean activateUser(Long id);
+    AvailabilityDto checkAvailability(String username, String email);
+    UserStatsDto getUserStats(LocalDate from, LocalDate to, UserStatsDto.Granularity granularity);
 }
@@ -0,0 +1,100 @@
+package com.reactiverates.users.infrastructure.archive;
+
+import com.reactiverates.users.domain.event.UsersArchivedEvent;
+import com.reactiverates.users.infrastructure.persistence.repository.UsersArchiveRepository;
+import com.reactiverates.users.infrastructure.sharding.ShardContext;
+import com.reactiverates.users.infrastructure.sharding.ShardTopology;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Фоновый перенос давно неактивных пользователей из users в users_archive.
+ * Каждая пачка - отдельная короткая транзакция, поэтому блокировки и WAL не копятся,
+ * а конкурентные изменения пользователей пропускаются (FOR UPDATE SKIP LOCKED) до следующего запуска.
+ * При шардировании шарды обходятся по очереди, у каждого шарда свой архив.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.archive", name = "enabled", havingValue = "true")
+@Slf4j
+public class UserArchiver {
+
+    // Заведомо раньше любого updated_at: архивация активных пользователей отключена
+    private static final LocalDateTime NEVER = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final UsersArchiveRepository archive;
+    private final ObjectProvider<ShardTopology> shards;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+    private final Counter archivedCounter;
+    private final int inactiveAfterDays;
+    private final int staleAfterDays;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public UserArchiver(UsersArchiveRepository archive,
+                        ObjectProvider<ShardTopology> shards,
+                        PlatformTransactionManager transactionManager,
+                        ApplicationEventPublisher events,
+                        MeterRegistry meterRegistry,
+                        @Value("${users.archive.inactive-after-days:365}") int inactiveAfterDays,
+                        @Value("${users.archive.stale-after-days:0}") int staleAfterDays,
+                        @Value("${users.archive.batch-size:500}") int batchSize,
+                        @Value("${users.archive.max-batches-per-run:20}") int maxBatchesPerRun) {
+        this.archive = archive;
+        this.shards = shards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.events = events;
+        this.archivedCounter = Counter.builder("users.archive.archived")
+                .description("Users moved to the archive table")
+                .register(meterRegistry);
+        this.inactiveAfterDays = inactiveAfterDays;
+        this.staleAfterDays = staleAfterDays;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${users.archive.interval-ms:3600000}",
+               initialDelayString = "${users.archive.interval-ms:3600000}")
+    public int archive() {
+        long startTime = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime inactiveBefore = now.minusDays(inactiveAfterDays);
+        LocalDateTime staleBefore = staleAfterDays > 0 ? now.minusDays(staleAfterDays) : NEVER;
+        int[] total = new int[1];
+        ShardContext.forEachShard(shards.getIfAvailable(), shard -> {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                List<Long> moved = transactionTemplate.execute(status -> {
+                    List<Long> ids = archive.archiveBatch(inactiveBefore, staleBefore, batchSize);
+                    if (!ids.isEmpty()) {
+                        events.publishEvent(new UsersArchivedEvent(ids));
+                    }
+                    return ids;
+                });
+                total[0] += moved.size();
+                if (moved.size() < batchSize) {
+                    break;
+                }
+            }
+        });
+        if (total[0] > 0) {
+            archivedCounter.increment(total[0]);
+            log.info("Archived {} inactive users in {}ms", total[0], System.currentTimeMillis() - startTime);
+        }
+        return total[0];
+    }
+}
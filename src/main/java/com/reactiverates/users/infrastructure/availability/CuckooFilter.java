@@ -0,0 +1,126 @@
+package com.reactiverates.users.infrastructure.availability;
+
+/**
+ * Cuckoo-фильтр с 16-битными отпечатками и 4 слотами в корзине.
+ * Только добавление: удаление по отпечатку без гарантии, что значение добавлялось на этом экземпляре,
+ * может стереть отпечаток другого значения с тем же хешем и дать ложноотрицательный ответ.
+ * Не потокобезопасен.
+ */
+final class CuckooFilter {
+
+    private static final int SLOTS_PER_BUCKET = 4;
+    private static final int MAX_KICKS = 500;
+
+    private final short[] table;
+    private final int bucketMask;
+    private int count;
+
+    // Элемент, который не удалось разместить после MAX_KICKS перестановок
+    private short victimFingerprint;
+    private int victimBucket;
+
+    private long random = 0x2545F4914F6CDD1DL;
+
+    CuckooFilter(int expectedItems) {
+        int buckets = Integer.highestOneBit(Math.max(1, (int) (expectedItems / (SLOTS_PER_BUCKET * 0.9)) - 1)) << 1;
+        this.table = new short[buckets * SLOTS_PER_BUCKET];
+        this.bucketMask = buckets - 1;
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean isFull() {
+        return victimFingerprint != 0;
+    }
+
+    boolean mightContain(long hash) {
+        short fingerprint = fingerprint(hash);
+        int i1 = index(hash);
+        int i2 = alternate(i1, fingerprint);
+        return bucketContains(i1, fingerprint)
+                || bucketContains(i2, fingerprint)
+                || (victimFingerprint == fingerprint && (victimBucket == i1 || victimBucket == i2));
+    }
+
+    /**
+     * Добавляет элемент. Возвращает false, если фильтр заполнен и элемент не добавлен.
+     */
+    boolean add(long hash) {
+        if (isFull()) {
+            return false;
+        }
+        short fingerprint = fingerprint(hash);
+        int i1 = index(hash);
+        int i2 = alternate(i1, fingerprint);
+        if (insertIntoBucket(i1, fingerprint) || insertIntoBucket(i2, fingerprint)) {
+            count++;
+            return true;
+        }
+
+        int bucket = (nextRandom() & 1) == 0 ? i1 : i2;
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            int slot = bucket * SLOTS_PER_BUCKET + (int) (nextRandom() & (SLOTS_PER_BUCKET - 1));
+            short evicted = table[slot];
+            table[slot] = fingerprint;
+            fingerprint = evicted;
+            bucket = alternate(bucket, fingerprint);
+            if (insertIntoBucket(bucket, fingerprint)) {
+                count++;
+                return true;
+            }
+        }
+        victimFingerprint = fingerprint;
+        victimBucket = bucket;
+        count++;
+        return true;
+    }
+
+    private boolean bucketContains(int bucket, short fingerprint) {
+        int base = bucket * SLOTS_PER_BUCKET;
+        for (int i = base; i < base + SLOTS_PER_BUCKET; i++) {
+            if (table[i] == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean insertIntoBucket(int bucket, short fingerprint) {
+        int base = bucket * SLOTS_PER_BUCKET;
+        for (int i = base; i < base + SLOTS_PER_BUCKET; i++) {
+            if (table[i] == 0) {
+                table[i] = fingerprint;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int index(long hash) {
+        return (int) hash & bucketMask;
+    }
+
+    private int alternate(int bucket, short fingerprint) {
+        return (bucket ^ (int) mix(fingerprint)) & bucketMask;
+    }
+
+    private long nextRandom() {
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return random;
+    }
+
+    private static short fingerprint(long hash) {
+        short fingerprint = (short) (hash >>> 48);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,66 @@
+package com.reactiverates.users.infrastructure.availability;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Масштабируемый cuckoo-фильтр по строкам: при заполнении добавляется новый слой вдвое большей емкости.
+ * mightContain == false означает, что строки гарантированно нет. Не потокобезопасен.
+ */
+final class ScalableCuckooFilter {
+
+    private final List<CuckooFilter> layers = new ArrayList<>();
+    private int nextCapacity;
+
+    ScalableCuckooFilter(int initialCapacity) {
+        this.nextCapacity = Math.max(1024, initialCapacity);
+        addLayer();
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            if (layers.get(i).mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        if (!layers.get(layers.size() - 1).add(hash)) {
+            addLayer().add(hash);
+        }
+    }
+
+    int count() {
+        int count = 0;
+        for (CuckooFilter layer : layers) {
+            count += layer.count();
+        }
+        return count;
+    }
+
+    int layers() {
+        return layers.size();
+    }
+
+    private CuckooFilter addLayer() {
+        CuckooFilter layer = new CuckooFilter(nextCapacity);
+        layers.add(layer);
+        nextCapacity *= 2;
+        return layer;
+    }
+
+    // FNV-1a по UTF-8 с финальным перемешиванием
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        return CuckooFilter.mix(h);
+    }
+}
@@ -0,0 +1,186 @@
+package com.reactiverates.users.infrastructure.availability;
+
+import com.reactiverates.users.domain.event.UserChangedEvent;
+import com.reactiverates.users.domain.event.UsersInvalidatedEvent;
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.infrastructure.persistence.projection.UserIdentityView;
+import com.reactiverates.users.infrastructure.persistence.repository.UsersArchiveRepository;
+import com.reactiverates.users.infrastructure.persistence.repository.UsersRepository;
+import com.reactiverates.users.infrastructure.sharding.ShardContext;
+import com.reactiverates.users.infrastructure.sharding.ShardTopology;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cuckoo-фильтры по username и email для отсечения заведомо несуществующих значений без запроса в базу.
+ * Новые значения добавляются до коммита (ложноположительный ответ безопасен). Старые значения после
+ * переименования и удаления не удаляются: удаление отпечатка значения, которое этот экземпляр мог еще
+ * не получить из рассылки, стерло бы совпадающий отпечаток другого значения. Устаревшие значения дают
+ * лишь ложноположительный ответ и уходят при следующей сборке фильтра на старте.
+ * Значения хранятся в нижнем регистре: уникальность в базе не зависит от регистра.
+ * Значения с других экземпляров приходят только через рассылку инвалидаций, поэтому без
+ * users.invalidation.enabled фильтр не создается: ответ "заведомо нет" был бы ложным.
+ */
+@Component
+@ConditionalOnExpression("${users.availability-filter.enabled:true} and ${users.invalidation.enabled:false}")
+@Slf4j
+public class UserAvailabilityIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScalableCuckooFilter usernames;
+    private final ScalableCuckooFilter emails;
+    private final UsersRepository repository;
+    private final UsersArchiveRepository archive;
+    private final ObjectProvider<ShardTopology> shards;
+    private final int batchSize;
+    private volatile boolean ready;
+
+    public UserAvailabilityIndex(UsersRepository repository,
+                                 UsersArchiveRepository archive,
+                                 ObjectProvider<ShardTopology> shards,
+                                 @Value("${users.availability-filter.expected-users:10000}") int expectedUsers,
+                                 @Value("${users.availability-filter.load-batch-size:5000}") int batchSize) {
+        this.repository = repository;
+        this.archive = archive;
+        this.shards = shards;
+        this.usernames = new ScalableCuckooFilter(expectedUsers);
+        this.emails = new ScalableCuckooFilter(expectedUsers);
+        this.batchSize = batchSize;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * true, если пользователя с таким username гарантированно нет.
+     */
+    public boolean isUsernameDefinitelyAbsent(String username) {
+        return ready && username != null && !read(usernames, username);
+    }
+
+    /**
+     * true, если пользователя с таким email гарантированно нет.
+     */
+    public boolean isEmailDefinitelyAbsent(String email) {
+        return ready && email != null && !read(emails, email);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long startTime = System.currentTimeMillis();
+        long[] loaded = new long[1];
+        ShardContext.forEachShard(shards.getIfAvailable(), shard -> loaded[0] += buildFromShard());
+        ready = true;
+        log.info("User availability filter built with {} users in {}ms", loaded[0], System.currentTimeMillis() - startTime);
+    }
+
+    private long buildFromShard() {
+        Slice<UserIdentityView> slice;
+        int pageNumber = 0;
+        long loaded = 0;
+        do {
+            slice = repository.findAllIdentities(PageRequest.of(pageNumber++, batchSize, Sort.by("id")));
+            add(slice);
+            loaded += slice.getNumberOfElements();
+        } while (slice.hasNext());
+        // Архивные пользователи по-прежнему занимают username/email
+        List<UserIdentityView> archived;
+        long afterId = 0;
+        do {
+            archived = archive.findIdentitiesAfter(afterId, batchSize);
+            add(archived);
+            loaded += archived.size();
+            if (!archived.isEmpty()) {
+                afterId = archived.get(archived.size() - 1).getId();
+            }
+        } while (archived.size() == batchSize);
+        return loaded;
+    }
+
+    // Добавление в рамках транзакции: откат оставит лишь ложноположительную запись
+    @EventListener
+    public void onUserWritten(UserChangedEvent event) {
+        UserDto current = event.current();
+        if (current == null) {
+            return;
+        }
+        UserDto previous = event.previous();
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            if (previous == null || !Objects.equals(previous.username(), current.username())) {
+                usernames.add(key(current.username()));
+            }
+            if (previous == null || !Objects.equals(previous.email(), current.email())) {
+                emails.add(key(current.email()));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Значения, созданные на других экземплярах. Фильтр только растет, поэтому совпавший отпечаток
+    // не может исчезнуть и повторно добавлять значение не нужно
+    @EventListener
+    public void onUsersInvalidated(UsersInvalidatedEvent event) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            for (UserDto user : event.current()) {
+                if (!usernames.mightContain(key(user.username()))) {
+                    usernames.add(key(user.username()));
+                }
+                if (!emails.mightContain(key(user.email()))) {
+                    emails.add(key(user.email()));
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void add(Iterable<UserIdentityView> identities) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            for (UserIdentityView identity : identities) {
+                usernames.add(key(identity.getUsername()));
+                emails.add(key(identity.getEmail()));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private boolean read(ScalableCuckooFilter filter, String value) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return filter.mightContain(key(value));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
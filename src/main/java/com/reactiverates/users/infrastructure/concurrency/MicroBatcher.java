@@ -0,0 +1,111 @@
+package com.reactiverates.users.infrastructure.concurrency;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Автоматический батчинг одиночных запросов (DataLoader): ключи, пришедшие в течение окна
+ * или до достижения максимального размера батча, загружаются одним вызовом batchLoader.
+ * Одинаковые ключи внутри батча загружаются один раз.
+ */
+@Slf4j
+public class MicroBatcher<K, V> {
+
+    private final String name;
+    private final Function<Set<K>, Map<K, V>> batchLoader;
+    private final int maxBatchSize;
+    private final long windowMicros;
+    private final ScheduledExecutorService scheduler;
+    private final Executor loaderExecutor;
+
+    private final Object lock = new Object();
+    private Map<K, List<CompletableFuture<Optional<V>>>> pending = new LinkedHashMap<>();
+
+    public MicroBatcher(String name,
+                        Function<Set<K>, Map<K, V>> batchLoader,
+                        int maxBatchSize,
+                        long windowMicros,
+                        ScheduledExecutorService scheduler,
+                        Executor loaderExecutor) {
+        this.name = name;
+        this.batchLoader = batchLoader;
+        this.maxBatchSize = maxBatchSize;
+        this.windowMicros = windowMicros;
+        this.scheduler = scheduler;
+        this.loaderExecutor = loaderExecutor;
+    }
+
+    public CompletableFuture<Optional<V>> load(K key) {
+        CompletableFuture<Optional<V>> future = new CompletableFuture<>();
+        Map<K, List<CompletableFuture<Optional<V>>>> full = null;
+        boolean first;
+        synchronized (lock) {
+            first = pending.isEmpty();
+            pending.computeIfAbsent(key, k -> new ArrayList<>(1)).add(future);
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = new LinkedHashMap<>();
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        } else if (first) {
+            scheduler.schedule(this::flush, windowMicros, TimeUnit.MICROSECONDS);
+        }
+        return future;
+    }
+
+    private void flush() {
+        Map<K, List<CompletableFuture<Optional<V>>>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<K, List<CompletableFuture<Optional<V>>>> batch) {
+        try {
+            loaderExecutor.execute(() -> execute(batch));
+        } catch (RejectedExecutionException e) {
+            log.warn("{} batch of {} keys rejected: {}", name, batch.size(), e.getMessage());
+            batch.values().forEach(futures -> futures.forEach(f -> f.completeExceptionally(e)));
+        }
+    }
+
+    private void execute(Map<K, List<CompletableFuture<Optional<V>>>> batch) {
+        Map<K, V> results;
+        try {
+            long startTime = System.nanoTime();
+            results = batchLoader.apply(batch.keySet());
+            log.trace("{} batch of {} keys loaded in {}us", name, batch.size(), (System.nanoTime() - startTime) / 1_000);
+        } catch (RuntimeException e) {
+            log.error("{} batch of {} keys failed: {}", name, batch.size(), e.getMessage(), e);
+            batch.values().forEach(futures -> futures.forEach(f -> f.completeExceptionally(e)));
+            return;
+        }
+        if (results == null) {
+            results = new HashMap<>();
+        }
+        for (Map.Entry<K, List<CompletableFuture<Optional<V>>>> entry : batch.entrySet()) {
+            Optional<V> value = Optional.ofNullable(results.get(entry.getKey()));
+            entry.getValue().forEach(f -> f.complete(value));
+        }
+    }
+}
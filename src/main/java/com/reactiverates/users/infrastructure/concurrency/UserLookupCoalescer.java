@@ -0,0 +1,61 @@
+package com.reactiverates.users.infrastructure.concurrency;
+
+import com.reactiverates.users.domain.model.UserDto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight для lookup пользователя по id и username.
+ * Метрики: users.lookup.loads (реальные загрузки), users.lookup.coalesced (присоединившиеся вызовы),
+ * users.lookup.in-flight (загрузки в процессе).
+ */
+@Component
+public class UserLookupCoalescer {
+
+    private final SingleFlight<Long, Optional<UserDto>> byId;
+    private final SingleFlight<String, Optional<UserDto>> byUsername;
+
+    public UserLookupCoalescer(MeterRegistry meterRegistry) {
+        this.byId = new SingleFlight<>(listener(meterRegistry, "id"));
+        this.byUsername = new SingleFlight<>(listener(meterRegistry, "username"));
+        Gauge.builder("users.lookup.in-flight", byId, SingleFlight::inFlight).tag("key", "id").register(meterRegistry);
+        Gauge.builder("users.lookup.in-flight", byUsername, SingleFlight::inFlight).tag("key", "username").register(meterRegistry);
+    }
+
+    public Optional<UserDto> byId(Long id, Supplier<Optional<UserDto>> loader) {
+        return byId.load(id, loader);
+    }
+
+    public Optional<UserDto> byUsername(String username, Supplier<Optional<UserDto>> loader) {
+        return byUsername.load(username, loader);
+    }
+
+    private static SingleFlight.Listener listener(MeterRegistry meterRegistry, String key) {
+        Counter loads = Counter.builder("users.lookup.loads")
+                .description("User lookups that went to the database")
+                .tag("key", key)
+                .register(meterRegistry);
+        Counter coalesced = Counter.builder("users.lookup.coalesced")
+                .description("User lookups served by an in-flight load for the same key")
+                .tag("key", key)
+                .register(meterRegistry);
+        return new SingleFlight.Listener() {
+            @Override
+            public void onLoad() {
+                loads.increment();
+            }
+
+            @Override
+            public void onCoalesced() {
+                coalesced.increment();
+            }
+        };
+    }
+}
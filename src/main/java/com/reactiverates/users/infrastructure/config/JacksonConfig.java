@@ -0,0 +1,23 @@
+package com.reactiverates.users.infrastructure.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.infrastructure.json.UserDtoJsonSerializer;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Модули Jackson подхватываются автоконфигурацией в общий ObjectMapper:
+ * сериализатор UserDto действует для всех REST-ответов, MVC и WebFlux.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module usersJsonModule() {
+        return new SimpleModule("users-json")
+                .addSerializer(UserDto.class, new UserDtoJsonSerializer());
+    }
+}
@@ -0,0 +1,106 @@
+package com.reactiverates.users.infrastructure.config;
+
+import com.reactiverates.users.infrastructure.security.JwtService;
+import com.reactiverates.users.infrastructure.security.TokenRevocationRegistry;
+
+import io.jsonwebtoken.Claims;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.util.StringUtils;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Безопасность для профиля reactive: та же JWT-аутентификация, что и в {@link SecurityConfig},
+ * и те же правила доступа по ролям, но на уровне WebFlux-фильтров.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveSecurityConfig {
+
+    private final JwtService jwtService;
+    private final TokenRevocationRegistry revocations;
+
+    @Bean
+    public SecurityWebFilterChain reactiveFilterChain(ServerHttpSecurity http) {
+        AuthenticationWebFilter jwtFilter = new AuthenticationWebFilter(jwtAuthenticationManager());
+        jwtFilter.setServerAuthenticationConverter(exchange -> {
+            String bearerToken = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+                String token = bearerToken.substring(7);
+                return Mono.just(new UsernamePasswordAuthenticationToken(token, token));
+            }
+            return Mono.empty();
+        });
+        jwtFilter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+
+        return http
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+            .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+            .exceptionHandling(exception -> exception
+                .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)))
+            .authorizeExchange(authz -> authz
+                // Пробы без токена: только статус, детали health не раскрываются
+                .pathMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .pathMatchers(HttpMethod.GET, "/api/users/**").hasAnyRole("USER", "MODERATOR", "ADMIN")
+                .pathMatchers(HttpMethod.POST, "/api/users").hasAnyRole("MODERATOR", "ADMIN")
+                .pathMatchers(HttpMethod.PATCH, "/api/users/**").hasAnyRole("MODERATOR", "ADMIN")
+                .pathMatchers(HttpMethod.PUT, "/api/users/**").hasRole("ADMIN")
+                .pathMatchers(HttpMethod.DELETE, "/api/users/**").hasRole("ADMIN")
+                .pathMatchers("/actuator/jfr/**").hasRole("ADMIN")
+                // Горячие ключи - это username и email пользователей
+                .pathMatchers("/actuator/hotkeys", "/actuator/hotkeys/**").hasRole("ADMIN")
+                // Все остальные запросы требуют аутентификации
+                .anyExchange().authenticated())
+            .addFilterAt(jwtFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+            .build();
+    }
+
+    private ReactiveAuthenticationManager jwtAuthenticationManager() {
+        return authentication -> Mono.fromCallable(() -> authenticate((String) authentication.getCredentials()));
+    }
+
+    private Authentication authenticate(String token) {
+        Claims claims = jwtService.verifyAccessToken(token).orElseThrow(() -> {
+            log.warn("JWT token validation failed (reactive)");
+            return new BadCredentialsException("Invalid JWT token");
+        });
+        if (revocations.isRevoked(claims.getSubject(), claims.getIssuedAt(), claims.getId(), claims.getExpiration())) {
+            log.warn("Revoked JWT token presented for user: {} (reactive)", claims.getSubject());
+            throw new BadCredentialsException("Revoked JWT token");
+        }
+        String username = claims.getSubject();
+        List<SimpleGrantedAuthority> authorities = jwtService.extractRoles(claims).stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+        log.debug("JWT authentication successful for user: {} with authorities: {}", username, authorities);
+        return new UsernamePasswordAuthenticationToken(username, null, authorities);
+    }
+}
@@ -3,18 +3,20 @@ package com.reactiverates.users.infrastructure.config;
 import com.reactiverates.users.infrastructure.security.JwtAuthenticationEntryPoint;
 import com.reactiverates.users.infrastructure.security.JwtAuthenticationFilter;
 import com.reactiverates.users.infrastructure.security.JwtAccessDeniedHandler;
+import com.reactiverates.users.infrastructure.security.RateLimitFilter;
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -23,6 +25,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.security.config.Customizer;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @EnableWebSecurity
 @EnableMethodSecurity
 @RequiredArgsConstructor
@@ -31,12 +34,8 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final JwtAccessDeniedHandler jwtAccessDeniedHandler;
+    private final ObjectProvider<RateLimitFilter> rateLimitFilter;
     
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -68,10 +67,22 @@ public class SecurityConfig {
                 .requestMatchers("/swagger-resources/**", "/webjars/**").permitAll()
                 .requestMatchers("/swagger-config", "/api-docs/swagger-config").permitAll()
 
+                // Пробы без токена: только статус, детали health не раскрываются
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+
+                // Управление записью JFR - только администраторам
+                .requestMatchers("/actuator/jfr/**").hasRole("ADMIN")
+
+                // Горячие ключи - это username и email пользователей
+                .requestMatchers("/actuator/hotkeys", "/actuator/hotkeys/**").hasRole("ADMIN")
+
                 // Все остальные запросы требуют аутентификации
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+
+        // Лимит по subject: сразу после разбора токена, до авторизации и контроллеров
+        rateLimitFilter.ifAvailable(filter -> http.addFilterAfter(filter, JwtAuthenticationFilter.class));
         
         return http.build();
     }
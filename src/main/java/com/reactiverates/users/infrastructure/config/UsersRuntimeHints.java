@@ -0,0 +1,82 @@
+package com.reactiverates.users.infrastructure.config;
+
+import com.google.protobuf.Descriptors;
+import com.reactiverates.users.grpc.UsersProto;
+import com.reactiverates.users.infrastructure.diagnostics.ConnectionDiagnostics;
+import com.reactiverates.users.infrastructure.persistence.entity.UserEntity;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * Подсказки для native-image (профиль native): то, что Spring AOT не выводит сам.
+ * Сущности и репозитории JPA Spring Boot регистрирует автоматически, здесь - явная регистрация
+ * сущности, сгенерированных protobuf-классов и реализаций jjwt, которые загружаются по имени.
+ */
+public class UsersRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final MemberCategory[] PROTOBUF_MEMBERS = {
+            MemberCategory.INVOKE_PUBLIC_METHODS,
+            MemberCategory.INVOKE_DECLARED_METHODS,
+            MemberCategory.DECLARED_FIELDS
+    };
+
+    // jjwt-impl подключен в runtime-scope и создает реализации через Classes.newInstance(String)
+    private static final List<String> JJWT_IMPLEMENTATIONS = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+            "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyOperations",
+            "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardCurves",
+            "io.jsonwebtoken.impl.security.KeysBridge",
+            "io.jsonwebtoken.impl.security.JwksBridge",
+            "io.jsonwebtoken.impl.security.DefaultSecretKeyBuilder",
+            "io.jsonwebtoken.impl.security.DefaultKeyOperationBuilder",
+            "io.jsonwebtoken.impl.security.DefaultKeyOperationPolicyBuilder",
+            "io.jsonwebtoken.impl.security.DefaultDynamicJwkBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkParserBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkSetBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkSetParserBuilder",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.reflection().registerType(UserEntity.class, MemberCategory.values());
+
+        // Сообщения и перечисления берутся из дескриптора users.proto, новые RPC не требуют правки списка
+        String protoPackage = UsersProto.class.getPackageName();
+        Descriptors.FileDescriptor file = UsersProto.getDescriptor();
+        hints.reflection().registerType(UsersProto.class, PROTOBUF_MEMBERS);
+        for (Descriptors.Descriptor message : file.getMessageTypes()) {
+            String className = protoPackage + "." + message.getName();
+            hints.reflection().registerType(TypeReference.of(className), PROTOBUF_MEMBERS);
+            hints.reflection().registerType(TypeReference.of(className + "$Builder"), PROTOBUF_MEMBERS);
+        }
+        for (Descriptors.EnumDescriptor enumType : file.getEnumTypes()) {
+            hints.reflection().registerType(TypeReference.of(protoPackage + "." + enumType.getName()),
+                    MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.PUBLIC_FIELDS);
+        }
+
+        for (String type : JJWT_IMPLEMENTATIONS) {
+            hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.PUBLIC_FIELDS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.*");
+
+        // Значения Map в ответе /actuator/connectionpool Spring не может вывести из сигнатуры
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), ConnectionDiagnostics.LongHold.class);
+    }
+}
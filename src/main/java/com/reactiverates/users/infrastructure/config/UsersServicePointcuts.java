@@ -0,0 +1,29 @@
+package com.reactiverates.users.infrastructure.config;
+
+import com.reactiverates.users.domain.service.UsersService;
+
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+
+import java.lang.reflect.Method;
+
+/**
+ * Общий pointcut советов вокруг UsersService: маршрутизация по шардам, метка операции диагностики,
+ * события JFR и span трассировки. Порядок советов задают сами advisor.
+ */
+public final class UsersServicePointcuts {
+
+    /**
+     * Методы бинов, реализующих UsersService, кроме методов Object.
+     */
+    public static final Pointcut USERS_SERVICE_METHODS = new StaticMethodMatcherPointcut() {
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return UsersService.class.isAssignableFrom(targetClass)
+                    && method.getDeclaringClass() != Object.class;
+        }
+    };
+
+    private UsersServicePointcuts() {
+    }
+}
@@ -0,0 +1,240 @@
+package com.reactiverates.users.infrastructure.diagnostics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Статистика пула соединений по операциям UsersService: ожидание соединения, удержание, время в JDBC.
+ * Метрики: users.db.connection.acquire, users.db.connection.hold, users.db.jdbc (тег operation).
+ * Соединения, удерживаемые дольше порога, фиксируются вместе со стеком, снятым в момент получения
+ * соединения: к моменту сканирования поток-владелец уже может выполнять совсем другой код.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.diagnostics", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ConnectionDiagnostics {
+
+    private static final int MAX_LONG_HOLDS = 50;
+    private static final int MAX_STACK_FRAMES = 25;
+    private static final String APPLICATION_PACKAGE = "com.reactiverates.";
+    private static final String DIAGNOSTICS_PACKAGE = ConnectionDiagnostics.class.getPackageName() + ".";
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final MeterRegistry meterRegistry;
+    private final Duration longHoldThreshold;
+    private final double acquireStackSampleRate;
+    private final ConcurrentMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final Set<Hold> open = ConcurrentHashMap.newKeySet();
+    private final Deque<LongHold> longHolds = new ArrayDeque<>();
+
+    public ConnectionDiagnostics(MeterRegistry meterRegistry,
+                                 @Value("${users.diagnostics.long-hold-threshold-ms:2000}") long longHoldThresholdMs,
+                                 @Value("${users.diagnostics.acquire-stack-sample-rate:0.01}") double acquireStackSampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.longHoldThreshold = Duration.ofMillis(longHoldThresholdMs);
+        this.acquireStackSampleRate = acquireStackSampleRate;
+    }
+
+    /**
+     * Место получения соединения: кадры приложения без кадров диагностики, не более MAX_STACK_FRAMES.
+     * StackWalker обходит стек лениво и не материализует StackTraceElement до отчета.
+     * Снимается для доли соединений {@code acquire-stack-sample-rate}, иначе null.
+     */
+    List<StackWalker.StackFrame> captureAcquireStack() {
+        if (acquireStackSampleRate <= 0.0
+                || acquireStackSampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= acquireStackSampleRate) {
+            return null;
+        }
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().startsWith(DIAGNOSTICS_PACKAGE))
+                .limit(MAX_STACK_FRAMES)
+                .toList());
+    }
+
+    void recordAcquire(String operation, long nanos) {
+        OperationStats stats = stats(operation);
+        stats.acquireCount.increment();
+        stats.acquireNanos.add(nanos);
+        stats.acquireMaxNanos.accumulate(nanos);
+        stats.acquireTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void opened(Hold hold) {
+        open.add(hold);
+    }
+
+    void closed(Hold hold, long closedAt) {
+        open.remove(hold);
+        long nanos = closedAt - hold.acquiredAt;
+        OperationStats stats = stats(hold.operation);
+        stats.holdNanos.add(nanos);
+        stats.holdMaxNanos.accumulate(nanos);
+        stats.jdbcNanos.add(hold.jdbcNanos);
+        stats.holdTimer.record(nanos, TimeUnit.NANOSECONDS);
+        stats.jdbcTimer.record(hold.jdbcNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordJdbc(Hold hold, long nanos) {
+        hold.jdbcNanos += nanos;
+        hold.statements++;
+    }
+
+    /**
+     * Проверяет открытые соединения и фиксирует удерживаемые дольше порога (один раз на соединение).
+     */
+    @Scheduled(fixedDelayString = "${users.diagnostics.scan-interval-ms:1000}")
+    void detectLongHolds() {
+        long now = System.nanoTime();
+        long threshold = longHoldThreshold.toNanos();
+        for (Hold hold : open) {
+            long heldNanos = now - hold.acquiredAt;
+            if (heldNanos < threshold || hold.reported) {
+                continue;
+            }
+            hold.reported = true;
+            List<String> stack = hold.acquireStack == null ? List.of() : hold.acquireStack.stream()
+                    .map(frame -> frame.toStackTraceElement().toString())
+                    .toList();
+            LongHold longHold = new LongHold(hold.operation, hold.thread.getName(),
+                    TimeUnit.NANOSECONDS.toMillis(heldNanos), hold.statements, Instant.now(), stack);
+            synchronized (longHolds) {
+                if (longHolds.size() == MAX_LONG_HOLDS) {
+                    longHolds.removeFirst();
+                }
+                longHolds.addLast(longHold);
+            }
+            meterRegistry.counter("users.db.connection.long-hold", "operation", hold.operation).increment();
+            log.warn("Connection held for {}ms by operation {} on thread {} ({} statements), call site: {}",
+                    longHold.heldMillis(), hold.operation, longHold.thread(), hold.statements,
+                    stack.isEmpty() ? "unknown" : String.join(" <- ", stack.subList(0, Math.min(5, stack.size()))));
+        }
+    }
+
+    Map<String, Object> operationsReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        operations.entrySet().stream()
+                .sorted(Comparator.comparing(Map.Entry::getKey))
+                .forEach(entry -> report.put(entry.getKey(), entry.getValue().toReport()));
+        return report;
+    }
+
+    List<Map<String, Object>> openConnectionsReport() {
+        long now = System.nanoTime();
+        List<Map<String, Object>> report = new ArrayList<>();
+        for (Hold hold : open) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("operation", hold.operation);
+            entry.put("thread", hold.thread.getName());
+            entry.put("heldMillis", TimeUnit.NANOSECONDS.toMillis(now - hold.acquiredAt));
+            entry.put("statements", hold.statements);
+            report.add(entry);
+        }
+        report.sort(Comparator.comparing(e -> -((Long) e.get("heldMillis"))));
+        return report;
+    }
+
+    Duration longHoldThreshold() {
+        return longHoldThreshold;
+    }
+
+    List<LongHold> longHolds() {
+        synchronized (longHolds) {
+            return new ArrayList<>(longHolds);
+        }
+    }
+
+    private OperationStats stats(String operation) {
+        return operations.computeIfAbsent(operation, op -> new OperationStats(meterRegistry, op));
+    }
+
+    /**
+     * Удерживаемое соединение. Поля jdbcNanos/statements меняет только поток-владелец.
+     */
+    static final class Hold {
+        final String operation;
+        final long acquiredAt;
+        final Thread thread;
+        final List<StackWalker.StackFrame> acquireStack;
+        volatile long jdbcNanos;
+        volatile int statements;
+        volatile boolean reported;
+
+        Hold(String operation, long acquiredAt, Thread thread, List<StackWalker.StackFrame> acquireStack) {
+            this.operation = operation;
+            this.acquiredAt = acquiredAt;
+            this.thread = thread;
+            this.acquireStack = acquireStack;
+        }
+    }
+
+    public record LongHold(String operation, String thread, long heldMillis, int statements, Instant detectedAt, List<String> stack) {
+    }
+
+    private static final class OperationStats {
+        final LongAdder acquireCount = new LongAdder();
+        final LongAdder acquireNanos = new LongAdder();
+        final LongAccumulator acquireMaxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder holdNanos = new LongAdder();
+        final LongAccumulator holdMaxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder jdbcNanos = new LongAdder();
+        final Timer acquireTimer;
+        final Timer holdTimer;
+        final Timer jdbcTimer;
+
+        OperationStats(MeterRegistry meterRegistry, String operation) {
+            acquireTimer = Timer.builder("users.db.connection.acquire")
+                    .description("Time spent waiting for a pooled connection")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            holdTimer = Timer.builder("users.db.connection.hold")
+                    .description("Time a connection was held between acquire and close")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            jdbcTimer = Timer.builder("users.db.jdbc")
+                    .description("Time spent executing JDBC statements while holding a connection")
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+        }
+
+        Map<String, Object> toReport() {
+            long count = acquireCount.sum();
+            long hold = holdNanos.sum();
+            long jdbc = jdbcNanos.sum();
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("connections", count);
+            report.put("acquireAvgMicros", count == 0 ? 0 : acquireNanos.sum() / count / 1_000);
+            report.put("acquireMaxMicros", acquireMaxNanos.get() / 1_000);
+            report.put("holdAvgMicros", count == 0 ? 0 : hold / count / 1_000);
+            report.put("holdMaxMicros", holdMaxNanos.get() / 1_000);
+            report.put("jdbcAvgMicros", count == 0 ? 0 : jdbc / count / 1_000);
+            // Доля удержания соединения, потраченная вне JDBC (BCrypt, маппинг, ожидание)
+            report.put("nonJdbcHoldRatio", hold == 0 ? 0.0 : Math.max(0.0, 1.0 - (double) jdbc / hold));
+            return report;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.reactiverates.users.infrastructure.diagnostics;
+
+import io.micrometer.tracing.Tracer;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+import static com.reactiverates.users.infrastructure.config.UsersServicePointcuts.USERS_SERVICE_METHODS;
+
+/**
+ * Подключает диагностику пула: оборачивает DataSource и помечает потоки операциями UsersService.
+ * Hibernate получает {@link QueryCountingStatementInspector} для учета запросов по входящим запросам.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "users.diagnostics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConnectionDiagnosticsConfig {
+
+    @Bean
+    public static BeanPostProcessor instrumentedDataSourcePostProcessor(ObjectProvider<ConnectionDiagnostics> diagnostics,
+                                                                        ObjectProvider<Tracer> tracer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource(dataSource, diagnostics, tracer);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountingHibernateCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountingStatementInspector());
+    }
+
+    /**
+     * Метка операции ставится снаружи TransactionInterceptor, поэтому соединение, открытое транзакцией,
+     * атрибутируется методу сервиса. Внутри маршрутизации по шардам: scatter-вызовы выполняются
+     * на других потоках и размечаются заново.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor usersServiceOperationAdvisor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(USERS_SERVICE_METHODS, new UsersServiceOperationInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return advisor;
+    }
+}
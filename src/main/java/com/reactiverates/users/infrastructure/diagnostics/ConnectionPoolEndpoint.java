@@ -0,0 +1,65 @@
+package com.reactiverates.users.infrastructure.diagnostics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/connectionpool: состояние пула Hikari, статистика ожидания и удержания соединений
+ * по операциям UsersService, текущие соединения и последние долгие удержания со стеком вызова.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.diagnostics", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Endpoint(id = "connectionpool")
+@RequiredArgsConstructor
+@Slf4j
+public class ConnectionPoolEndpoint {
+
+    private final ConnectionDiagnostics diagnostics;
+    private final DataSource dataSource;
+
+    @ReadOperation
+    public Map<String, Object> connectionPool() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("pool", poolState());
+        report.put("longHoldThresholdMs", diagnostics.longHoldThreshold().toMillis());
+        report.put("operations", diagnostics.operationsReport());
+        report.put("open", diagnostics.openConnectionsReport());
+        report.put("longHolds", diagnostics.longHolds());
+        return report;
+    }
+
+    private Map<String, Object> poolState() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return state;
+            }
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            state.put("name", hikari.getPoolName());
+            state.put("maximumPoolSize", hikari.getMaximumPoolSize());
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool != null) {
+                state.put("active", pool.getActiveConnections());
+                state.put("idle", pool.getIdleConnections());
+                state.put("total", pool.getTotalConnections());
+                state.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+            }
+        } catch (SQLException e) {
+            log.debug("Failed to unwrap HikariDataSource: {}", e.getMessage());
+        }
+        return state;
+    }
+}
@@ -0,0 +1,217 @@
+package com.reactiverates.users.infrastructure.diagnostics;
+
+import com.reactiverates.users.infrastructure.tracing.ChildSpans;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource-обертка, измеряющая ожидание соединения из пула, время удержания соединения
+ * и время выполнения JDBC-запросов с атрибуцией к {@link OperationContext}. Время выполнения
+ * и прочитанные строки также учитываются в {@link RequestQueries} текущего входящего запроса,
+ * а в сэмплированном трейсе каждое выполнение - дочерний span "jdbc select users".
+ * {@link ConnectionDiagnostics} разрешается лениво: DataSource создается раньше MeterRegistry.
+ */
+class InstrumentedDataSource extends DelegatingDataSource {
+
+    private final ObjectProvider<ConnectionDiagnostics> diagnosticsProvider;
+    private final ObjectProvider<Tracer> tracerProvider;
+    private volatile ConnectionDiagnostics diagnostics;
+    private volatile Tracer tracer;
+
+    InstrumentedDataSource(DataSource target, ObjectProvider<ConnectionDiagnostics> diagnosticsProvider,
+                           ObjectProvider<Tracer> tracerProvider) {
+        super(target);
+        this.diagnosticsProvider = diagnosticsProvider;
+        this.tracerProvider = tracerProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long startTime = System.nanoTime();
+        Connection connection = super.getConnection();
+        return wrap(connection, startTime);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long startTime = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        return wrap(connection, startTime);
+    }
+
+    private Connection wrap(Connection connection, long requestedAt) {
+        ConnectionDiagnostics diagnostics = diagnostics();
+        if (diagnostics == null) {
+            return connection;
+        }
+        long acquiredAt = System.nanoTime();
+        String operation = OperationContext.current();
+        diagnostics.recordAcquire(operation, acquiredAt - requestedAt);
+        ConnectionHandler handler = new ConnectionHandler(connection, diagnostics, tracer(), operation, acquiredAt);
+        diagnostics.opened(handler.hold);
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, handler);
+    }
+
+    private ConnectionDiagnostics diagnostics() {
+        ConnectionDiagnostics current = diagnostics;
+        if (current == null) {
+            current = diagnosticsProvider.getIfAvailable();
+            diagnostics = current;
+        }
+        return current;
+    }
+
+    private Tracer tracer() {
+        Tracer current = tracer;
+        if (current == null) {
+            current = tracerProvider.getIfAvailable();
+            tracer = current;
+        }
+        return current;
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final ConnectionDiagnostics diagnostics;
+        private final Tracer tracer;
+        private final ConnectionDiagnostics.Hold hold;
+        private boolean closed;
+
+        ConnectionHandler(Connection target, ConnectionDiagnostics diagnostics, Tracer tracer,
+                          String operation, long acquiredAt) {
+            this.target = target;
+            this.diagnostics = diagnostics;
+            this.tracer = tracer;
+            this.hold = new ConnectionDiagnostics.Hold(operation, acquiredAt, Thread.currentThread(),
+                    diagnostics.captureAcquireStack());
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("close".equals(name) && !closed) {
+                closed = true;
+                diagnostics.closed(hold, System.nanoTime());
+            }
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof Statement statement && isStatementFactory(name)) {
+                Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                        : statement instanceof PreparedStatement ? PreparedStatement.class
+                        : Statement.class;
+                return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {type},
+                        new StatementHandler(statement, diagnostics, tracer, hold,
+                                args != null && args.length > 0 && args[0] instanceof String sql ? sql : null));
+            }
+            return result;
+        }
+
+        private boolean isStatementFactory(String name) {
+            return "createStatement".equals(name) || "prepareStatement".equals(name) || "prepareCall".equals(name);
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final ConnectionDiagnostics diagnostics;
+        private final Tracer tracer;
+        private final ConnectionDiagnostics.Hold hold;
+        private final String preparedSql;
+
+        StatementHandler(Statement target, ConnectionDiagnostics diagnostics, Tracer tracer,
+                         ConnectionDiagnostics.Hold hold, String preparedSql) {
+            this.target = target;
+            this.diagnostics = diagnostics;
+            this.tracer = tracer;
+            this.hold = hold;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                Object result = invokeTarget(target, method, args);
+                return "getResultSet".equals(name) ? countRows(result) : result;
+            }
+            Span span = ChildSpans.start(tracer, "jdbc");
+            if (span != null) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                String statement = sql != null ? RequestQueries.shortForm(sql) : "unknown";
+                span.name("jdbc " + statement).tag("db.system", "postgresql").tag("db.operation", statement);
+            }
+            long startTime = System.nanoTime();
+            Throwable error = null;
+            try {
+                return countRows(invokeTarget(target, method, args));
+            } catch (Throwable e) {
+                error = e;
+                throw e;
+            } finally {
+                long nanos = System.nanoTime() - startTime;
+                diagnostics.recordJdbc(hold, nanos);
+                RequestQueries.recordJdbc(nanos);
+                ChildSpans.end(span, error);
+            }
+        }
+
+        // Строки считаются, только если поток обслуживает входящий запрос
+        private static Object countRows(Object result) {
+            if (result instanceof ResultSet resultSet && RequestQueries.current() != null) {
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                        new ResultSetHandler(resultSet));
+            }
+            return result;
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+
+        ResultSetHandler(ResultSet target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = invokeTarget(target, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                RequestQueries.recordRows(1);
+            }
+            return result;
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.reactiverates.users.infrastructure.diagnostics;
+
+/**
+ * Имя текущей операции сервиса в потоке, к которой атрибутируются обращения к пулу соединений.
+ * Устанавливается {@link UsersServiceOperationInterceptor}, вложенные вызовы атрибутируются внешней операции.
+ */
+public final class OperationContext {
+
+    public static final String UNATTRIBUTED = "unattributed";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private OperationContext() {
+    }
+
+    public static String current() {
+        String operation = CURRENT.get();
+        return operation != null ? operation : UNATTRIBUTED;
+    }
+
+    /**
+     * Устанавливает операцию, если она еще не задана. Возвращает true, если вызывающий должен вызвать {@link #clear()}.
+     */
+    static boolean enter(String operation) {
+        if (CURRENT.get() != null) {
+            return false;
+        }
+        CURRENT.set(operation);
+        return true;
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,85 @@
+package com.reactiverates.users.infrastructure.diagnostics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Итог запросов к базе по входящему запросу: метрики users.db.request.statements, users.db.request.rows,
+ * users.db.request.jdbc (теги transport, route) и строка в лог, если запрос превысил бюджет:
+ * больше max-statements выражений, больше max-jdbc-ms в JDBC или одно выражение повторилось
+ * max-repeated раз (N+1).
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.diagnostics", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class QueryBudget {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxStatements;
+    private final long maxJdbcNanos;
+    private final int maxRepeated;
+
+    public QueryBudget(MeterRegistry meterRegistry,
+                       @Value("${users.diagnostics.query-budget.max-statements:10}") int maxStatements,
+                       @Value("${users.diagnostics.query-budget.max-jdbc-ms:200}") long maxJdbcMs,
+                       @Value("${users.diagnostics.query-budget.max-repeated:5}") int maxRepeated) {
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.maxJdbcNanos = TimeUnit.MILLISECONDS.toNanos(maxJdbcMs);
+        this.maxRepeated = maxRepeated;
+    }
+
+    public void finish(RequestQueries queries) {
+        int statements = queries.statements();
+        if (statements == 0) {
+            return;
+        }
+        String transport = queries.transport();
+        String route = queries.route();
+        DistributionSummary.builder("users.db.request.statements")
+                .description("SQL statements executed per incoming request")
+                .tag("transport", transport)
+                .tag("route", route)
+                .register(meterRegistry)
+                .record(statements);
+        DistributionSummary.builder("users.db.request.rows")
+                .description("Rows fetched per incoming request")
+                .tag("transport", transport)
+                .tag("route", route)
+                .register(meterRegistry)
+                .record(queries.rows());
+        Timer.builder("users.db.request.jdbc")
+                .description("JDBC time per incoming request")
+                .tag("transport", transport)
+                .tag("route", route)
+                .register(meterRegistry)
+                .record(queries.jdbcNanos(), TimeUnit.NANOSECONDS);
+
+        Map.Entry<String, Integer> repeated = queries.mostRepeated();
+        boolean nPlusOne = repeated != null && repeated.getValue() >= maxRepeated;
+        if (statements <= maxStatements && queries.jdbcNanos() <= maxJdbcNanos && !nPlusOne) {
+            return;
+        }
+        Counter.builder("users.db.request.over-budget")
+                .description("Incoming requests that exceeded the query budget")
+                .tag("transport", transport)
+                .tag("route", route)
+                .register(meterRegistry)
+                .increment();
+        log.warn("Query budget exceeded by {} {} in {}ms{}: {}", transport, route,
+                TimeUnit.NANOSECONDS.toMillis(queries.elapsedNanos()),
+                nPlusOne ? " (possible N+1: " + repeated.getKey() + " x" + repeated.getValue() + ")" : "",
+                queries.summary());
+    }
+}
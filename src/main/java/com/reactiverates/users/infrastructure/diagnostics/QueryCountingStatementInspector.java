@@ -0,0 +1,16 @@
+package com.reactiverates.users.infrastructure.diagnostics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Считает SQL-выражения, которые готовит Hibernate, в {@link RequestQueries} текущего потока.
+ * Текст выражения не меняется.
+ */
+class QueryCountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestQueries.recordStatement(sql);
+        return sql;
+    }
+}
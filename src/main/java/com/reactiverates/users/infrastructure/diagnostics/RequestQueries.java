@@ -0,0 +1,178 @@
+package com.reactiverates.users.infrastructure.diagnostics;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Запросы к базе одного входящего запроса (HTTP-маршрут или gRPC-метод): число SQL-выражений,
+ * время в JDBC и прочитанные строки. Выражения считает {@link QueryCountingStatementInspector},
+ * время и строки - {@link InstrumentedDataSource}; оба пишут в запрос, привязанный к текущему потоку.
+ * Работа на других потоках (scatter по шардам, автобатчинг gRPC) сюда не попадает.
+ */
+public final class RequestQueries {
+
+    private static final ThreadLocal<RequestQueries> CURRENT = new ThreadLocal<>();
+    private static final int MAX_SHAPES = 64;
+
+    private final String transport;
+    private final long startedAt = System.nanoTime();
+    private String route;
+    private int statements;
+    private long jdbcNanos;
+    private long rows;
+    // Одинаковый текст SQL внутри запроса - признак N+1; ключ - текст, значение - число повторов
+    private Map<String, Integer> shapes;
+
+    public RequestQueries(String transport, String route) {
+        this.transport = transport;
+        this.route = route;
+    }
+
+    static RequestQueries current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Привязывает запрос к текущему потоку до закрытия возвращенного Binding.
+     * Колбэки одного gRPC-вызова могут выполняться на разных потоках, поэтому привязка - на каждый колбэк.
+     */
+    public Binding bind() {
+        RequestQueries previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    static void recordStatement(String sql) {
+        RequestQueries queries = CURRENT.get();
+        if (queries == null) {
+            return;
+        }
+        synchronized (queries) {
+            queries.statements++;
+            if (queries.shapes == null) {
+                queries.shapes = new HashMap<>();
+            }
+            if (queries.shapes.size() < MAX_SHAPES || queries.shapes.containsKey(sql)) {
+                queries.shapes.merge(sql, 1, Integer::sum);
+            }
+        }
+    }
+
+    static void recordJdbc(long nanos) {
+        RequestQueries queries = CURRENT.get();
+        if (queries != null) {
+            synchronized (queries) {
+                queries.jdbcNanos += nanos;
+            }
+        }
+    }
+
+    static void recordRows(long count) {
+        RequestQueries queries = CURRENT.get();
+        if (queries != null) {
+            synchronized (queries) {
+                queries.rows += count;
+            }
+        }
+    }
+
+    public String transport() {
+        return transport;
+    }
+
+    public synchronized String route() {
+        return route;
+    }
+
+    /**
+     * Маршрут HTTP известен только после диспетчеризации (шаблон пути), поэтому задается в конце запроса.
+     */
+    public synchronized void route(String route) {
+        this.route = route;
+    }
+
+    public synchronized int statements() {
+        return statements;
+    }
+
+    public synchronized long jdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public synchronized long rows() {
+        return rows;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    /**
+     * Самое частое выражение запроса в коротком виде ("select users") и число его повторов.
+     */
+    public synchronized Map.Entry<String, Integer> mostRepeated() {
+        if (shapes == null || shapes.isEmpty()) {
+            return null;
+        }
+        Map.Entry<String, Integer> top = shapes.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElseThrow();
+        return Map.entry(shortForm(top.getKey()), top.getValue());
+    }
+
+    /**
+     * Компактная сводка без текста SQL: "12 statements, 40 rows, jdbc 8ms; select users x10, insert users x1".
+     */
+    public synchronized String summary() {
+        StringBuilder summary = new StringBuilder()
+                .append(statements).append(" statements, ")
+                .append(rows).append(" rows, jdbc ")
+                .append(TimeUnit.NANOSECONDS.toMillis(jdbcNanos)).append("ms");
+        if (shapes != null && !shapes.isEmpty()) {
+            summary.append("; ").append(shapes.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                    .limit(5)
+                    .map(entry -> shortForm(entry.getKey()) + " x" + entry.getValue())
+                    .collect(Collectors.joining(", ")));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Тип выражения и первая таблица: достаточно, чтобы узнать запрос в логе, без параметров и длинного SQL.
+     */
+    static String shortForm(String sql) {
+        String[] tokens = sql.trim().toLowerCase(Locale.ROOT).split("\\s+");
+        if (tokens.length == 0) {
+            return "?";
+        }
+        String verb = tokens[0];
+        String anchor = switch (verb) {
+            case "insert" -> "into";
+            case "update" -> "update";
+            default -> "from";
+        };
+        for (int i = 0; i < tokens.length - 1; i++) {
+            if (tokens[i].equals(anchor)) {
+                return verb + " " + tokens[i + 1];
+            }
+        }
+        return verb;
+    }
+
+    public interface Binding extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,93 @@
+package com.reactiverates.users.infrastructure.diagnostics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NativeDetector;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Время старта, длительность прогрева и латентность первого запроса к /api для сравнения режимов запуска
+ * (jvm, aot, cds, native). Пишется в лог и в /actuator/info (раздел startup).
+ */
+@Component
+@Slf4j
+public class StartupReport implements InfoContributor {
+
+    private final AtomicBoolean firstRequestPending = new AtomicBoolean(true);
+    private final Map<String, Object> details = new LinkedHashMap<>();
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        String mode = mode(runtime);
+        long uptime = runtime.getUptime();
+        long ready = event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : -1;
+        synchronized (details) {
+            details.put("mode", mode);
+            details.put("jvmUptimeAtReadyMs", uptime);
+            details.put("springReadyMs", ready);
+        }
+        log.info("Startup report: mode={}, jvmUptimeAtReadyMs={}, springReadyMs={}", mode, uptime, ready);
+    }
+
+    public void recordWarmup(long millis) {
+        synchronized (details) {
+            details.put("warmupMs", millis);
+        }
+    }
+
+    boolean isFirstRequestPending() {
+        return firstRequestPending.get();
+    }
+
+    void recordFirstRequest(String method, String path, long nanos) {
+        if (!firstRequestPending.compareAndSet(true, false)) {
+            return;
+        }
+        long latency = TimeUnit.NANOSECONDS.toMillis(nanos);
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        synchronized (details) {
+            details.put("firstRequest", method + " " + path);
+            details.put("firstRequestLatencyMs", latency);
+            details.put("jvmUptimeAtFirstResponseMs", uptime);
+        }
+        log.info("Startup report: first request {} {} took {}ms, jvmUptimeAtFirstResponseMs={}", method, path, latency, uptime);
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        synchronized (details) {
+            builder.withDetail("startup", new LinkedHashMap<>(details));
+        }
+    }
+
+    private static String mode(RuntimeMXBean runtime) {
+        if (NativeDetector.inNativeImage()) {
+            return "native";
+        }
+        List<String> parts = new ArrayList<>(List.of("jvm"));
+        if (AotDetector.useGeneratedArtifacts()) {
+            parts.add("aot");
+        }
+        boolean cds = runtime.getInputArguments().stream()
+                .anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile") || arg.startsWith("-XX:AOTCache"));
+        if (cds) {
+            parts.add("cds");
+        }
+        return String.join("+", parts);
+    }
+}
@@ -0,0 +1,23 @@
+package com.reactiverates.users.infrastructure.diagnostics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Помечает поток именем вызываемого метода UsersService ("UsersService.getUserById").
+ * Advisor регистрируется с наивысшим приоритетом, чтобы метка ставилась до открытия транзакции.
+ */
+class UsersServiceOperationInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        boolean owner = OperationContext.enter("UsersService." + invocation.getMethod().getName());
+        try {
+            return invocation.proceed();
+        } finally {
+            if (owner) {
+                OperationContext.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.reactiverates.users.infrastructure.directory;
+
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.UserDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.LongPredicate;
+
+/**
+ * Компактное представление пользователей в примитивных массивах.
+ * Строки хранятся в UTF-8 в общем байтовом буфере, слоты адресуются индексами по id, username и email.
+ * Не потокобезопасна, синхронизация на стороне {@link UserDirectory}.
+ */
+final class CompactUserTable {
+
+    static final int USERNAME = 0;
+    static final int EMAIL = 1;
+    static final int PASSWORD = 2;
+    static final int FIRST_NAME = 3;
+    static final int LAST_NAME = 4;
+    static final int PHONE_NUMBER = 5;
+    static final int STRING_FIELDS = 6;
+
+    static final long NULL_TIME = Long.MIN_VALUE;
+    static final byte NULL_FLAG = -1;
+
+    private static final User.UserRole[] ROLES = User.UserRole.values();
+    private static final int MIN_COMPACTION_BYTES = 1 << 20;
+
+    private long[] ids;
+    private byte[] roles;
+    private byte[] active;
+    private long[] createdAt;
+    private long[] updatedAt;
+    private int[] stringOffsets;
+    private int[] stringLengths;
+
+    private byte[] heap;
+    private int heapTop;
+    private int heapGarbage;
+
+    private int size;
+    private int live;
+    private int[] freeSlots = new int[16];
+    private int freeTop;
+    private long watermark = NULL_TIME;
+
+    private final SlotIndex byId;
+    private final SlotIndex byUsername;
+    private final SlotIndex byEmail;
+
+    CompactUserTable(int expectedUsers) {
+        int capacity = Math.max(16, expectedUsers);
+        ids = new long[capacity];
+        roles = new byte[capacity];
+        active = new byte[capacity];
+        createdAt = new long[capacity];
+        updatedAt = new long[capacity];
+        stringOffsets = new int[capacity * STRING_FIELDS];
+        stringLengths = new int[capacity * STRING_FIELDS];
+        heap = new byte[capacity * 64];
+        byId = new SlotIndex(capacity);
+        byUsername = new SlotIndex(capacity);
+        byEmail = new SlotIndex(capacity);
+    }
+
+    int size() {
+        return live;
+    }
+
+    long watermark() {
+        return watermark;
+    }
+
+    int findById(long id) {
+        return byId.find(idHash(id), slot -> ids[slot] == id);
+    }
+
+    // username уникален без учета регистра, индекс построен по lower-case значению
+    int findByUsername(String username) {
+        if (username == null) {
+            return -1;
+        }
+        String key = usernameKey(username);
+        return byUsername.find(stringHash(key), slot -> key.equals(usernameKey(readString(slot, USERNAME))));
+    }
+
+    int findByEmail(String email) {
+        return findByString(byEmail, EMAIL, email);
+    }
+
+    /**
+     * Вставляет или обновляет строку. Более старая версия (по updatedAt) не перетирает более новую.
+     */
+    boolean upsert(UserDto user) {
+        long updated = toMicros(user.updatedAt());
+        int slot = findById(user.id());
+        if (slot >= 0) {
+            if (updated != NULL_TIME && updatedAt[slot] != NULL_TIME && updated < updatedAt[slot]) {
+                return false;
+            }
+            unindexStrings(slot);
+            releaseStrings(slot);
+        } else {
+            slot = allocateSlot();
+            ids[slot] = user.id();
+            byId.insert(idHash(user.id()), slot);
+            live++;
+        }
+
+        roles[slot] = user.role() != null ? (byte) user.role().ordinal() : NULL_FLAG;
+        active[slot] = user.isActive() != null ? (byte) (user.isActive() ? 1 : 0) : NULL_FLAG;
+        createdAt[slot] = toMicros(user.createdAt());
+        updatedAt[slot] = updated;
+        writeString(slot, USERNAME, user.username());
+        writeString(slot, EMAIL, user.email());
+        writeString(slot, PASSWORD, user.passwordHash());
+        writeString(slot, FIRST_NAME, user.firstName());
+        writeString(slot, LAST_NAME, user.lastName());
+        writeString(slot, PHONE_NUMBER, user.phoneNumber());
+        indexStrings(slot, user.username(), user.email());
+
+        if (updated > watermark) {
+            watermark = updated;
+        }
+        return true;
+    }
+
+    boolean remove(long id) {
+        int slot = findById(id);
+        if (slot < 0) {
+            return false;
+        }
+        byId.remove(idHash(id), slot);
+        unindexStrings(slot);
+        releaseStrings(slot);
+        ids[slot] = 0;
+        pushFreeSlot(slot);
+        live--;
+        return true;
+    }
+
+    /**
+     * Удаляет строки, id которых не проходят проверку. Возвращает число удаленных.
+     */
+    int retainIf(LongPredicate keep) {
+        int removed = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (isLive(slot) && !keep.test(ids[slot])) {
+                remove(ids[slot]);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    UserDto read(int slot) {
+        return new UserDto(
+                ids[slot],
+                readString(slot, USERNAME),
+                readString(slot, EMAIL),
+                readString(slot, FIRST_NAME),
+                readString(slot, LAST_NAME),
+                readString(slot, PHONE_NUMBER),
+                roles[slot] == NULL_FLAG ? null : ROLES[roles[slot]],
+                active[slot] == NULL_FLAG ? null : active[slot] == 1,
+                fromMicros(createdAt[slot]),
+                fromMicros(updatedAt[slot]),
+                readString(slot, PASSWORD)
+        );
+    }
+
+    // Доступ к сырым полям для снапшота
+
+    int slotLimit() {
+        return size;
+    }
+
+    boolean isLive(int slot) {
+        return findById(ids[slot]) == slot;
+    }
+
+    long id(int slot) {
+        return ids[slot];
+    }
+
+    byte role(int slot) {
+        return roles[slot];
+    }
+
+    byte active(int slot) {
+        return active[slot];
+    }
+
+    long createdAt(int slot) {
+        return createdAt[slot];
+    }
+
+    long updatedAt(int slot) {
+        return updatedAt[slot];
+    }
+
+    int stringLength(int slot, int field) {
+        return stringLengths[slot * STRING_FIELDS + field];
+    }
+
+    int stringOffset(int slot, int field) {
+        return stringOffsets[slot * STRING_FIELDS + field];
+    }
+
+    byte[] heap() {
+        return heap;
+    }
+
+    static long toMicros(LocalDateTime time) {
+        if (time == null) {
+            return NULL_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        if (micros == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000,
+                ZoneOffset.UTC);
+    }
+
+    private int findByString(SlotIndex index, int field, String value) {
+        if (value == null) {
+            return -1;
+        }
+        byte[] key = value.getBytes(StandardCharsets.UTF_8);
+        return index.find(stringHash(value), slot -> bytesEqual(slot, field, key));
+    }
+
+    private boolean bytesEqual(int slot, int field, byte[] key) {
+        int i = slot * STRING_FIELDS + field;
+        int length = stringLengths[i];
+        return length == key.length
+                && Arrays.equals(heap, stringOffsets[i], stringOffsets[i] + length, key, 0, key.length);
+    }
+
+    private void indexStrings(int slot, String username, String email) {
+        if (username != null) {
+            byUsername.insert(stringHash(usernameKey(username)), slot);
+        }
+        if (email != null) {
+            byEmail.insert(stringHash(email), slot);
+        }
+    }
+
+    private void unindexStrings(int slot) {
+        String username = readString(slot, USERNAME);
+        if (username != null) {
+            byUsername.remove(stringHash(usernameKey(username)), slot);
+        }
+        String email = readString(slot, EMAIL);
+        if (email != null) {
+            byEmail.remove(stringHash(email), slot);
+        }
+    }
+
+    private String readString(int slot, int field) {
+        int i = slot * STRING_FIELDS + field;
+        int length = stringLengths[i];
+        return length < 0 ? null : new String(heap, stringOffsets[i], length, StandardCharsets.UTF_8);
+    }
+
+    private void writeString(int slot, int field, String value) {
+        int i = slot * STRING_FIELDS + field;
+        if (value == null) {
+            stringOffsets[i] = 0;
+            stringLengths[i] = -1;
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureHeap(bytes.length);
+        System.arraycopy(bytes, 0, heap, heapTop, bytes.length);
+        stringOffsets[i] = heapTop;
+        stringLengths[i] = bytes.length;
+        heapTop += bytes.length;
+    }
+
+    void writeRawString(int slot, int field, byte[] source, int offset, int length) {
+        int i = slot * STRING_FIELDS + field;
+        if (length < 0) {
+            stringOffsets[i] = 0;
+            stringLengths[i] = -1;
+            return;
+        }
+        ensureHeap(length);
+        System.arraycopy(source, offset, heap, heapTop, length);
+        stringOffsets[i] = heapTop;
+        stringLengths[i] = length;
+        heapTop += length;
+    }
+
+    private void releaseStrings(int slot) {
+        for (int field = 0; field < STRING_FIELDS; field++) {
+            int i = slot * STRING_FIELDS + field;
+            if (stringLengths[i] > 0) {
+                heapGarbage += stringLengths[i];
+            }
+            stringLengths[i] = -1;
+        }
+    }
+
+    private void ensureHeap(int extra) {
+        if (heapTop + extra <= heap.length) {
+            return;
+        }
+        if (heapGarbage > MIN_COMPACTION_BYTES && heapGarbage * 2 > heapTop) {
+            compactHeap();
+            if (heapTop + extra <= heap.length) {
+                return;
+            }
+        }
+        heap = Arrays.copyOf(heap, Math.max(heap.length * 2, heapTop + extra));
+    }
+
+    private void compactHeap() {
+        byte[] compacted = new byte[heap.length];
+        int top = 0;
+        for (int i = 0; i < size * STRING_FIELDS; i++) {
+            int length = stringLengths[i];
+            if (length > 0) {
+                System.arraycopy(heap, stringOffsets[i], compacted, top, length);
+                stringOffsets[i] = top;
+                top += length;
+            }
+        }
+        heap = compacted;
+        heapTop = top;
+        heapGarbage = 0;
+    }
+
+    private int allocateSlot() {
+        if (freeTop > 0) {
+            return freeSlots[--freeTop];
+        }
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            roles = Arrays.copyOf(roles, capacity);
+            active = Arrays.copyOf(active, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+            stringOffsets = Arrays.copyOf(stringOffsets, capacity * STRING_FIELDS);
+            stringLengths = Arrays.copyOf(stringLengths, capacity * STRING_FIELDS);
+        }
+        return size++;
+    }
+
+    private void pushFreeSlot(int slot) {
+        if (freeTop == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeTop++] = slot;
+    }
+
+    /**
+     * Заполняет слот данными из снапшота без пересчета строковых полей через String.
+     */
+    int restore(long id, byte role, byte activeFlag, long created, long updated) {
+        int slot = allocateSlot();
+        ids[slot] = id;
+        roles[slot] = role;
+        active[slot] = activeFlag;
+        createdAt[slot] = created;
+        updatedAt[slot] = updated;
+        byId.insert(idHash(id), slot);
+        live++;
+        if (updated > watermark) {
+            watermark = updated;
+        }
+        return slot;
+    }
+
+    void indexRestored(int slot) {
+        indexStrings(slot, readString(slot, USERNAME), readString(slot, EMAIL));
+    }
+
+    private static int idHash(long id) {
+        return SlotIndex.mix(Long.hashCode(id));
+    }
+
+    private static String usernameKey(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static int stringHash(String value) {
+        return SlotIndex.mix(value.hashCode());
+    }
+}
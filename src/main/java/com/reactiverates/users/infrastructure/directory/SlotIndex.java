@@ -0,0 +1,103 @@
+package com.reactiverates.users.infrastructure.directory;
+
+import java.util.Arrays;
+
+/**
+ * Хеш-индекс с открытой адресацией (линейное пробирование): hash -> номер слота в таблице.
+ * Ключи не хранятся, сравнение делегируется вызывающему через {@link Matcher}.
+ * Не потокобезопасен.
+ */
+final class SlotIndex {
+
+    @FunctionalInterface
+    interface Matcher {
+        boolean matches(int slot);
+    }
+
+    private static final int EMPTY = 0;
+    private static final int TOMBSTONE = -1;
+
+    // slot + 1, EMPTY или TOMBSTONE
+    private int[] entries;
+    private int[] hashes;
+    private int count;
+    private int used;
+
+    SlotIndex(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        entries = new int[capacity];
+        hashes = new int[capacity];
+    }
+
+    static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    int find(int hash, Matcher matcher) {
+        int mask = entries.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            int entry = entries[i];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry != TOMBSTONE && hashes[i] == hash && matcher.matches(entry - 1)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    void insert(int hash, int slot) {
+        if ((used + 1) * 4 > entries.length * 3) {
+            rehash(count * 2 > entries.length / 2 ? entries.length * 2 : entries.length);
+        }
+        int mask = entries.length - 1;
+        int i = hash & mask;
+        while (entries[i] > 0) {
+            i = (i + 1) & mask;
+        }
+        if (entries[i] == EMPTY) {
+            used++;
+        }
+        entries[i] = slot + 1;
+        hashes[i] = hash;
+        count++;
+    }
+
+    boolean remove(int hash, int slot) {
+        int mask = entries.length - 1;
+        for (int i = hash & mask; entries[i] != EMPTY; i = (i + 1) & mask) {
+            if (entries[i] == slot + 1) {
+                entries[i] = TOMBSTONE;
+                count--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void clear() {
+        Arrays.fill(entries, EMPTY);
+        count = 0;
+        used = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldEntries = entries;
+        int[] oldHashes = hashes;
+        entries = new int[capacity];
+        hashes = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldEntries.length; j++) {
+            if (oldEntries[j] > 0) {
+                int i = oldHashes[j] & mask;
+                while (entries[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                entries[i] = oldEntries[j];
+                hashes[i] = oldHashes[j];
+            }
+        }
+        used = count;
+    }
+}
@@ -0,0 +1,167 @@
+package com.reactiverates.users.infrastructure.directory;
+
+import com.reactiverates.users.domain.event.UserChangedEvent;
+import com.reactiverates.users.domain.event.UsersArchivedEvent;
+import com.reactiverates.users.domain.event.UsersInvalidatedEvent;
+import com.reactiverates.users.domain.model.UserDto;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Полная in-memory реплика пользователей для быстрых lookup по id, username и email.
+ * Обновляется из write-path через {@link UserChangedEvent} после коммита транзакции.
+ * Пока реплика не загружена ({@link #isReady()}), чтение идет в базу.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.directory", name = "enabled", havingValue = "true")
+@Slf4j
+public class UserDirectory {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CompactUserTable table;
+    private volatile boolean ready;
+
+    public UserDirectory(@Value("${users.directory.expected-users:10000}") int expectedUsers) {
+        this.table = new CompactUserTable(expectedUsers);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Optional<UserDto> findById(Long id) {
+        return read(() -> {
+            int slot = table.findById(id);
+            return slot < 0 ? Optional.empty() : Optional.of(table.read(slot));
+        });
+    }
+
+    public Optional<UserDto> findByUsername(String username) {
+        return read(() -> {
+            int slot = table.findByUsername(username);
+            return slot < 0 ? Optional.empty() : Optional.of(table.read(slot));
+        });
+    }
+
+    public Optional<UserDto> findByEmail(String email) {
+        return read(() -> {
+            int slot = table.findByEmail(email);
+            return slot < 0 ? Optional.empty() : Optional.of(table.read(slot));
+        });
+    }
+
+    public int size() {
+        return read(table::size);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        write(t -> {
+            if (event.type() == UserChangedEvent.Type.DELETED) {
+                t.remove(event.userId());
+            } else {
+                t.upsert(event.current());
+            }
+        });
+        log.trace("User directory applied {} for user ID: {}", event.type(), event.userId());
+    }
+
+    // Архивные пользователи читаются из архива при промахе, реплика держит только рабочий набор
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsersArchived(UsersArchivedEvent event) {
+        write(t -> event.userIds().forEach(t::remove));
+        log.debug("User directory evicted {} archived users", event.userIds().size());
+    }
+
+    /**
+     * Применяет изменения, сделанные другими экземплярами (порядок обеспечивает updated_at в upsert).
+     */
+    @EventListener
+    public void onUsersInvalidated(UsersInvalidatedEvent event) {
+        write(t -> {
+            event.current().forEach(t::upsert);
+            event.deletedIds().forEach(t::remove);
+        });
+        log.debug("User directory applied remote invalidation: {} updated, {} deleted",
+                event.current().size(), event.deletedIds().size());
+    }
+
+    void upsertAll(Collection<UserDto> users) {
+        write(t -> users.forEach(t::upsert));
+    }
+
+    int retainIf(LongPredicate keep) {
+        return writeAndCount(t -> t.retainIf(keep));
+    }
+
+    long watermark() {
+        return read(table::watermark);
+    }
+
+    void markReady() {
+        ready = true;
+        log.info("User directory is ready with {} users", size());
+    }
+
+    /**
+     * Выполняет действие над таблицей под блокировкой на чтение (копия для снапшота).
+     */
+    <T> T withTableForRead(Function<CompactUserTable, T> action) {
+        return read(() -> action.apply(table));
+    }
+
+    /**
+     * Выполняет действие над таблицей под блокировкой на запись (для восстановления из снапшота).
+     */
+    void withTableForWrite(Consumer<CompactUserTable> action) {
+        write(action);
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return reader.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void write(Consumer<CompactUserTable> writer) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            writer.accept(table);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private int writeAndCount(ToIntFunction<CompactUserTable> writer) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            return writer.applyAsInt(table);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
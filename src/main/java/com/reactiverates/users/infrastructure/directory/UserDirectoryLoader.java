@@ -0,0 +1,161 @@
+package com.reactiverates.users.infrastructure.directory;
+
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.infrastructure.persistence.entity.UserEntity;
+import com.reactiverates.users.infrastructure.persistence.repository.UsersRepository;
+import com.reactiverates.users.infrastructure.sharding.ShardContext;
+import com.reactiverates.users.infrastructure.sharding.ShardTopology;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Прогревает {@link UserDirectory} при старте и периодически сохраняет снапшот.
+ * Если снапшот есть, догружаются только строки с updated_at не старше его watermark
+ * за вычетом окна перекрытия (users.directory.catch-up-overlap-ms), иначе выполняется полная постраничная загрузка таблицы.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.directory", name = "enabled", havingValue = "true")
+@Slf4j
+public class UserDirectoryLoader {
+
+    private final UserDirectory directory;
+    private final UsersRepository repository;
+    private final ObjectProvider<ShardTopology> shards;
+    private final UserDirectorySnapshotStore snapshotStore;
+    private final int batchSize;
+    private final long catchUpOverlapMicros;
+
+    public UserDirectoryLoader(UserDirectory directory,
+                               UsersRepository repository,
+                               ObjectProvider<ShardTopology> shards,
+                               @Value("${users.directory.snapshot-path:./data/users-directory.snap}") Path snapshotPath,
+                               @Value("${users.directory.load-batch-size:1000}") int batchSize,
+                               @Value("${users.directory.catch-up-overlap-ms:60000}") long catchUpOverlapMs) {
+        this.directory = directory;
+        this.repository = repository;
+        this.shards = shards;
+        this.snapshotStore = new UserDirectorySnapshotStore(snapshotPath);
+        this.batchSize = batchSize;
+        this.catchUpOverlapMicros = catchUpOverlapMs * 1_000;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long startTime = System.currentTimeMillis();
+        if (!restoreFromSnapshot()) {
+            loadAll();
+        }
+        directory.markReady();
+        log.info("User directory warmed up in {}ms", System.currentTimeMillis() - startTime);
+    }
+
+    @Scheduled(fixedDelayString = "${users.directory.snapshot-interval-ms:300000}",
+               initialDelayString = "${users.directory.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        if (!directory.isReady()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        // Под блокировкой только копия в память: upsert из событий не ждут записи на диск
+        UserDirectorySnapshotStore.Encoded encoded = directory.withTableForRead(snapshotStore::encode);
+        try {
+            int count = snapshotStore.write(encoded);
+            log.info("User directory snapshot written with {} users in {}ms", count, System.currentTimeMillis() - startTime);
+        } catch (IOException e) {
+            log.error("Failed to write user directory snapshot: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    private boolean restoreFromSnapshot() {
+        if (!snapshotStore.exists()) {
+            log.info("User directory snapshot not found, performing full load");
+            return false;
+        }
+        try {
+            int[] restored = new int[1];
+            IOException[] failure = new IOException[1];
+            directory.withTableForWrite(table -> {
+                try {
+                    restored[0] = snapshotStore.read(table);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            log.info("User directory restored {} users from snapshot", restored[0]);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to restore user directory snapshot, performing full load: {}", e.getMessage());
+            directory.retainIf(id -> false);
+            return false;
+        }
+
+        ShardTopology topology = shards.getIfAvailable();
+        long watermark = directory.watermark();
+        if (watermark != CompactUserTable.NULL_TIME) {
+            // updated_at ставится до коммита и по часам конкретного узла: строка долгой транзакции
+            // или с отстающими часами может оказаться старше watermark. Окно перекрытия перечитывает
+            // такие строки, устаревшие версии upsert отбрасывает по updated_at
+            LocalDateTime since = CompactUserTable.fromMicros(watermark - catchUpOverlapMicros);
+            List<UserDto> changed = new ArrayList<>();
+            ShardContext.forEachShard(topology, shard -> repository
+                    .findByUpdatedAtGreaterThanEqual(since).stream()
+                    .map(UserEntity::toDomain)
+                    .map(UserDto::fromDomain)
+                    .forEach(changed::add));
+            directory.upsertAll(changed);
+            log.info("User directory caught up {} users changed since snapshot", changed.size());
+        }
+
+        // Удаления по updated_at не видны, сверяем по индексу первичного ключа
+        long[] count = new long[1];
+        ShardContext.forEachShard(topology, shard -> count[0] += repository.count());
+        if (count[0] != directory.size()) {
+            Set<Long> ids = new HashSet<>();
+            ShardContext.forEachShard(topology, shard -> ids.addAll(repository.findAllIds()));
+            int removed = directory.retainIf(ids::contains);
+            log.info("User directory removed {} users deleted since snapshot", removed);
+        }
+        return true;
+    }
+
+    private void loadAll() {
+        ShardContext.forEachShard(shards.getIfAvailable(), shard -> {
+            Page<UserEntity> page;
+            int pageNumber = 0;
+            do {
+                page = repository.findAll(PageRequest.of(pageNumber++, batchSize, Sort.by("id")));
+                directory.upsertAll(page.getContent().stream()
+                        .map(UserEntity::toDomain)
+                        .map(UserDto::fromDomain)
+                        .toList());
+            } while (page.hasNext());
+        });
+    }
+}
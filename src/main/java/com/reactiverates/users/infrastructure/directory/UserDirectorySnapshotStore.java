@@ -0,0 +1,138 @@
+package com.reactiverates.users.infrastructure.directory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Снапшот {@link CompactUserTable} в файле, чтение - через memory-mapped буфер.
+ * Формат: заголовок (magic, version, count, watermark), далее строки фиксированной части
+ * (id, role, active, createdAt, updatedAt) и строковые поля с длиной в префиксе.
+ */
+final class UserDirectorySnapshotStore {
+
+    private static final int MAGIC = 0x55534452; // "USDR"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8;
+    private static final int FIXED_ROW_BYTES = 8 + 1 + 1 + 8 + 8;
+
+    private final Path path;
+
+    UserDirectorySnapshotStore(Path path) {
+        this.path = path;
+    }
+
+    boolean exists() {
+        return Files.isRegularFile(path);
+    }
+
+    /**
+     * Снапшот, сериализованный в память: байты файла и число пользователей в нем.
+     */
+    record Encoded(byte[] bytes, int count) {
+    }
+
+    /**
+     * Сериализует таблицу в массив байт. Вызывается под блокировкой на чтение таблицы,
+     * запись на диск ({@link #write(Encoded)}) выполняется уже без нее.
+     */
+    Encoded encode(CompactUserTable table) {
+        long bytes = HEADER_BYTES;
+        int count = 0;
+        for (int slot = 0; slot < table.slotLimit(); slot++) {
+            if (table.isLive(slot)) {
+                bytes += FIXED_ROW_BYTES;
+                for (int field = 0; field < CompactUserTable.STRING_FIELDS; field++) {
+                    bytes += 4 + Math.max(0, table.stringLength(slot, field));
+                }
+                count++;
+            }
+        }
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("User directory snapshot exceeds 2GB: " + bytes + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) bytes);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putLong(table.watermark());
+        byte[] heap = table.heap();
+        for (int slot = 0; slot < table.slotLimit(); slot++) {
+            if (!table.isLive(slot)) {
+                continue;
+            }
+            buffer.putLong(table.id(slot))
+                    .put(table.role(slot))
+                    .put(table.active(slot))
+                    .putLong(table.createdAt(slot))
+                    .putLong(table.updatedAt(slot));
+            for (int field = 0; field < CompactUserTable.STRING_FIELDS; field++) {
+                int length = table.stringLength(slot, field);
+                buffer.putInt(length);
+                if (length > 0) {
+                    buffer.put(heap, table.stringOffset(slot, field), length);
+                }
+            }
+        }
+        return new Encoded(buffer.array(), count);
+    }
+
+    /**
+     * Записывает снапшот во временный файл и атомарно подменяет им текущий.
+     */
+    int write(Encoded snapshot) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot.bytes());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return snapshot.count();
+    }
+
+    /**
+     * Читает снапшот в пустую таблицу. Возвращает число восстановленных пользователей.
+     */
+    int read(CompactUserTable table) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a user directory snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported user directory snapshot version: " + version);
+            }
+            int count = buffer.getInt();
+            buffer.getLong(); // watermark восстанавливается из updatedAt строк
+
+            byte[] scratch = new byte[256];
+            for (int row = 0; row < count; row++) {
+                int slot = table.restore(buffer.getLong(), buffer.get(), buffer.get(), buffer.getLong(), buffer.getLong());
+                for (int field = 0; field < CompactUserTable.STRING_FIELDS; field++) {
+                    int length = buffer.getInt();
+                    if (length > scratch.length) {
+                        scratch = new byte[Integer.highestOneBit(length) << 1];
+                    }
+                    if (length > 0) {
+                        buffer.get(scratch, 0, length);
+                    }
+                    table.writeRawString(slot, field, scratch, 0, length);
+                }
+                table.indexRestored(slot);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.reactiverates.users.infrastructure.drain;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Согласованная остановка экземпляра. Останавливается первой из компонентов жизненного цикла:
+ * <ol>
+ *   <li>готовность REFUSING_TRAFFIC - экземпляр уходит из Eureka (OUT_OF_SERVICE через
+ *       {@code EurekaReadinessGate}) и из readiness-проб;</li>
+ *   <li>ожидание deregistration-delay-ms, пока клиенты обновят реестр; вызовы в это время обслуживаются;</li>
+ *   <li>новые REST- и gRPC-вызовы отклоняются (503 / UNAVAILABLE), принятые дорабатывают до drain-timeout-ms;</li>
+ *   <li>итог: дождавшиеся, прерванные и отклоненные вызовы - в лог и метрику users.shutdown.calls.</li>
+ * </ol>
+ * После этого останавливаются HTTP-коннектор и gRPC-сервер, а пул соединений закрывается
+ * вместе с контекстом. Без Eureka (клиент выключен) ожидание реестра пропускается.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.shutdown", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class GracefulDrain implements SmartLifecycle {
+
+    private static final long POLL_INTERVAL_MS = 20;
+
+    private final InFlightCalls inFlightCalls;
+    private final ApplicationEventPublisher events;
+    private final ObjectProvider<ApplicationInfoManager> eureka;
+    private final MeterRegistry meterRegistry;
+    private final long deregistrationDelayMs;
+    private final long drainTimeoutMs;
+    private volatile boolean running;
+
+    public GracefulDrain(InFlightCalls inFlightCalls,
+                         ApplicationEventPublisher events,
+                         ObjectProvider<ApplicationInfoManager> eureka,
+                         MeterRegistry meterRegistry,
+                         @Value("${users.shutdown.deregistration-delay-ms:15000}") long deregistrationDelayMs,
+                         @Value("${users.shutdown.drain-timeout-ms:10000}") long drainTimeoutMs) {
+        this.inFlightCalls = inFlightCalls;
+        this.events = events;
+        this.eureka = eureka;
+        this.meterRegistry = meterRegistry;
+        this.deregistrationDelayMs = deregistrationDelayMs;
+        this.drainTimeoutMs = drainTimeoutMs;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        long startTime = System.currentTimeMillis();
+        AvailabilityChangeEvent.publish(events, this, ReadinessState.REFUSING_TRAFFIC);
+        if (eureka.getIfAvailable() != null && deregistrationDelayMs > 0) {
+            log.info("Shutdown: left discovery, serving for {}ms while clients refresh the registry", deregistrationDelayMs);
+            sleep(deregistrationDelayMs);
+        }
+
+        inFlightCalls.startDraining();
+        int inFlight = inFlightCalls.active();
+        long deadline = System.currentTimeMillis() + drainTimeoutMs;
+        while (inFlightCalls.active() > 0 && System.currentTimeMillis() < deadline) {
+            sleep(POLL_INTERVAL_MS);
+        }
+        int aborted = inFlightCalls.active();
+        int drained = Math.max(0, inFlight - aborted);
+        long rejected = inFlightCalls.rejected();
+        meterRegistry.counter("users.shutdown.calls", "outcome", "drained").increment(drained);
+        meterRegistry.counter("users.shutdown.calls", "outcome", "aborted").increment(aborted);
+        meterRegistry.counter("users.shutdown.calls", "outcome", "rejected").increment(rejected);
+        if (aborted > 0) {
+            log.warn("Shutdown drain timed out after {}ms: {} calls drained, {} aborted, {} rejected",
+                    drainTimeoutMs, drained, aborted, rejected);
+        } else {
+            log.info("Shutdown drain finished in {}ms: {} calls drained, {} rejected",
+                    System.currentTimeMillis() - startTime, drained, rejected);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Наибольшая фаза останавливается первой: раньше graceful shutdown веб-сервера и gRPC-сервера
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+}
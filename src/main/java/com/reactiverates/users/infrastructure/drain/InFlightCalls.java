@@ -0,0 +1,75 @@
+package com.reactiverates.users.infrastructure.drain;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчик выполняющихся вызовов REST и gRPC. После {@link #startDraining()} новые вызовы отклоняются,
+ * а {@link GracefulDrain} ждет завершения уже принятых.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.shutdown", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class InFlightCalls {
+
+    public enum Transport {
+        HTTP, GRPC
+    }
+
+    private final AtomicInteger http = new AtomicInteger();
+    private final AtomicInteger grpc = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile boolean draining;
+
+    public InFlightCalls(MeterRegistry meterRegistry) {
+        Gauge.builder("users.inflight.calls", http, AtomicInteger::get)
+                .description("Calls currently being served")
+                .tag("transport", "http")
+                .register(meterRegistry);
+        Gauge.builder("users.inflight.calls", grpc, AtomicInteger::get)
+                .description("Calls currently being served")
+                .tag("transport", "grpc")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Регистрирует новый вызов; false - идет остановка, вызов нужно отклонить.
+     */
+    public boolean tryEnter(Transport transport) {
+        if (draining) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        counter(transport).incrementAndGet();
+        return true;
+    }
+
+    public void exit(Transport transport) {
+        counter(transport).decrementAndGet();
+    }
+
+    public int active() {
+        return http.get() + grpc.get();
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    long rejected() {
+        return rejected.get();
+    }
+
+    void startDraining() {
+        draining = true;
+    }
+
+    private AtomicInteger counter(Transport transport) {
+        return transport == Transport.HTTP ? http : grpc;
+    }
+}
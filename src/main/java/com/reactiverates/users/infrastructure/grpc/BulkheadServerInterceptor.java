@@ -0,0 +1,243 @@
+package com.reactiverates.users.infrastructure.grpc;
+
+import io.grpc.Context;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.grpc.server.GlobalServerInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Переносит выполнение gRPC-методов в пул своего класса (lookups, writes, bulk): шторм CreateUser
+ * занимает только пул writes, и lookup не ждут за BCrypt. Колбэки одного вызова выполняются
+ * последовательно в пуле его класса; переполненный пул отклоняет вызов с RESOURCE_EXHAUSTED.
+ * Завершающие колбэки (onCancel, onComplete) место в пуле не занимают и не отклоняются.
+ * Стоит после ограничения частоты: отклоненные лимитом вызовы место в очереди не занимают.
+ */
+@Component
+@GlobalServerInterceptor
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(prefix = "users.grpc.bulkhead", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(GrpcBulkheadProperties.class)
+@Slf4j
+public class BulkheadServerInterceptor implements ServerInterceptor {
+
+    private final GrpcBulkhead lookups;
+    private final GrpcBulkhead writes;
+    private final GrpcBulkhead bulk;
+    private final Set<String> writeMethods;
+    private final Set<String> bulkMethods;
+
+    public BulkheadServerInterceptor(GrpcBulkheadProperties properties, MeterRegistry meterRegistry) {
+        this.lookups = new GrpcBulkhead("lookups", properties.lookups(), meterRegistry);
+        this.writes = new GrpcBulkhead("writes", properties.writes(), meterRegistry);
+        this.bulk = new GrpcBulkhead("bulk", properties.bulk(), meterRegistry);
+        this.writeMethods = properties.writes().methodSet();
+        this.bulkMethods = properties.bulk().methodSet();
+        log.info("gRPC bulkheads enabled: lookups={}, writes={} {}, bulk={} {}",
+                properties.lookups(), properties.writes(), writeMethods, properties.bulk(), bulkMethods);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        SerialCallExecutor executor = new SerialCallExecutor(bulkheadFor(call.getMethodDescriptor()), call);
+        // Вызов закрывает либо сервис, либо bulkhead при отказе - кто первый
+        ServerCall<ReqT, RespT> guarded = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                if (executor.claimClose()) {
+                    super.close(status, trailers);
+                } else {
+                    log.trace("gRPC call {} already closed by bulkhead, dropping status {}",
+                            call.getMethodDescriptor().getFullMethodName(), status.getCode());
+                }
+            }
+        };
+        ServerCall.Listener<ReqT> delegate = next.startCall(guarded, headers);
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(delegate) {
+            @Override
+            public void onMessage(ReqT message) {
+                executor.execute(() -> delegate().onMessage(message));
+            }
+
+            @Override
+            public void onHalfClose() {
+                executor.execute(() -> delegate().onHalfClose());
+            }
+
+            @Override
+            public void onCancel() {
+                executor.executeTerminal(() -> delegate().onCancel());
+            }
+
+            @Override
+            public void onComplete() {
+                executor.executeTerminal(() -> delegate().onComplete());
+            }
+
+            @Override
+            public void onReady() {
+                executor.execute(() -> delegate().onReady());
+            }
+        };
+    }
+
+    GrpcBulkhead bulkheadFor(MethodDescriptor<?, ?> method) {
+        String name = method.getBareMethodName();
+        if (method.getType() != MethodDescriptor.MethodType.UNARY || bulkMethods.contains(name)) {
+            return bulk;
+        }
+        return writeMethods.contains(name) ? writes : lookups;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookups.close();
+        writes.close();
+        bulk.close();
+    }
+
+    /**
+     * Последовательное выполнение колбэков одного вызова в пуле: в пул уходит одна задача,
+     * которая разбирает очередь вызова, пока та не опустеет. Колбэки выполняются в gRPC Context вызова
+     * (дедлайн, отмена), как если бы их вызвал сам сервер.
+     * Завершающий колбэк выполняется после уже начатого разбора очереди, а если очередь не разбирается -
+     * сразу в потоке gRPC; оставшиеся onMessage/onHalfClose/onReady после него не нужны и отбрасываются.
+     */
+    private static final class SerialCallExecutor {
+
+        private static final ContextSnapshotFactory SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+        private final GrpcBulkhead bulkhead;
+        private final ServerCall<?, ?> call;
+        private final Context context = Context.current();
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<Runnable> terminal = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closeClaimed = new AtomicBoolean();
+        // closed - bulkhead больше не выполняет колбэки вызова, terminated - транспорт завершил вызов
+        private volatile boolean closed;
+        private volatile boolean terminated;
+
+        private SerialCallExecutor(GrpcBulkhead bulkhead, ServerCall<?, ?> call) {
+            this.bulkhead = bulkhead;
+            this.call = call;
+        }
+
+        boolean claimClose() {
+            return closeClaimed.compareAndSet(false, true);
+        }
+
+        void execute(Runnable task) {
+            if (closed || terminated) {
+                return;
+            }
+            // Текущий span и прочие ThreadLocal-контексты потока gRPC переносятся в поток пула
+            tasks.add(SNAPSHOTS.captureAll().wrap(task));
+            schedule();
+        }
+
+        void executeTerminal(Runnable task) {
+            terminated = true;
+            tasks.clear();
+            terminal.set(SNAPSHOTS.captureAll().wrap(task));
+            drainInlineIfIdle();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                bulkhead.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Задача вызова сейчас не выполняется, закрыть вызов из этого потока безопасно
+                closed = true;
+                tasks.clear();
+                scheduled.set(false);
+                if (closeCall(Status.RESOURCE_EXHAUSTED.withDescription("Server is busy: " + bulkhead.name() + " bulkhead is full"))) {
+                    bulkhead.recordRejected();
+                    log.debug("gRPC bulkhead {} is full, rejecting {}", bulkhead.name(), call.getMethodDescriptor().getFullMethodName());
+                }
+                drainInlineIfIdle();
+            }
+        }
+
+        private void drainInlineIfIdle() {
+            if (terminal.get() != null && scheduled.compareAndSet(false, true)) {
+                drain();
+            }
+        }
+
+        private void drain() {
+            try {
+                Runnable task;
+                while (!closed && !terminated && (task = tasks.poll()) != null) {
+                    run(task);
+                }
+                Runnable last = terminal.getAndSet(null);
+                if (last != null) {
+                    run(last);
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // Колбэк мог прийти между последним poll и сбросом флага
+            if (terminal.get() != null) {
+                drainInlineIfIdle();
+            } else if (!tasks.isEmpty() && !closed && !terminated) {
+                schedule();
+            }
+        }
+
+        private void run(Runnable task) {
+            try {
+                context.run(task);
+            } catch (RuntimeException e) {
+                log.error("gRPC call {} failed in bulkhead {}: {}",
+                        call.getMethodDescriptor().getFullMethodName(), bulkhead.name(), e.getMessage(), e);
+                closed = true;
+                tasks.clear();
+                closeCall(Status.UNKNOWN.withCause(e).withDescription(e.getMessage()));
+            }
+        }
+
+        // Закрывает вызов, если его еще не закрыл сервис и не завершил транспорт
+        private boolean closeCall(Status status) {
+            if (terminated || !claimClose()) {
+                return false;
+            }
+            try {
+                call.close(status, new Metadata());
+                return true;
+            } catch (IllegalStateException alreadyClosed) {
+                log.trace("gRPC call already closed");
+                return false;
+            }
+        }
+    }
+}
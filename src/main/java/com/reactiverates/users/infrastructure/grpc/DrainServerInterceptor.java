@@ -0,0 +1,91 @@
+package com.reactiverates.users.infrastructure.grpc;
+
+import com.reactiverates.users.infrastructure.drain.InFlightCalls;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.grpc.server.GlobalServerInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Учитывает gRPC-вызовы в {@link InFlightCalls} от начала до close, отмены или onComplete; во время остановки
+ * сразу закрывает новые вызовы со статусом UNAVAILABLE, который клиенты повторяют на другом экземпляре.
+ * onComplete нужен для вызовов, закрытых в обход этого интерсептора: отказ bulkhead или исключение
+ * обработчика в его пуле закрывают исходный вызов.
+ */
+@Component
+@GlobalServerInterceptor
+@Order(Ordered.HIGHEST_PRECEDENCE + 4)
+@ConditionalOnProperty(prefix = "users.shutdown", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DrainServerInterceptor implements ServerInterceptor {
+
+    private final InFlightCalls inFlightCalls;
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (!inFlightCalls.tryEnter(InFlightCalls.Transport.GRPC)) {
+            call.close(Status.UNAVAILABLE.withDescription("Server is shutting down"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        AtomicBoolean finished = new AtomicBoolean();
+        ServerCall<ReqT, RespT> tracked = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                try {
+                    super.close(status, trailers);
+                } finally {
+                    exit(finished);
+                }
+            }
+        };
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(tracked, headers);
+        } catch (RuntimeException e) {
+            exit(finished);
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onCancel() {
+                try {
+                    super.onCancel();
+                } finally {
+                    exit(finished);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                try {
+                    super.onComplete();
+                } finally {
+                    exit(finished);
+                }
+            }
+        };
+    }
+
+    private void exit(AtomicBoolean finished) {
+        if (finished.compareAndSet(false, true)) {
+            inFlightCalls.exit(InFlightCalls.Transport.GRPC);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.reactiverates.users.infrastructure.grpc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Изолированный пул одного класса gRPC-методов: фиксированное число потоков и ограниченная очередь.
+ * Переполнение - {@link java.util.concurrent.RejectedExecutionException} из execute, вызов отклоняется сразу,
+ * а не ждет в общей очереди.
+ */
+final class GrpcBulkhead implements Executor, AutoCloseable {
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedCounter;
+
+    GrpcBulkhead(String name, GrpcBulkheadProperties.Pool pool, MeterRegistry meterRegistry) {
+        this.name = name;
+        BlockingQueue<Runnable> queue = pool.queueCapacity() > 0
+                ? new ArrayBlockingQueue<>(pool.queueCapacity())
+                : new SynchronousQueue<>();
+        this.executor = new ThreadPoolExecutor(pool.threads(), pool.threads(), 0, TimeUnit.MILLISECONDS, queue,
+                Thread.ofPlatform().name("grpc-bulkhead-" + name + "-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("users.grpc.bulkhead.queue", executor, e -> e.getQueue().size())
+                .description("Calls waiting in the bulkhead queue")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("users.grpc.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Bulkhead threads running calls")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("users.grpc.bulkhead.rejected")
+                .description("Calls rejected because the bulkhead was full")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+    }
+
+    String name() {
+        return name;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    void recordRejected() {
+        rejectedCounter.increment();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
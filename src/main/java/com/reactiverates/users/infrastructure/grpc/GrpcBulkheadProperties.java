@@ -0,0 +1,49 @@
+package com.reactiverates.users.infrastructure.grpc;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * users.grpc.bulkhead: пулы gRPC-методов. Методы из writes.methods и bulk.methods уходят в свои пулы,
+ * потоковые RPC - всегда в bulk, остальные унарные методы - в lookups.
+ */
+@ConfigurationProperties(prefix = "users.grpc.bulkhead")
+public record GrpcBulkheadProperties(
+    boolean enabled,
+    Pool lookups,
+    Pool writes,
+    Pool bulk
+) {
+
+    public GrpcBulkheadProperties {
+        lookups = lookups != null ? lookups : new Pool(16, 200, null);
+        writes = writes != null ? writes : new Pool(4, 50, List.of("CreateUser"));
+        bulk = bulk != null ? bulk : new Pool(2, 20, List.of("GetUserStats", "QueryUsers"));
+    }
+
+    /**
+     * Пул фиксированного размера с ограниченной очередью; methods - имена методов без сервиса.
+     */
+    public record Pool(
+        int threads,
+        int queueCapacity,
+        List<String> methods
+    ) {
+
+        public Pool {
+            if (threads <= 0) {
+                threads = 1;
+            }
+            if (queueCapacity < 0) {
+                queueCapacity = 0;
+            }
+            methods = methods != null ? List.copyOf(methods) : List.of();
+        }
+
+        Set<String> methodSet() {
+            return Set.copyOf(methods);
+        }
+    }
+}
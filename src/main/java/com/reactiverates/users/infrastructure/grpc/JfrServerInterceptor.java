@@ -0,0 +1,75 @@
+package com.reactiverates.users.infrastructure.grpc;
+
+import com.reactiverates.users.infrastructure.jfr.GrpcCallEvent;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.grpc.server.GlobalServerInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link GrpcCallEvent} на каждый вызов: от начала вызова до close или отмены. Bulkhead откладывает
+ * только колбэки, поэтому ожидание в его очереди входит в длительность события.
+ */
+@Component
+@GlobalServerInterceptor
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+@ConditionalOnProperty(prefix = "users.jfr", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JfrServerInterceptor implements ServerInterceptor {
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        GrpcCallEvent event = new GrpcCallEvent();
+        if (!event.isEnabled()) {
+            return next.startCall(call, headers);
+        }
+        event.begin();
+        AtomicBoolean finished = new AtomicBoolean();
+        String method = call.getMethodDescriptor().getBareMethodName();
+        ServerCall<ReqT, RespT> recorded = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                try {
+                    super.close(status, trailers);
+                } finally {
+                    commit(event, finished, method, status);
+                }
+            }
+        };
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(recorded, headers)) {
+            @Override
+            public void onCancel() {
+                try {
+                    super.onCancel();
+                } finally {
+                    commit(event, finished, method, Status.CANCELLED);
+                }
+            }
+        };
+    }
+
+    private static void commit(GrpcCallEvent event, AtomicBoolean finished, String method, Status status) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.status = status.getCode().name();
+            event.commit();
+        }
+    }
+}
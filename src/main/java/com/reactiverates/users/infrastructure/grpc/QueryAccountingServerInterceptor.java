@@ -0,0 +1,77 @@
+package com.reactiverates.users.infrastructure.grpc;
+
+import com.reactiverates.users.infrastructure.diagnostics.QueryBudget;
+import com.reactiverates.users.infrastructure.diagnostics.RequestQueries;
+
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.grpc.server.GlobalServerInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Считает запросы к базе за gRPC-вызов и передает итог {@link QueryBudget}. Стоит после bulkhead:
+ * колбэки вызова выполняются в его пуле, и запрос привязывается к потоку на время каждого колбэка.
+ * Поиск через автобатчинг выполняется на потоке батчера и вызову не атрибутируется.
+ */
+@Component
+@GlobalServerInterceptor
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnProperty(prefix = "users.diagnostics", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class QueryAccountingServerInterceptor implements ServerInterceptor {
+
+    private final QueryBudget queryBudget;
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        RequestQueries queries = new RequestQueries("grpc", call.getMethodDescriptor().getBareMethodName());
+        ServerCall.Listener<ReqT> delegate;
+        try (RequestQueries.Binding ignored = queries.bind()) {
+            delegate = next.startCall(call, headers);
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(delegate) {
+            @Override
+            public void onMessage(ReqT message) {
+                try (RequestQueries.Binding ignored = queries.bind()) {
+                    super.onMessage(message);
+                }
+            }
+
+            @Override
+            public void onHalfClose() {
+                try (RequestQueries.Binding ignored = queries.bind()) {
+                    super.onHalfClose();
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                try {
+                    super.onCancel();
+                } finally {
+                    queryBudget.finish(queries);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                try {
+                    super.onComplete();
+                } finally {
+                    queryBudget.finish(queries);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.reactiverates.users.infrastructure.grpc;
+
+import com.reactiverates.users.infrastructure.ratelimit.RateLimitProperties;
+import com.reactiverates.users.infrastructure.ratelimit.TokenBucketRateLimiter;
+
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.grpc.server.GlobalServerInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты gRPC-вызовов на клиента (адрес peer без порта) и метод.
+ * Первый в цепочке: отклоненный вызов закрывается с RESOURCE_EXHAUSTED до десериализации запроса,
+ * подсказка повтора - в трейлере grpc-retry-pushback-ms.
+ */
+@Component
+@GlobalServerInterceptor
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "users.rate-limit", name = "enabled", havingValue = "true")
+@Slf4j
+public class RateLimitServerInterceptor implements ServerInterceptor {
+
+    static final Metadata.Key<String> RETRY_PUSHBACK =
+            Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final TokenBucketRateLimiter limiter;
+    private final RateLimitProperties properties;
+
+    public RateLimitServerInterceptor(TokenBucketRateLimiter limiter, RateLimitProperties properties) {
+        this.limiter = limiter;
+        this.properties = properties;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        String method = call.getMethodDescriptor().getBareMethodName();
+        RateLimitProperties.Limit limit = properties.grpc().getOrDefault(method, properties.defaultLimit());
+        if (limit.unlimited()) {
+            return next.startCall(call, headers);
+        }
+        String peer = peer(call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR));
+        long waitNanos = limiter.tryAcquire(method + "|addr:" + peer, limit);
+        if (waitNanos == 0) {
+            return next.startCall(call, headers);
+        }
+        long retryAfterMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        limiter.recordThrottled("grpc", method);
+        log.debug("Rate limit exceeded for {} on {}", peer, method);
+        Metadata trailers = new Metadata();
+        trailers.put(RETRY_PUSHBACK, Long.toString(retryAfterMs));
+        call.close(Status.RESOURCE_EXHAUSTED.withDescription("Rate limit exceeded, retry after " + retryAfterMs + "ms"),
+                trailers);
+        return new ServerCall.Listener<>() {
+        };
+    }
+
+    private static String peer(SocketAddress address) {
+        if (address instanceof InetSocketAddress inet) {
+            return inet.getAddress() != null ? inet.getAddress().getHostAddress() : inet.getHostString();
+        }
+        return String.valueOf(address);
+    }
+}
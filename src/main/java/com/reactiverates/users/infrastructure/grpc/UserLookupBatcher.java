@@ -0,0 +1,71 @@
+package com.reactiverates.users.infrastructure.grpc;
+
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.service.UsersService;
+import com.reactiverates.users.infrastructure.concurrency.MicroBatcher;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Автобатчинг одиночных gRPC lookup: GetUserById и GetUserByUsername, пришедшие в пределах окна,
+ * разрешаются одним запросом с IN (...). username без учета регистра: ключ батча - username в нижнем регистре.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.grpc.batching", name = "enabled", havingValue = "true")
+@Slf4j
+public class UserLookupBatcher {
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService loaderExecutor;
+    private final MicroBatcher<Long, UserDto> byId;
+    private final MicroBatcher<String, UserDto> byUsername;
+
+    public UserLookupBatcher(UsersService usersService,
+                             @Value("${users.grpc.batching.max-batch-size:100}") int maxBatchSize,
+                             @Value("${users.grpc.batching.window-micros:2000}") long windowMicros,
+                             @Value("${users.grpc.batching.loader-threads:4}") int loaderThreads) {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("grpc-batch-timer").daemon().factory());
+        this.loaderExecutor = Executors.newFixedThreadPool(loaderThreads, Thread.ofPlatform()
+                .name("grpc-batch-loader-", 0).daemon().factory());
+        this.byId = new MicroBatcher<>("GetUserById",
+                ids -> usersService.getUsersByIds(ids).stream()
+                        .collect(Collectors.toMap(UserDto::id, Function.identity())),
+                maxBatchSize, windowMicros, scheduler, loaderExecutor);
+        this.byUsername = new MicroBatcher<>("GetUserByUsername",
+                usernames -> usersService.getUsersByUsernames(usernames).stream()
+                        .collect(Collectors.toMap(user -> user.username().toLowerCase(Locale.ROOT), Function.identity(),
+                                (first, second) -> first)),
+                maxBatchSize, windowMicros, scheduler, loaderExecutor);
+        log.info("gRPC lookup batching enabled: maxBatchSize={}, windowMicros={}, loaderThreads={}",
+                maxBatchSize, windowMicros, loaderThreads);
+    }
+
+    public CompletableFuture<Optional<UserDto>> byId(long id) {
+        return byId.load(id);
+    }
+
+    public CompletableFuture<Optional<UserDto>> byUsername(String username) {
+        return byUsername.load(username.toLowerCase(Locale.ROOT));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        loaderExecutor.shutdown();
+    }
+}
@@ -1,21 +1,37 @@
 package com.reactiverates.users.infrastructure.grpc;
 
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.grpc.server.service.GrpcService;
 
 import com.reactiverates.users.domain.model.User;
 import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.model.UserPageDto;
+import com.reactiverates.users.domain.model.UserQuery;
+import com.reactiverates.users.domain.model.UserStatsDto;
 import com.reactiverates.users.domain.service.UsersService;
 import com.reactiverates.users.grpc.CreateUserRequest;
 import com.reactiverates.users.grpc.GetUserByIdRequest;
 import com.reactiverates.users.grpc.GetUserByUsernameRequest;
+import com.reactiverates.users.grpc.GetUserStatsRequest;
+import com.reactiverates.users.grpc.QueryUsersRequest;
+import com.reactiverates.users.grpc.QueryUsersResponse;
+import com.reactiverates.users.grpc.RoleCount;
+import com.reactiverates.users.grpc.SignupBucket;
+import com.reactiverates.users.grpc.StatsGranularity;
 import com.reactiverates.users.grpc.UserResponse;
+import com.reactiverates.users.grpc.UserSortField;
 import com.reactiverates.users.grpc.UserRole;
+import com.reactiverates.users.grpc.UserStatsResponse;
 import com.reactiverates.users.grpc.UsersServiceGrpc.UsersServiceImplBase;
+import com.reactiverates.users.infrastructure.hotkeys.HotKeyDetector;
 
 import io.grpc.stub.StreamObserver;
 
@@ -23,12 +39,19 @@ import io.grpc.stub.StreamObserver;
 public class UsersGrpcService extends UsersServiceImplBase {
 
     private static final Logger logger = LoggerFactory.getLogger(UsersGrpcService.class);
+    private static final int DEFAULT_QUERY_LIMIT = 50;
+    private static final int MAX_QUERY_LIMIT = 500;
 
     private final DateTimeFormatter ISO = DateTimeFormatter.ISO_LOCAL_DATE;
     private final UsersService usersService;
+    private final ObjectProvider<UserLookupBatcher> lookupBatcher;
+    private final ObjectProvider<HotKeyDetector> hotKeys;
 
-    public UsersGrpcService(UsersService usersService) {
+    public UsersGrpcService(UsersService usersService, ObjectProvider<UserLookupBatcher> lookupBatcher,
+                            ObjectProvider<HotKeyDetector> hotKeys) {
         this.usersService = usersService;
+        this.lookupBatcher = lookupBatcher;
+        this.hotKeys = hotKeys;
     }
 
     @Override
@@ -67,56 +90,211 @@ public class UsersGrpcService extends UsersServiceImplBase {
     public void getUserById(GetUserByIdRequest request, StreamObserver<UserResponse> responseObserver) {
         logger.debug("gRPC getUserById request received for userId: {}", request.getUserId());
 
+        long startTime = System.currentTimeMillis();
+        UserLookupBatcher batcher = lookupBatcher.getIfAvailable();
+        if (batcher != null) {
+            // Батч схлопывает одинаковые id, поэтому частоту считаем здесь, до объединения запросов
+            hotKeys.ifAvailable(detector -> detector.recordId(request.getUserId()));
+            batcher.byId(request.getUserId()).whenComplete((user, error) -> {
+                if (error != null) {
+                    failGetUserById(request, unwrap(error), responseObserver);
+                } else {
+                    respondGetUserById(request, user, startTime, responseObserver);
+                }
+            });
+            return;
+        }
+
         try {
-            long startTime = System.currentTimeMillis();
             Optional<UserDto> user = usersService.getUserById(request.getUserId());
+            respondGetUserById(request, user, startTime, responseObserver);
+        } catch (Exception e) {
+            failGetUserById(request, e, responseObserver);
+        }
+    }
+
+    private void respondGetUserById(GetUserByIdRequest request, Optional<UserDto> user, long startTime,
+                                    StreamObserver<UserResponse> responseObserver) {
+        long endTime = System.currentTimeMillis();
+
+        if (user.isPresent()) {
+            logger.info("gRPC getUserById found user with ID: {} in {}ms", request.getUserId(), (endTime - startTime));
+            logger.debug("gRPC getUserById response: username={}, email={}", user.get().username(), user.get().email());
+            responseObserver.onNext(toUserResponse(user.get()));
+        } else {
+            logger.warn("gRPC getUserById user not found with ID: {}", request.getUserId());
+            responseObserver.onNext(toUserNotFoundResponse("User with ID " + request.getUserId() + " not found"));
+        }
+        responseObserver.onCompleted();
+    }
+
+    private void failGetUserById(GetUserByIdRequest request, Throwable e, StreamObserver<UserResponse> responseObserver) {
+        logger.error("gRPC getUserById failed for userId: {} - Error: {}", request.getUserId(), e.getMessage(), e);
+        responseObserver.onError(io.grpc.Status.INTERNAL
+                .withDescription("Failed to get user: " + e.getMessage())
+                .asRuntimeException());
+    }
+
+    @Override
+    public void getUserByUsername(GetUserByUsernameRequest request, StreamObserver<UserResponse> responseObserver) {
+        logger.debug("gRPC getUserByUsername request received for username: {}", request.getUsername());
+
+        long startTime = System.currentTimeMillis();
+        UserLookupBatcher batcher = lookupBatcher.getIfAvailable();
+        if (batcher != null) {
+            hotKeys.ifAvailable(detector -> detector.recordUsername(request.getUsername()));
+            batcher.byUsername(request.getUsername()).whenComplete((user, error) -> {
+                if (error != null) {
+                    failGetUserByUsername(request, unwrap(error), responseObserver);
+                } else {
+                    respondGetUserByUsername(request, user, startTime, responseObserver);
+                }
+            });
+            return;
+        }
+
+        try {
+            Optional<UserDto> user = usersService.getUserByUsername(request.getUsername());
+            respondGetUserByUsername(request, user, startTime, responseObserver);
+        } catch (Exception e) {
+            failGetUserByUsername(request, e, responseObserver);
+        }
+    }
+
+    private void respondGetUserByUsername(GetUserByUsernameRequest request, Optional<UserDto> user, long startTime,
+                                          StreamObserver<UserResponse> responseObserver) {
+        long endTime = System.currentTimeMillis();
+
+        if (user.isPresent()) {
+            logger.info("gRPC getUserByUsername found user with username: {} in {}ms", request.getUsername(), (endTime - startTime));
+            logger.debug("gRPC getUserByUsername response: userId={}, email={}", user.get().id(), user.get().email());
+            responseObserver.onNext(toUserResponse(user.get()));
+        } else {
+            logger.warn("gRPC getUserByUsername user not found with username: {}", request.getUsername());
+            responseObserver.onNext(toUserNotFoundResponse("User with username '" + request.getUsername() + "' not found"));
+        }
+        responseObserver.onCompleted();
+    }
+
+    private void failGetUserByUsername(GetUserByUsernameRequest request, Throwable e, StreamObserver<UserResponse> responseObserver) {
+        logger.error("gRPC getUserByUsername failed for username: {} - Error: {}", request.getUsername(), e.getMessage(), e);
+        responseObserver.onError(io.grpc.Status.INTERNAL
+                .withDescription("Failed to get user: " + e.getMessage())
+                .asRuntimeException());
+    }
+
+    @Override
+    public void getUserStats(GetUserStatsRequest request, StreamObserver<UserStatsResponse> responseObserver) {
+        logger.debug("gRPC getUserStats request received: from={}, to={}, granularity={}",
+                request.getFrom(), request.getTo(), request.getGranularity());
+
+        try {
+            LocalDate to = request.getTo().isEmpty() ? LocalDate.now() : LocalDate.parse(request.getTo());
+            LocalDate from = request.getFrom().isEmpty() ? to.minusDays(29) : LocalDate.parse(request.getFrom());
+            UserStatsDto.Granularity granularity = request.getGranularity() == StatsGranularity.WEEK
+                    ? UserStatsDto.Granularity.WEEK
+                    : UserStatsDto.Granularity.DAY;
+
+            long startTime = System.currentTimeMillis();
+            UserStatsDto stats = usersService.getUserStats(from, to, granularity);
             long endTime = System.currentTimeMillis();
+            logger.info("gRPC getUserStats completed for {}..{} in {}ms", from, to, (endTime - startTime));
 
-            if (user.isPresent()) {
-                logger.info("gRPC getUserById found user with ID: {} in {}ms", request.getUserId(), (endTime - startTime));
-                logger.debug("gRPC getUserById response: username={}, email={}", user.get().username(), user.get().email());
-                responseObserver.onNext(toUserResponse(user.get()));
-            } else {
-                logger.warn("gRPC getUserById user not found with ID: {}", request.getUserId());
-                responseObserver.onNext(toUserNotFoundResponse("User with ID " + request.getUserId() + " not found"));
-            }
+            responseObserver.onNext(toUserStatsResponse(stats));
             responseObserver.onCompleted();
-
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            logger.warn("gRPC getUserStats invalid request: {}", e.getMessage());
+            responseObserver.onError(io.grpc.Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
         } catch (Exception e) {
-            logger.error("gRPC getUserById failed for userId: {} - Error: {}", request.getUserId(), e.getMessage(), e);
+            logger.error("gRPC getUserStats failed - Error: {}", e.getMessage(), e);
             responseObserver.onError(io.grpc.Status.INTERNAL
-                    .withDescription("Failed to get user: " + e.getMessage())
+                    .withDescription("Failed to get user stats: " + e.getMessage())
                     .asRuntimeException());
         }
     }
 
     @Override
-    public void getUserByUsername(GetUserByUsernameRequest request, StreamObserver<UserResponse> responseObserver) {
-        logger.debug("gRPC getUserByUsername request received for username: {}", request.getUsername());
+    public void queryUsers(QueryUsersRequest request, StreamObserver<QueryUsersResponse> responseObserver) {
+        logger.debug("gRPC queryUsers request received: role={}, active={}, namePrefix={}, sort={}, limit={}",
+                request.hasRole() ? request.getRole() : null, request.hasActive() ? request.getActive() : null,
+                request.getNamePrefix(), request.getSort(), request.getLimit());
 
         try {
+            UserQuery query = new UserQuery(
+                    request.hasRole() ? convertToDomainRole(request.getRole()) : null,
+                    request.hasActive() ? request.getActive() : null,
+                    parseDate(request.getCreatedFrom()),
+                    parseDate(request.getCreatedTo()),
+                    parseDate(request.getUpdatedFrom()),
+                    parseDate(request.getUpdatedTo()),
+                    request.getNamePrefix(),
+                    convertToSortField(request.getSort()),
+                    request.getDescending(),
+                    request.getCursor().isEmpty() ? null : UserQuery.Cursor.decode(request.getCursor()),
+                    request.getLimit() > 0 ? Math.min(request.getLimit(), MAX_QUERY_LIMIT) : DEFAULT_QUERY_LIMIT);
+
             long startTime = System.currentTimeMillis();
-            Optional<UserDto> user = usersService.getUserByUsername(request.getUsername());
+            UserPageDto page = usersService.queryUsers(query);
             long endTime = System.currentTimeMillis();
+            logger.info("gRPC queryUsers returned {} users in {}ms", page.users().size(), (endTime - startTime));
 
-            if (user.isPresent()) {
-                logger.info("gRPC getUserByUsername found user with username: {} in {}ms", request.getUsername(), (endTime - startTime));
-                logger.debug("gRPC getUserByUsername response: userId={}, email={}", user.get().id(), user.get().email());
-                responseObserver.onNext(toUserResponse(user.get()));
-            } else {
-                logger.warn("gRPC getUserByUsername user not found with username: {}", request.getUsername());
-                responseObserver.onNext(toUserNotFoundResponse("User with username '" + request.getUsername() + "' not found"));
-            }
+            QueryUsersResponse.Builder builder = QueryUsersResponse.newBuilder()
+                    .setNextCursor(page.nextCursor() != null ? page.nextCursor() : "");
+            page.users().forEach(user -> builder.addUsers(toUserResponse(user)));
+            responseObserver.onNext(builder.build());
             responseObserver.onCompleted();
-
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            logger.warn("gRPC queryUsers invalid request: {}", e.getMessage());
+            responseObserver.onError(io.grpc.Status.INVALID_ARGUMENT
+                    .withDescription(e.getMessage())
+                    .asRuntimeException());
         } catch (Exception e) {
-            logger.error("gRPC getUserByUsername failed for username: {} - Error: {}", request.getUsername(), e.getMessage(), e);
+            logger.error("gRPC queryUsers failed - Error: {}", e.getMessage(), e);
             responseObserver.onError(io.grpc.Status.INTERNAL
-                    .withDescription("Failed to get user: " + e.getMessage())
+                    .withDescription("Failed to query users: " + e.getMessage())
                     .asRuntimeException());
         }
     }
 
+    private static LocalDate parseDate(String value) {
+        return value.isEmpty() ? null : LocalDate.parse(value);
+    }
+
+    private static UserQuery.SortField convertToSortField(UserSortField sort) {
+        return switch (sort) {
+            case CREATED_AT -> UserQuery.SortField.CREATED_AT;
+            case UPDATED_AT -> UserQuery.SortField.UPDATED_AT;
+            case USERNAME -> UserQuery.SortField.USERNAME;
+            default -> UserQuery.SortField.ID;
+        };
+    }
+
+    private UserStatsResponse toUserStatsResponse(UserStatsDto stats) {
+        UserStatsResponse.Builder builder = UserStatsResponse.newBuilder()
+                .setFrom(stats.from().format(ISO))
+                .setTo(stats.to().format(ISO))
+                .setGranularity(stats.granularity() == UserStatsDto.Granularity.WEEK
+                        ? StatsGranularity.WEEK
+                        : StatsGranularity.DAY)
+                .setTotal(stats.total())
+                .setActive(stats.active())
+                .setInactive(stats.inactive())
+                .setComputedAt(stats.computedAt().toString());
+        stats.byRole().forEach((role, count) -> builder.addByRole(RoleCount.newBuilder()
+                .setRole(convertToGrpcRole(role))
+                .setCount(count)));
+        stats.signups().forEach(bucket -> builder.addSignups(SignupBucket.newBuilder()
+                .setPeriodStart(bucket.periodStart().format(ISO))
+                .setCount(bucket.count())));
+        return builder.build();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
     private User.UserRole convertToDomainRole(com.reactiverates.users.grpc.UserRole role) {
         return switch (role) {
             case ADMIN -> User.UserRole.ADMIN;
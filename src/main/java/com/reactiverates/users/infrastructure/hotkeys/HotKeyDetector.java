@@ -0,0 +1,102 @@
+package com.reactiverates.users.infrastructure.hotkeys;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Частота точечных обращений к пользователям по id, username и email: какие ключи горячие
+ * и какую долю запросов они дают. Счет вероятностный ({@link CountMinSketch}) с фиксированной памятью,
+ * раз в decay-interval-ms все счетчики делятся пополам, поэтому top-k отражает недавнюю нагрузку.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.hotkeys", name = "enabled", havingValue = "true")
+@Slf4j
+public class HotKeyDetector {
+
+    private final HotKeyTracker<Long> ids;
+    private final HotKeyTracker<String> usernames;
+    private final HotKeyTracker<String> emails;
+    private final long decayIntervalMs;
+
+    public HotKeyDetector(@Value("${users.hotkeys.top-k:20}") int topK,
+                          @Value("${users.hotkeys.depth:4}") int depth,
+                          @Value("${users.hotkeys.width:4096}") int width,
+                          @Value("${users.hotkeys.decay-interval-ms:60000}") long decayIntervalMs,
+                          MeterRegistry meterRegistry) {
+        this.ids = new HotKeyTracker<>(topK, depth, width, Long::longValue);
+        this.usernames = new HotKeyTracker<>(topK, depth, width, String::hashCode);
+        this.emails = new HotKeyTracker<>(topK, depth, width, String::hashCode);
+        this.decayIntervalMs = decayIntervalMs;
+        registerGauges("id", ids, meterRegistry);
+        registerGauges("username", usernames, meterRegistry);
+        registerGauges("email", emails, meterRegistry);
+        log.info("Hot key detection enabled: top {}, sketch {}x{}, decay every {}ms", topK, depth, width, decayIntervalMs);
+    }
+
+    public void recordId(Long id) {
+        if (id != null) {
+            ids.record(id);
+        }
+    }
+
+    public void recordUsername(String username) {
+        if (username != null) {
+            usernames.record(username);
+        }
+    }
+
+    public void recordEmail(String email) {
+        if (email != null) {
+            emails.record(email);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${users.hotkeys.decay-interval-ms:60000}")
+    void decay() {
+        ids.decay();
+        usernames.decay();
+        emails.decay();
+    }
+
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("decayIntervalMs", decayIntervalMs);
+        report.put("ids", report(ids));
+        report.put("usernames", report(usernames));
+        report.put("emails", report(emails));
+        return report;
+    }
+
+    private static Map<String, Object> report(HotKeyTracker<?> tracker) {
+        List<HotKeyTracker.HotKey> hot = tracker.snapshot();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("total", tracker.total());
+        report.put("topShare", hot.stream().mapToDouble(HotKeyTracker.HotKey::share).sum());
+        report.put("keys", hot.stream()
+                .map(key -> Map.of("key", key.key(), "estimate", key.estimate(), "share", key.share()))
+                .toList());
+        return report;
+    }
+
+    private static void registerGauges(String kind, HotKeyTracker<?> tracker, MeterRegistry meterRegistry) {
+        Gauge.builder("users.hotkeys.top1.share", tracker, t -> t.topShare(1))
+                .description("Share of recent lookups going to the hottest key")
+                .tag("kind", kind)
+                .register(meterRegistry);
+        Gauge.builder("users.hotkeys.topk.share", tracker, t -> t.topShare(Integer.MAX_VALUE))
+                .description("Share of recent lookups going to the tracked top-k keys")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+}
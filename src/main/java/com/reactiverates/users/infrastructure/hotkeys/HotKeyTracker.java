@@ -0,0 +1,111 @@
+package com.reactiverates.users.infrastructure.hotkeys;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Частоты ключей одного вида (id, username, email): count-min sketch и top-k кандидатов.
+ * Быстрый путь - инкремент sketch без блокировок; под монитор уходят только ключи,
+ * чья оценка превысила порог входа в top-k и которых там еще нет.
+ */
+final class HotKeyTracker<K> {
+
+    private final CountMinSketch sketch;
+    private final ToLongFunction<K> hasher;
+    private final int capacity;
+    private final Set<K> top = ConcurrentHashMap.newKeySet();
+    private final AtomicLong total = new AtomicLong();
+    // Минимальная оценка в заполненном top-k; 0, пока есть свободные места
+    private volatile long admission;
+
+    HotKeyTracker(int capacity, int depth, int width, ToLongFunction<K> hasher) {
+        this.sketch = new CountMinSketch(depth, width);
+        this.hasher = hasher;
+        this.capacity = capacity;
+    }
+
+    void record(K key) {
+        total.incrementAndGet();
+        long estimate = sketch.add(hasher.applyAsLong(key));
+        if (estimate <= admission || top.contains(key)) {
+            return;
+        }
+        admit(key, estimate);
+    }
+
+    private synchronized void admit(K key, long estimate) {
+        if (top.contains(key)) {
+            return;
+        }
+        if (top.size() < capacity) {
+            top.add(key);
+            if (top.size() == capacity) {
+                admission = estimate(coldest());
+            }
+            return;
+        }
+        // Оценки кандидатов берутся из sketch заново: у горячих ключей они давно выросли
+        K coldest = coldest();
+        if (estimate > estimate(coldest)) {
+            top.remove(coldest);
+            top.add(key);
+            admission = estimate(coldest());
+        }
+    }
+
+    private K coldest() {
+        K coldest = null;
+        long min = Long.MAX_VALUE;
+        for (K candidate : top) {
+            long estimate = estimate(candidate);
+            if (estimate < min) {
+                min = estimate;
+                coldest = candidate;
+            }
+        }
+        return coldest;
+    }
+
+    private long estimate(K key) {
+        return sketch.estimate(hasher.applyAsLong(key));
+    }
+
+    synchronized void decay() {
+        sketch.halve();
+        long current;
+        do {
+            current = total.get();
+        } while (!total.compareAndSet(current, current >>> 1));
+        admission >>>= 1;
+    }
+
+    long total() {
+        return total.get();
+    }
+
+    /**
+     * Горячие ключи по убыванию оценки с долей от всех учтенных обращений.
+     */
+    List<HotKey> snapshot() {
+        long totalCount = Math.max(1, total.get());
+        List<HotKey> hot = new ArrayList<>(top.size());
+        for (K key : top) {
+            long estimate = Math.min(estimate(key), totalCount);
+            hot.add(new HotKey(String.valueOf(key), estimate, (double) estimate / totalCount));
+        }
+        hot.sort(Comparator.comparingLong(HotKey::estimate).reversed());
+        return hot;
+    }
+
+    double topShare(int limit) {
+        return snapshot().stream().limit(limit).mapToDouble(HotKey::share).sum();
+    }
+
+    record HotKey(String key, long estimate, double share) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.reactiverates.users.infrastructure.hotkeys;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * /actuator/hotkeys: самые частые id, username и email в точечных запросах с оценкой числа обращений
+ * и долей от всех обращений своего вида за последние интервалы затухания.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.hotkeys", name = "enabled", havingValue = "true")
+@Endpoint(id = "hotkeys")
+@RequiredArgsConstructor
+public class HotKeysEndpoint {
+
+    private final HotKeyDetector detector;
+
+    @ReadOperation
+    public Map<String, Object> hotKeys() {
+        return detector.report();
+    }
+}
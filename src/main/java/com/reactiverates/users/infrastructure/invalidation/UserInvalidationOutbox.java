@@ -0,0 +1,106 @@
+package com.reactiverates.users.infrastructure.invalidation;
+
+import com.reactiverates.users.domain.event.UserChangedEvent;
+import com.reactiverates.users.domain.event.UsersArchivedEvent;
+import com.reactiverates.users.infrastructure.security.TokenRevocationRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Пишет инвалидации в outbox в той же транзакции, что и изменение пользователя.
+ * Изменения одной транзакции копятся и дедуплицируются, в beforeCommit уходят одним batch insert
+ * и одним pg_notify: уведомление доставляется слушателям только после коммита.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.invalidation", name = "enabled", havingValue = "true")
+@Slf4j
+public class UserInvalidationOutbox {
+
+    static final String CHANNEL = "users_invalidation";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_invalidation_outbox (user_id, origin, revoked_subject) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public UserInvalidationOutbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Идентификатор экземпляра: свои записи relay пропускает, они уже применены локально.
+     */
+    String instanceId() {
+        return instanceId;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        enqueue(new Entry(event.userId(), TokenRevocationRegistry.revokedSubject(event)));
+    }
+
+    // Другие экземпляры не найдут пользователя в users и уберут его из реплики
+    @EventListener
+    public void onUsersArchived(UsersArchivedEvent event) {
+        event.userIds().forEach(userId -> enqueue(new Entry(userId, null)));
+    }
+
+    private void enqueue(Entry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(List.of(entry));
+            return;
+        }
+        PendingEntries pending = (PendingEntries) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEntries();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.entries.add(entry);
+    }
+
+    private void write(Collection<Entry> entries) {
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            rows.add(new Object[] {entry.userId(), instanceId, entry.revokedSubject()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        jdbcTemplate.queryForList("SELECT pg_notify(?, '')", CHANNEL);
+        log.trace("Wrote {} user invalidations to outbox", rows.size());
+    }
+
+    private record Entry(Long userId, String revokedSubject) {
+    }
+
+    private final class PendingEntries implements TransactionSynchronization {
+
+        private final Set<Entry> entries = new LinkedHashSet<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!entries.isEmpty()) {
+                write(entries);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(UserInvalidationOutbox.this);
+        }
+    }
+}
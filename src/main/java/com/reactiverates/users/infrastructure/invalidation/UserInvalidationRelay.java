@@ -0,0 +1,273 @@
+package com.reactiverates.users.infrastructure.invalidation;
+
+import com.reactiverates.users.domain.event.UsersInvalidatedEvent;
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.infrastructure.persistence.entity.UserEntity;
+import com.reactiverates.users.infrastructure.persistence.repository.UsersRepository;
+import com.reactiverates.users.infrastructure.sharding.ShardContext;
+import com.reactiverates.users.infrastructure.sharding.ShardTopology;
+import com.reactiverates.users.infrastructure.sharding.ShardingProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рассылает инвалидации из outbox всем экземплярам: каждый экземпляр читает все строки после своего курсора.
+ * Ожидание - LISTEN на выделенном соединении вне пула, poll-interval-ms - страховка на случай потери уведомления.
+ * Пакет строк дедуплицируется по user_id, актуальные строки читаются одним запросом по первичному ключу.
+ * Идентификаторы outbox выдаются до коммита, поэтому строка с меньшим id может стать видимой позже:
+ * курсор не двигается через пропуск, пока тот моложе gap-timeout-ms (пропуски от откатов транзакций).
+ * При шардировании у каждого шарда свой outbox, и relay читает их независимо.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.invalidation", name = "enabled", havingValue = "true")
+@Slf4j
+public class UserInvalidationRelay {
+
+    private static final String SELECT_SQL =
+            "SELECT id, user_id, origin, revoked_subject, created_at FROM user_invalidation_outbox WHERE id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectProvider<ShardTopology> shards;
+    private final UsersRepository repository;
+    private final ApplicationEventPublisher events;
+    private final String instanceId;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long gapTimeoutMs;
+    private final long retentionSeconds;
+    private final Counter receivedCounter;
+    private final Counter appliedCounter;
+
+    private final List<ShardFeed> feeds = new ArrayList<>();
+    private volatile boolean running;
+
+    public UserInvalidationRelay(JdbcTemplate jdbcTemplate,
+                                 DataSourceProperties dataSourceProperties,
+                                 ObjectProvider<ShardTopology> shards,
+                                 UsersRepository repository,
+                                 ApplicationEventPublisher events,
+                                 UserInvalidationOutbox outbox,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${users.invalidation.batch-size:500}") int batchSize,
+                                 @Value("${users.invalidation.poll-interval-ms:1000}") long pollIntervalMs,
+                                 @Value("${users.invalidation.gap-timeout-ms:5000}") long gapTimeoutMs,
+                                 @Value("${users.invalidation.retention-seconds:3600}") long retentionSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.shards = shards;
+        this.repository = repository;
+        this.events = events;
+        this.instanceId = outbox.instanceId();
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.gapTimeoutMs = gapTimeoutMs;
+        this.retentionSeconds = retentionSeconds;
+        this.receivedCounter = Counter.builder("users.invalidation.received")
+                .description("Outbox rows received from other instances")
+                .register(meterRegistry);
+        this.appliedCounter = Counter.builder("users.invalidation.applied")
+                .description("Distinct users invalidated after de-duplication")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Курсор ставится до прогрева кэшей: более ранние изменения они прочитают из базы сами.
+     */
+    @PostConstruct
+    void start() {
+        running = true;
+        ShardTopology topology = shards.getIfAvailable();
+        ShardContext.forEachShard(topology, shard -> {
+            ShardFeed feed = new ShardFeed(shard, topology != null ? topology.shard(shard) : null);
+            feed.cursor = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) FROM user_invalidation_outbox", Long.class);
+            feed.worker = Thread.ofPlatform().name("users-invalidation-relay-" + shard).daemon().start(feed::run);
+            feeds.add(feed);
+            log.info("User invalidation relay started for instance {} on shard {} at outbox position {}",
+                    instanceId, shard, feed.cursor);
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (ShardFeed feed : feeds) {
+            feed.worker.interrupt();
+            feed.worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${users.invalidation.purge-interval-ms:600000}")
+    void purge() {
+        ShardContext.forEachShard(shards.getIfAvailable(), shard -> {
+            int purged = jdbcTemplate.update(
+                    "DELETE FROM user_invalidation_outbox WHERE created_at < now() - make_interval(secs => ?)", retentionSeconds);
+            if (purged > 0) {
+                log.debug("Purged {} user invalidation outbox rows on shard {}", purged, shard);
+            }
+        });
+    }
+
+    /**
+     * Outbox одного шарда: свои LISTEN-соединение, поток и курсор.
+     * Изменения пользователя пишутся в outbox его шарда, поэтому и актуальные строки читаются с того же шарда.
+     */
+    private final class ShardFeed {
+
+        private final int shard;
+        private final ShardingProperties.Shard descriptor;
+
+        // Состояние курсора меняет только поток этого шарда
+        private final TreeSet<Long> seenAhead = new TreeSet<>();
+        private long cursor;
+        private long gapId;
+        private long gapSince;
+        private Thread worker;
+
+        private ShardFeed(int shard, ShardingProperties.Shard descriptor) {
+            this.shard = shard;
+            this.descriptor = descriptor;
+        }
+
+        private void run() {
+            while (running) {
+                try (Connection connection = openListenConnection()) {
+                    PGConnection listener = connection.unwrap(PGConnection.class);
+                    while (running) {
+                        // Содержимое уведомлений не важно: они только будят relay
+                        listener.getNotifications((int) pollIntervalMs);
+                        ShardContext.runOn(shard, this::drain);
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    if (!running) {
+                        return;
+                    }
+                    log.warn("User invalidation relay failed on shard {}, retrying in {}ms: {}",
+                            shard, pollIntervalMs, e.getMessage());
+                    try {
+                        Thread.sleep(pollIntervalMs);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private Connection openListenConnection() throws SQLException {
+            Connection connection = descriptor != null
+                    ? DriverManager.getConnection(descriptor.url(), descriptor.username(), descriptor.password())
+                    : DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                            dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + UserInvalidationOutbox.CHANNEL);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+            return connection;
+        }
+
+        private void drain() {
+            List<OutboxRow> rows;
+            long before;
+            do {
+                before = cursor;
+                rows = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new OutboxRow(
+                        rs.getLong("id"),
+                        rs.getLong("user_id"),
+                        rs.getString("origin"),
+                        rs.getString("revoked_subject"),
+                        rs.getTimestamp("created_at").toInstant()), cursor, batchSize);
+                apply(rows);
+            } while (rows.size() == batchSize && cursor != before);
+        }
+
+        private void apply(List<OutboxRow> rows) {
+            Set<Long> userIds = new LinkedHashSet<>();
+            Map<String, Instant> revokedSubjects = new HashMap<>();
+            int received = 0;
+            for (OutboxRow row : rows) {
+                if (!seenAhead.add(row.id()) || instanceId.equals(row.origin())) {
+                    continue;
+                }
+                received++;
+                userIds.add(row.userId());
+                if (row.revokedSubject() != null) {
+                    revokedSubjects.merge(row.revokedSubject(), row.createdAt(), (a, b) -> a.isAfter(b) ? a : b);
+                }
+            }
+            advanceCursor();
+            if (userIds.isEmpty()) {
+                return;
+            }
+            List<UserDto> current = repository.findAllById(userIds).stream()
+                    .map(UserEntity::toDomain)
+                    .map(UserDto::fromDomain)
+                    .toList();
+            Set<Long> deletedIds = new LinkedHashSet<>(userIds);
+            current.forEach(user -> deletedIds.remove(user.id()));
+            events.publishEvent(new UsersInvalidatedEvent(current, deletedIds, revokedSubjects));
+            receivedCounter.increment(received);
+            appliedCounter.increment(userIds.size());
+            log.debug("Applied {} remote user invalidations ({} outbox rows) from shard {}", userIds.size(), received, shard);
+        }
+
+        /**
+         * Сдвигает курсор по непрерывному префиксу прочитанных id.
+         */
+        private void advanceCursor() {
+            while (true) {
+                while (seenAhead.remove(cursor + 1)) {
+                    cursor++;
+                }
+                if (seenAhead.isEmpty()) {
+                    break;
+                }
+                long now = System.currentTimeMillis();
+                if (gapId != cursor + 1) {
+                    gapId = cursor + 1;
+                    gapSince = now;
+                    break;
+                }
+                if (now - gapSince < gapTimeoutMs) {
+                    break;
+                }
+                // Пропуск так и не заполнился: id потерян откатом, перешагиваем его
+                log.debug("Skipping outbox gap at id {} on shard {}", gapId, shard);
+                cursor = seenAhead.first() - 1;
+            }
+        }
+    }
+
+    private record OutboxRow(long id, long userId, String origin, String revokedSubject, Instant createdAt) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.reactiverates.users.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.reactiverates.users.GrpcCall")
+@Label("gRPC Call")
+@Description("Входящий gRPC-вызов от начала до закрытия, включая ожидание в bulkhead")
+@Category({"ReactiveRates", "gRPC"})
+@StackTrace(false)
+public class GrpcCallEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Status")
+    public String status;
+}
@@ -0,0 +1,48 @@
+package com.reactiverates.users.infrastructure.jfr;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static com.reactiverates.users.infrastructure.config.UsersServicePointcuts.USERS_SERVICE_METHODS;
+
+/**
+ * Собственные события JFR: операции UsersService и BCrypt. Проверка JWT и gRPC-вызовы пишут события
+ * в JwtService и {@code JfrServerInterceptor}. Без активной записи события не создают нагрузки,
+ * кроме проверки isEnabled.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "users.jfr", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JfrConfig {
+
+    /**
+     * После маршрутизации по шардам и метки операции: scatter-вызов дает событие на каждый шард.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor usersServiceJfrAdvisor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(USERS_SERVICE_METHODS, new UsersServiceJfrInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return advisor;
+    }
+
+    @Bean
+    public static BeanPostProcessor jfrPasswordEncoderPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof PasswordEncoder encoder && !(bean instanceof JfrPasswordEncoder)) {
+                    return new JfrPasswordEncoder(encoder);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package com.reactiverates.users.infrastructure.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/jfr: управление записью JFR с собственными событиями сервиса.
+ * POST /actuator/jfr/start запускает запись по настройкам JDK {@code users.jfr.preset} (default или profile)
+ * с включенными событиями users, /dump пишет снимок в {@code users.jfr.dump-directory}, /stop останавливает.
+ * Файл открывается в JDK Mission Control вместе с GC, блокировками и I/O того же интервала.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.jfr", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Endpoint(id = "jfr")
+@Slf4j
+public class JfrRecordingEndpoint {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final List<Class<? extends jdk.jfr.Event>> EVENTS = List.of(
+            UsersServiceEvent.class, JwtVerificationEvent.class, PasswordHashEvent.class, GrpcCallEvent.class);
+
+    private final String preset;
+    private final Duration maxAge;
+    private final Path dumpDirectory;
+    private Recording recording;
+
+    public JfrRecordingEndpoint(@Value("${users.jfr.preset:profile}") String preset,
+                                @Value("${users.jfr.max-age-minutes:30}") long maxAgeMinutes,
+                                @Value("${users.jfr.dump-directory:./data/jfr}") Path dumpDirectory) {
+        this.preset = preset;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.dumpDirectory = dumpDirectory;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("preset", preset);
+        status.put("maxAgeMinutes", maxAge.toMinutes());
+        status.put("state", recording != null ? recording.getState().name() : "NONE");
+        if (recording != null && recording.getStartTime() != null) {
+            status.put("startedAt", recording.getStartTime().toString());
+            status.put("sizeBytes", recording.getSize());
+        }
+        return status;
+    }
+
+    @WriteOperation
+    public synchronized Map<String, Object> control(@Selector String action) {
+        return switch (action) {
+            case "start" -> start();
+            case "stop" -> stop();
+            case "dump" -> dump();
+            default -> throw new IllegalArgumentException("Unknown JFR action: " + action);
+        };
+    }
+
+    private Map<String, Object> start() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return status();
+        }
+        closeRecording();
+        try {
+            recording = new Recording(Configuration.getConfiguration(preset));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Failed to load JFR configuration " + preset, e);
+        }
+        recording.setName("users-service");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        EVENTS.forEach(event -> recording.enable(event).withoutStackTrace());
+        recording.start();
+        log.info("JFR recording started with preset {}", preset);
+        return status();
+    }
+
+    private Map<String, Object> stop() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("JFR recording stopped");
+        }
+        return status();
+    }
+
+    private Map<String, Object> dump() {
+        if (recording == null || recording.getState() == RecordingState.NEW) {
+            throw new IllegalStateException("No JFR recording to dump");
+        }
+        Path file = dumpDirectory.resolve("users-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+        try {
+            Files.createDirectories(dumpDirectory);
+            recording.dump(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to dump JFR recording to " + file, e);
+        }
+        log.info("JFR recording dumped to {}", file);
+        Map<String, Object> status = status();
+        status.put("file", file.toAbsolutePath().toString());
+        return status;
+    }
+
+    @PreDestroy
+    public synchronized void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
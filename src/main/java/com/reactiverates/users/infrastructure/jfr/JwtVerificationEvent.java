@@ -0,0 +1,23 @@
+package com.reactiverates.users.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.reactiverates.users.JwtVerification")
+@Label("JWT Verification")
+@Description("Разбор JWT с проверкой подписи; кэша результатов нет, каждое событие - полная проверка")
+@Category({"ReactiveRates", "Security"})
+@StackTrace(false)
+public class JwtVerificationEvent extends Event {
+
+    @Label("Operation")
+    @Description("validate - проверка токена, claims - извлечение claims")
+    public String operation;
+
+    @Label("Valid")
+    public boolean valid;
+}
@@ -0,0 +1,23 @@
+package com.reactiverates.users.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.reactiverates.users.PasswordHash")
+@Label("Password Hash")
+@Description("BCrypt encode или matches")
+@Category({"ReactiveRates", "Security"})
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Matched")
+    @Description("Результат matches; для encode всегда false")
+    boolean matched;
+}
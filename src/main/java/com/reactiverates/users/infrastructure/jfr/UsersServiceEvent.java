@@ -0,0 +1,30 @@
+package com.reactiverates.users.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.reactiverates.users.ServiceOperation")
+@Label("Users Service Operation")
+@Description("Вызов метода UsersService")
+@Category({"ReactiveRates", "Users"})
+@StackTrace(false)
+public class UsersServiceEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Key")
+    @Description("id, username или email для точечных операций")
+    String key;
+
+    @Label("Rows")
+    @Description("Число возвращенных пользователей")
+    int rows;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,59 @@
+package com.reactiverates.users.infrastructure.jfr;
+
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.model.UserPageDto;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * {@link UsersServiceEvent} на каждый вызов UsersService. Пока запись JFR не идет,
+ * стоимость - проверка isEnabled на созданном событии.
+ */
+class UsersServiceJfrInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        UsersServiceEvent event = new UsersServiceEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        event.begin();
+        boolean failed = true;
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = invocation.getMethod().getName();
+                event.key = key(invocation.getArguments());
+                event.rows = rows(result);
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    private static String key(Object[] args) {
+        if (args.length > 0 && (args[0] instanceof Long || args[0] instanceof String)) {
+            return String.valueOf(args[0]);
+        }
+        return null;
+    }
+
+    private static int rows(Object result) {
+        return switch (result) {
+            case Collection<?> users -> users.size();
+            case Optional<?> user -> user.isPresent() ? 1 : 0;
+            case UserDto ignored -> 1;
+            case UserPageDto page -> page.users().size();
+            case null, default -> 0;
+        };
+    }
+}
@@ -0,0 +1,150 @@
+package com.reactiverates.users.infrastructure.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.UserDto;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Сериализация UserDto без BeanSerializer: прямые вызовы JsonGenerator с заранее закодированными
+ * именами полей и значениями ролей, LocalDateTime форматируется вручную в буфер потока.
+ * Вывод совпадает с рефлексивным путем Jackson (порядок компонент record, null-значения,
+ * ISO_LOCAL_DATE_TIME), что проверяет UserDtoJsonSerializerTest.
+ */
+public class UserDtoJsonSerializer extends StdSerializer<UserDto> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString USERNAME = new SerializedString("username");
+    private static final SerializableString EMAIL = new SerializedString("email");
+    private static final SerializableString FIRST_NAME = new SerializedString("firstName");
+    private static final SerializableString LAST_NAME = new SerializedString("lastName");
+    private static final SerializableString PHONE_NUMBER = new SerializedString("phoneNumber");
+    private static final SerializableString ROLE = new SerializedString("role");
+    private static final SerializableString IS_ACTIVE = new SerializedString("isActive");
+    private static final SerializableString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializableString UPDATED_AT = new SerializedString("updatedAt");
+    private static final SerializableString PASSWORD_HASH = new SerializedString("passwordHash");
+
+    private static final Map<User.UserRole, SerializableString> ROLES = new EnumMap<>(User.UserRole.class);
+
+    static {
+        for (User.UserRole role : User.UserRole.values()) {
+            ROLES.put(role, new SerializedString(role.name()));
+        }
+    }
+
+    // yyyy-MM-ddTHH:mm:ss.nnnnnnnnn
+    private static final ThreadLocal<char[]> TIMESTAMP_BUFFER = ThreadLocal.withInitial(() -> new char[29]);
+
+    public UserDtoJsonSerializer() {
+        super(UserDto.class);
+    }
+
+    @Override
+    public void serialize(UserDto user, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(user);
+        gen.writeFieldName(ID);
+        if (user.id() != null) {
+            gen.writeNumber(user.id());
+        } else {
+            gen.writeNull();
+        }
+        writeString(gen, USERNAME, user.username());
+        writeString(gen, EMAIL, user.email());
+        writeString(gen, FIRST_NAME, user.firstName());
+        writeString(gen, LAST_NAME, user.lastName());
+        writeString(gen, PHONE_NUMBER, user.phoneNumber());
+        gen.writeFieldName(ROLE);
+        if (user.role() != null) {
+            gen.writeString(ROLES.get(user.role()));
+        } else {
+            gen.writeNull();
+        }
+        gen.writeFieldName(IS_ACTIVE);
+        if (user.isActive() != null) {
+            gen.writeBoolean(user.isActive());
+        } else {
+            gen.writeNull();
+        }
+        writeTimestamp(gen, provider, CREATED_AT, user.createdAt());
+        writeTimestamp(gen, provider, UPDATED_AT, user.updatedAt());
+        writeString(gen, PASSWORD_HASH, user.passwordHash());
+        gen.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator gen, SerializableString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        if (value != null) {
+            gen.writeString(value);
+        } else {
+            gen.writeNull();
+        }
+    }
+
+    private static void writeTimestamp(JsonGenerator gen, SerializerProvider provider, SerializableString name,
+                                       LocalDateTime value) throws IOException {
+        if (value == null) {
+            gen.writeFieldName(name);
+            gen.writeNull();
+            return;
+        }
+        if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            // Нестандартная настройка ObjectMapper: формат за JavaTimeModule
+            provider.defaultSerializeField(name.getValue(), value, gen);
+            return;
+        }
+        gen.writeFieldName(name);
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+            return;
+        }
+        char[] buffer = TIMESTAMP_BUFFER.get();
+        gen.writeString(buffer, 0, format(value, year, buffer));
+    }
+
+    /**
+     * То же, что ISO_LOCAL_DATE_TIME для годов 0-9999: секунды всегда, дробная часть без хвостовых нулей.
+     */
+    static int format(LocalDateTime value, int year, char[] buffer) {
+        digits(buffer, 0, year, 4);
+        buffer[4] = '-';
+        digits(buffer, 5, value.getMonthValue(), 2);
+        buffer[7] = '-';
+        digits(buffer, 8, value.getDayOfMonth(), 2);
+        buffer[10] = 'T';
+        digits(buffer, 11, value.getHour(), 2);
+        buffer[13] = ':';
+        digits(buffer, 14, value.getMinute(), 2);
+        buffer[16] = ':';
+        digits(buffer, 17, value.getSecond(), 2);
+        int nano = value.getNano();
+        if (nano == 0) {
+            return 19;
+        }
+        buffer[19] = '.';
+        digits(buffer, 20, nano, 9);
+        int length = 29;
+        while (buffer[length - 1] == '0') {
+            length--;
+        }
+        return length;
+    }
+
+    private static void digits(char[] buffer, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
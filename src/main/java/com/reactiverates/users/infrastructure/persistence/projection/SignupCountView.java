@@ -0,0 +1,7 @@
+package com.reactiverates.users.infrastructure.persistence.projection;
+
+public interface SignupCountView {
+    // Начало периода в формате ISO (yyyy-MM-dd)
+    String getPeriod();
+    Long getCount();
+}
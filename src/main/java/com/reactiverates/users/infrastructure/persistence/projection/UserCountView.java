@@ -0,0 +1,9 @@
+package com.reactiverates.users.infrastructure.persistence.projection;
+
+import com.reactiverates.users.domain.model.User;
+
+public interface UserCountView {
+    User.UserRole getRole();
+    Boolean getActive();
+    Long getCount();
+}
@@ -0,0 +1,7 @@
+package com.reactiverates.users.infrastructure.persistence.projection;
+
+public interface UserIdentityView {
+    Long getId();
+    String getUsername();
+    String getEmail();
+}
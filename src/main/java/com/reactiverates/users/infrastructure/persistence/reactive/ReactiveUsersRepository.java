@@ -0,0 +1,58 @@
+package com.reactiverates.users.infrastructure.persistence.reactive;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.reactiverates.users.domain.model.User.UserRole;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Неблокирующий аналог {@link com.reactiverates.users.infrastructure.persistence.repository.UsersRepository}
+ * для read-path. Активен только в профиле reactive.
+ */
+@Repository
+public interface ReactiveUsersRepository extends R2dbcRepository<UserRow, Long> {
+
+    String ARCHIVE_COLUMNS =
+            "id, username, email, password, first_name, last_name, phone_number, role, is_active, created_at, updated_at";
+
+    @Query("SELECT * FROM users WHERE lower(username) = lower(:username)")
+    Mono<UserRow> findByUsername(@Param("username") String username);
+
+    @Query("SELECT * FROM users WHERE lower(email) = lower(:email)")
+    Mono<UserRow> findByEmail(@Param("email") String email);
+
+    // Архивные пользователи тоже занимают username/email
+    @Query("SELECT EXISTS (SELECT 1 FROM users WHERE lower(username) = lower(:username)) " +
+           "OR EXISTS (SELECT 1 FROM users_archive WHERE lower(username) = lower(:username))")
+    Mono<Boolean> existsByUsername(@Param("username") String username);
+
+    @Query("SELECT EXISTS (SELECT 1 FROM users WHERE lower(email) = lower(:email)) " +
+           "OR EXISTS (SELECT 1 FROM users_archive WHERE lower(email) = lower(:email))")
+    Mono<Boolean> existsByEmail(@Param("email") String email);
+
+    // Fallback на архив давно неактивных пользователей при промахе по users
+    @Query("SELECT " + ARCHIVE_COLUMNS + " FROM users_archive WHERE id = :id")
+    Mono<UserRow> findArchivedById(@Param("id") Long id);
+
+    @Query("SELECT " + ARCHIVE_COLUMNS + " FROM users_archive WHERE lower(username) = lower(:username)")
+    Mono<UserRow> findArchivedByUsername(@Param("username") String username);
+
+    @Query("SELECT " + ARCHIVE_COLUMNS + " FROM users_archive WHERE lower(email) = lower(:email)")
+    Mono<UserRow> findArchivedByEmail(@Param("email") String email);
+
+    Flux<UserRow> findByRole(UserRole role);
+
+    Flux<UserRow> findByIsActive(Boolean isActive);
+
+    @Query("SELECT * FROM users WHERE first_name LIKE '%' || :name || '%' OR last_name LIKE '%' || :name || '%'")
+    Flux<UserRow> findByNameContaining(@Param("name") String name);
+
+    @Query("SELECT * FROM users WHERE username LIKE '%' || :search || '%' OR email LIKE '%' || :search || '%' " +
+           "OR first_name LIKE '%' || :search || '%' OR last_name LIKE '%' || :search || '%'")
+    Flux<UserRow> findBySearchTerm(@Param("search") String search);
+}
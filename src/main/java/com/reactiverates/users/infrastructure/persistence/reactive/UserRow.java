@@ -0,0 +1,67 @@
+package com.reactiverates.users.infrastructure.persistence.reactive;
+
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.User.UserRole;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC-отображение таблицы users для неблокирующего read-path.
+ * Схемой владеет {@link com.reactiverates.users.infrastructure.persistence.entity.UserEntity}.
+ */
+@Table("users")
+public record UserRow(
+    @Id
+    Long id,
+
+    @Column("username")
+    String username,
+
+    @Column("email")
+    String email,
+
+    @Column("password")
+    String password,
+
+    @Column("first_name")
+    String firstName,
+
+    @Column("last_name")
+    String lastName,
+
+    @Column("phone_number")
+    String phoneNumber,
+
+    @Column("role")
+    UserRole role,
+
+    @Column("is_active")
+    Boolean isActive,
+
+    @Column("created_at")
+    LocalDateTime createdAt,
+
+    @Column("updated_at")
+    LocalDateTime updatedAt
+) {
+
+    // Маппинг в доменную модель
+    public User toDomain() {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .email(email)
+                .password(password)
+                .firstName(firstName)
+                .lastName(lastName)
+                .phoneNumber(phoneNumber)
+                .role(role)
+                .isActive(isActive)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
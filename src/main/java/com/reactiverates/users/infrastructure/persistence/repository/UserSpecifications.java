@@ -0,0 +1,125 @@
+package com.reactiverates.users.infrastructure.persistence.repository;
+
+import com.reactiverates.users.domain.model.UserQuery;
+import com.reactiverates.users.infrastructure.persistence.entity.UserEntity;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Условия и порядок {@link UserQuery} для {@link UsersRepository#findByQuery}. Любая комбинация фильтров
+ * собирается в одно выражение с ORDER BY и LIMIT, каждое условие опирается на индекс:
+ * role/is_active - ix_users_active_role_id, даты - ix_users_created_at/ix_users_updated_at,
+ * префикс имени - индексы text_pattern_ops по lower(...) из V7.
+ * username сравнивается и сортируется в правиле ucs_basic (по кодовым точкам, не зависит от локали базы):
+ * тот же порядок дает {@link UserQuery#comparator()} при слиянии страниц шардов; индекс - V10.
+ */
+final class UserSpecifications {
+
+    private static final String ID = "id";
+    private static final String USERNAME_COLLATION = "ucs_basic";
+
+    private UserSpecifications() {
+    }
+
+    static Specification<UserEntity> matching(UserQuery query) {
+        return (root, criteriaQuery, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (query.role() != null) {
+                predicates.add(cb.equal(root.get("role"), query.role()));
+            }
+            if (query.active() != null) {
+                predicates.add(cb.equal(root.get("isActive"), query.active()));
+            }
+            Path<LocalDateTime> createdAt = root.get("createdAt");
+            Path<LocalDateTime> updatedAt = root.get("updatedAt");
+            addRange(predicates, cb, createdAt, query.createdFrom(), query.createdTo());
+            addRange(predicates, cb, updatedAt, query.updatedFrom(), query.updatedTo());
+            if (query.namePrefix() != null) {
+                String pattern = escapeLike(query.namePrefix().trim().toLowerCase(Locale.ROOT)) + "%";
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("username")), pattern, '\\'),
+                        cb.like(cb.lower(root.get("firstName")), pattern, '\\'),
+                        cb.like(cb.lower(root.get("lastName")), pattern, '\\')));
+            }
+
+            Path<Long> id = root.get(ID);
+            Expression<String> username = ((HibernateCriteriaBuilder) cb).collate(root.get("username"), USERNAME_COLLATION);
+            UserQuery.Cursor after = query.after();
+            switch (query.sort()) {
+                case ID -> {
+                    if (after != null) {
+                        predicates.add(query.descending() ? cb.lessThan(id, after.id()) : cb.greaterThan(id, after.id()));
+                    }
+                }
+                case CREATED_AT -> {
+                    predicates.add(cb.isNotNull(createdAt));
+                    if (after != null) {
+                        predicates.add(keyset(cb, createdAt, after.dateTimeValue(), id, after.id(), query.descending()));
+                    }
+                }
+                case UPDATED_AT -> {
+                    predicates.add(cb.isNotNull(updatedAt));
+                    if (after != null) {
+                        predicates.add(keyset(cb, updatedAt, after.dateTimeValue(), id, after.id(), query.descending()));
+                    }
+                }
+                case USERNAME -> {
+                    if (after != null) {
+                        predicates.add(keyset(cb, username, after.value(), id, after.id(), query.descending()));
+                    }
+                }
+            }
+            // Порядок задается здесь, а не через Sort: Sort не выражает правило сортировки
+            List<Expression<?>> orderBy = switch (query.sort()) {
+                case ID -> List.of(id);
+                case CREATED_AT -> List.of(createdAt, id);
+                case UPDATED_AT -> List.of(updatedAt, id);
+                case USERNAME -> List.of(username, id);
+            };
+            criteriaQuery.orderBy(orderBy.stream()
+                    .map(expression -> query.descending() ? cb.desc(expression) : cb.asc(expression))
+                    .toArray(Order[]::new));
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    // Диапазон дат включает обе границы: [from 00:00, to + 1 день 00:00)
+    private static void addRange(List<Predicate> predicates, CriteriaBuilder cb, Path<LocalDateTime> field,
+                                 LocalDate from, LocalDate to) {
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(field, from.atStartOfDay()));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(field, to.plusDays(1).atStartOfDay()));
+        }
+    }
+
+    // field >= v AND (field > v OR id > lastId): нестрогое условие дает границу диапазона для индекса по field,
+    // разбор равных значений по id остается фильтром
+    private static <T extends Comparable<? super T>> Predicate keyset(CriteriaBuilder cb, Expression<T> field, T value,
+                                                                     Path<Long> id, long lastId, boolean descending) {
+        if (descending) {
+            return cb.and(cb.lessThanOrEqualTo(field, value),
+                    cb.or(cb.lessThan(field, value), cb.lessThan(id, lastId)));
+        }
+        return cb.and(cb.greaterThanOrEqualTo(field, value),
+                cb.or(cb.greaterThan(field, value), cb.greaterThan(id, lastId)));
+    }
+
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,166 @@
+package com.reactiverates.users.infrastructure.persistence.repository;
+
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.infrastructure.persistence.projection.SignupCountView;
+import com.reactiverates.users.infrastructure.persistence.projection.UserCountView;
+import com.reactiverates.users.infrastructure.persistence.projection.UserIdentityView;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Доступ к архиву давно неактивных пользователей (users_archive).
+ * Запросы на JDBC: перенос строк между таблицами - это DELETE ... RETURNING + INSERT одним выражением,
+ * которое JPA не выражает. Участвует в JPA-транзакции через общий DataSource.
+ */
+@Repository
+public class UsersArchiveRepository {
+
+    private static final String COLUMNS =
+            "id, username, email, password, first_name, last_name, phone_number, role, is_active, created_at, updated_at";
+
+    private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> User.builder()
+            .id(rs.getLong("id"))
+            .username(rs.getString("username"))
+            .email(rs.getString("email"))
+            .password(rs.getString("password"))
+            .firstName(rs.getString("first_name"))
+            .lastName(rs.getString("last_name"))
+            .phoneNumber(rs.getString("phone_number"))
+            .role(rs.getString("role") != null ? User.UserRole.valueOf(rs.getString("role")) : null)
+            .isActive(rs.getObject("is_active", Boolean.class))
+            .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+            .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UsersArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<User> findById(Long id) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM users_archive WHERE id = ?", USER_MAPPER, id)
+                .stream().findFirst();
+    }
+
+    public Optional<User> findByUsername(String username) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM users_archive WHERE lower(username) = lower(?)",
+                USER_MAPPER, username).stream().findFirst();
+    }
+
+    public Optional<User> findByEmail(String email) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM users_archive WHERE lower(email) = lower(?)",
+                USER_MAPPER, email).stream().findFirst();
+    }
+
+    public List<User> findAllById(Collection<Long> ids) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM users_archive WHERE id = ANY (?)",
+                USER_MAPPER, (Object) ids.toArray(Long[]::new));
+    }
+
+    public List<User> findByUsernameIn(Collection<String> usernames) {
+        String[] keys = usernames.stream().map(username -> username.toLowerCase(Locale.ROOT)).toArray(String[]::new);
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM users_archive WHERE lower(username) = ANY (?)",
+                USER_MAPPER, (Object) keys);
+    }
+
+    public boolean existsByUsername(String username) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM users_archive WHERE lower(username) = lower(?))", Boolean.class, username));
+    }
+
+    public boolean existsByEmail(String email) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM users_archive WHERE lower(email) = lower(?))", Boolean.class, email));
+    }
+
+    /**
+     * Keyset-страница идентификаторов архива с id больше afterId.
+     */
+    public List<UserIdentityView> findIdentitiesAfter(long afterId, int limit) {
+        return jdbcTemplate.query("SELECT id, username, email FROM users_archive WHERE id > ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new Identity(rs.getLong("id"), rs.getString("username"), rs.getString("email")),
+                afterId, limit);
+    }
+
+    public List<UserCountView> countByRoleAndActive() {
+        return jdbcTemplate.query("SELECT role, is_active, count(*) AS count FROM users_archive GROUP BY role, is_active",
+                (rs, rowNum) -> new Count(
+                        rs.getString("role") != null ? User.UserRole.valueOf(rs.getString("role")) : null,
+                        rs.getObject("is_active", Boolean.class),
+                        rs.getLong("count")));
+    }
+
+    public List<SignupCountView> countSignups(String unit, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(
+                "SELECT to_char(date_trunc(?, created_at), 'YYYY-MM-DD') AS period, count(*) AS count " +
+                "FROM users_archive WHERE created_at >= ? AND created_at < ? GROUP BY 1 ORDER BY 1",
+                (rs, rowNum) -> new Signups(rs.getString("period"), rs.getLong("count")),
+                unit, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Переносит в архив до limit пользователей: деактивированных и не менявшихся с inactiveBefore
+     * и любых не менявшихся с staleBefore. Строки, заблокированные конкурентной записью, пропускаются.
+     * Возвращает id перенесенных пользователей.
+     */
+    public List<Long> archiveBatch(LocalDateTime inactiveBefore, LocalDateTime staleBefore, int limit) {
+        return jdbcTemplate.queryForList(
+                "WITH candidates AS (" +
+                "    SELECT id FROM users" +
+                "    WHERE (is_active = false AND updated_at < ?) OR updated_at < ?" +
+                "    ORDER BY updated_at LIMIT ? FOR UPDATE SKIP LOCKED" +
+                "), moved AS (" +
+                "    DELETE FROM users u USING candidates c WHERE u.id = c.id RETURNING u.*" +
+                ") " +
+                "INSERT INTO users_archive (" + COLUMNS + ") SELECT " + COLUMNS + " FROM moved RETURNING id",
+                Long.class, Timestamp.valueOf(inactiveBefore), Timestamp.valueOf(staleBefore), limit);
+    }
+
+    /**
+     * Возвращает пользователя из архива в users с тем же id. true, если пользователь был в архиве.
+     */
+    public boolean restore(Long id) {
+        return jdbcTemplate.update(
+                "WITH restored AS (DELETE FROM users_archive WHERE id = ? RETURNING " + COLUMNS + ") " +
+                "INSERT INTO users (" + COLUMNS + ") SELECT " + COLUMNS + " FROM restored", id) > 0;
+    }
+
+    /**
+     * Удаляет пользователя из архива, возвращая его последнее состояние.
+     */
+    public Optional<User> delete(Long id) {
+        return jdbcTemplate.query("DELETE FROM users_archive WHERE id = ? RETURNING " + COLUMNS, USER_MAPPER, id)
+                .stream().findFirst();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private record Identity(Long id, String username, String email) implements UserIdentityView {
+        @Override public Long getId() { return id; }
+        @Override public String getUsername() { return username; }
+        @Override public String getEmail() { return email; }
+    }
+
+    private record Count(User.UserRole role, Boolean active, Long count) implements UserCountView {
+        @Override public User.UserRole getRole() { return role; }
+        @Override public Boolean getActive() { return active; }
+        @Override public Long getCount() { return count; }
+    }
+
+    private record Signups(String period, Long count) implements SignupCountView {
+        @Override public String getPeriod() { return period; }
+        @Override public Long getCount() { return count; }
+    }
+}
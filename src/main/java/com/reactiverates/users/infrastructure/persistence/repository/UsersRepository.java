@@ -1,25 +1,44 @@
 package com.reactiverates.users.infrastructure.persistence.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.reactiverates.users.domain.model.UserQuery;
 import com.reactiverates.users.infrastructure.persistence.entity.UserEntity;
+import com.reactiverates.users.infrastructure.persistence.projection.SignupCountView;
+import com.reactiverates.users.infrastructure.persistence.projection.UserCountView;
+import com.reactiverates.users.infrastructure.persistence.projection.UserIdentityView;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UsersRepository extends JpaRepository<UserEntity, Long> {
+public interface UsersRepository extends JpaRepository<UserEntity, Long>, JpaSpecificationExecutor<UserEntity> {
     
-    Optional<UserEntity> findByUsername(String username);
+    // username уникален без учета регистра (ux_users_username_lower), как в архиве и каталоге шардов
+    @Query("SELECT u FROM UserEntity u WHERE lower(u.username) = lower(:username)")
+    Optional<UserEntity> findByUsername(@Param("username") String username);
     
-    Optional<UserEntity> findByEmail(String email);
+    // lower() с обеих сторон - попадание в функциональный индекс ux_users_email_lower
+    @Query("SELECT u FROM UserEntity u WHERE lower(u.email) = lower(:email)")
+    Optional<UserEntity> findByEmail(@Param("email") String email);
     
-    boolean existsByUsername(String username);
+    // usernames - в нижнем регистре; lower(username) - индекс ux_users_username_lower
+    @Query("SELECT u FROM UserEntity u WHERE lower(u.username) IN (:usernames)")
+    List<UserEntity> findByUsernameIn(@Param("usernames") Collection<String> usernames);
     
-    boolean existsByEmail(String email);
+    @Query("SELECT CASE WHEN count(u) > 0 THEN true ELSE false END FROM UserEntity u WHERE lower(u.username) = lower(:username)")
+    boolean existsByUsername(@Param("username") String username);
+    
+    @Query("SELECT CASE WHEN count(u) > 0 THEN true ELSE false END FROM UserEntity u WHERE lower(u.email) = lower(:email)")
+    boolean existsByEmail(@Param("email") String email);
     
     List<UserEntity> findByRole(com.reactiverates.users.domain.model.User.UserRole role);
     
@@ -30,4 +49,41 @@ public interface UsersRepository extends JpaRepository<UserEntity, Long> {
     
     @Query("SELECT u FROM UserEntity u WHERE u.username LIKE %:search% OR u.email LIKE %:search% OR u.firstName LIKE %:search% OR u.lastName LIKE %:search%")
     List<UserEntity> findBySearchTerm(@Param("search") String search);
+    
+    // Подсказки до готовности in-memory индекса; каждое условие - индекс text_pattern_ops (V7, V8).
+    // Порядок username по кодовым точкам, как при слиянии подсказок шардов
+    @Query("SELECT u FROM UserEntity u WHERE lower(u.username) LIKE :pattern ESCAPE '\\' " +
+           "OR lower(u.email) LIKE :pattern ESCAPE '\\' OR lower(u.firstName) LIKE :pattern ESCAPE '\\' " +
+           "OR lower(u.lastName) LIKE :pattern ESCAPE '\\' ORDER BY collate(u.username as ucs_basic), u.id")
+    List<UserEntity> findByPattern(@Param("pattern") String pattern, Pageable pageable);
+    
+    // prefix - в нижнем регистре; '%' и '_' в нем ищутся как символы, а не шаблон
+    default List<UserEntity> findByPrefix(String prefix, Pageable pageable) {
+        return findByPattern(UserSpecifications.escapeLike(prefix) + "%", pageable);
+    }
+    
+    // Комбинация фильтров UserQuery - одно выражение с ORDER BY и LIMIT, без запроса count
+    default List<UserEntity> findByQuery(UserQuery query, int limit) {
+        return findBy(UserSpecifications.matching(query), fluent -> fluent.limit(limit).all());
+    }
+    
+    List<UserEntity> findByUpdatedAtGreaterThanEqual(LocalDateTime updatedAt);
+    
+    @Query("SELECT u.id FROM UserEntity u")
+    List<Long> findAllIds();
+    
+    @Query("SELECT u.id AS id, u.username AS username, u.email AS email FROM UserEntity u")
+    Slice<UserIdentityView> findAllIdentities(Pageable pageable);
+    
+    // index-only scan по ix_users_active_role_id
+    @Query("SELECT u.role AS role, u.isActive AS active, count(u) AS count FROM UserEntity u GROUP BY u.role, u.isActive")
+    List<UserCountView> countByRoleAndActive();
+    
+    // unit - аргумент date_trunc: 'day' или 'week'
+    @Query(value = "SELECT to_char(date_trunc(:unit, created_at), 'YYYY-MM-DD') AS period, count(*) AS count " +
+                   "FROM users WHERE created_at >= :from AND created_at < :to GROUP BY 1 ORDER BY 1",
+           nativeQuery = true)
+    List<SignupCountView> countSignups(@Param("unit") String unit,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
 }
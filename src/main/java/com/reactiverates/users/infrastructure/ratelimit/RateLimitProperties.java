@@ -0,0 +1,69 @@
+package com.reactiverates.users.infrastructure.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * users.rate-limit: лимиты запросов на клиента. HTTP-маршруты проверяются по порядку списка routes
+ * (первое совпадение), gRPC-методы - по имени метода без сервиса (GetUserByUsername).
+ * Запросы без своего лимита идут в общий бакет default-limit; capacity 0 - без ограничения.
+ */
+@ConfigurationProperties(prefix = "users.rate-limit")
+public record RateLimitProperties(
+    boolean enabled,
+    int stripes,
+    Limit defaultLimit,
+    List<Route> routes,
+    Map<String, Limit> grpc
+) {
+
+    public RateLimitProperties {
+        if (stripes <= 0) {
+            stripes = 64;
+        }
+        defaultLimit = defaultLimit != null ? defaultLimit : new Limit(0, 0);
+        routes = routes != null ? List.copyOf(routes) : List.of();
+        grpc = grpc != null ? Map.copyOf(grpc) : Map.of();
+    }
+
+    /**
+     * Бакет на capacity запросов, пополняемый со скоростью refillPerSecond.
+     */
+    public record Limit(
+        int capacity,
+        double refillPerSecond
+    ) {
+
+        public boolean unlimited() {
+            return capacity <= 0 || refillPerSecond <= 0;
+        }
+
+        /**
+         * Интервал между токенами в наносекундах.
+         */
+        long intervalNanos() {
+            return Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        }
+    }
+
+    /**
+     * Лимит HTTP-маршрута: method пустой - любой метод, path - Ant-шаблон (/api/users/**).
+     */
+    public record Route(
+        String method,
+        String path,
+        int capacity,
+        double refillPerSecond
+    ) {
+
+        public Limit limit() {
+            return new Limit(capacity, refillPerSecond);
+        }
+
+        public String name() {
+            return method != null && !method.isBlank() ? method + " " + path : path;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.reactiverates.users.infrastructure.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket на клиента и маршрут без блокировок. Состояние бакета - один long:
+ * момент, когда бакет снова станет полным (theoretical arrival time, GCRA), поэтому списание токена -
+ * один CAS без отдельного хранения числа токенов и времени пополнения.
+ * Бакеты разложены по stripes независимым картам: вытеснение и рост карты затрагивают одну полосу.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.rate-limit", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RateLimitProperties.class)
+@Slf4j
+public class TokenBucketRateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+    private final MeterRegistry meterRegistry;
+
+    @SuppressWarnings("unchecked")
+    public TokenBucketRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        // Степень двойки: номер полосы - маска от хеша ключа
+        int count = Integer.highestOneBit(properties.stripes() - 1) << 1;
+        this.stripes = new ConcurrentHashMap[Math.max(1, count)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("users.ratelimit.buckets", this, TokenBucketRateLimiter::size)
+                .description("Active rate limit buckets")
+                .register(meterRegistry);
+        log.info("Rate limiting enabled: {} stripes, {} routes, {} gRPC methods, default {}",
+                stripes.length, properties.routes().size(), properties.grpc().size(), properties.defaultLimit());
+    }
+
+    /**
+     * Списывает токен из бакета key.
+     *
+     * @return 0, если запрос разрешен, иначе через сколько наносекунд появится токен
+     */
+    public long tryAcquire(String key, RateLimitProperties.Limit limit) {
+        if (limit.unlimited()) {
+            return 0;
+        }
+        long interval = limit.intervalNanos();
+        long burst = interval * limit.capacity();
+        AtomicLong bucket = stripe(key).computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+        while (true) {
+            long now = System.nanoTime();
+            long current = bucket.get();
+            // Бакет, полный до now, начинает отсчет с now: накопленный простой не дает больше capacity
+            long next = (current - now > 0 ? current : now) + interval;
+            long overflow = next - now - burst;
+            if (overflow > 0) {
+                return overflow;
+            }
+            if (bucket.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public void recordThrottled(String transport, String route) {
+        Counter.builder("users.ratelimit.throttled")
+                .description("Requests rejected by the rate limiter")
+                .tag("transport", transport)
+                .tag("route", route)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Удаляет полные бакеты: такой бакет неотличим от нового, вытеснение не меняет лимит.
+     * Запрос, успевший взять бакет до удаления, списывает токен с удаленного бакета - допустимая погрешность.
+     */
+    @Scheduled(fixedDelayString = "${users.rate-limit.eviction-interval-ms:60000}")
+    void evictFull() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            int before = stripe.size();
+            stripe.values().removeIf(bucket -> bucket.get() - now <= 0);
+            evicted += before - stripe.size();
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} full rate limit buckets", evicted);
+        }
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> stripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private double size() {
+        long size = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+}
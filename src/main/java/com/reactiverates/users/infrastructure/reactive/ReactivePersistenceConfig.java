@@ -0,0 +1,58 @@
+package com.reactiverates.users.infrastructure.reactive;
+
+import com.reactiverates.users.infrastructure.persistence.reactive.ReactiveUsersRepository;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+
+import java.time.Duration;
+
+/**
+ * R2DBC-подключение для неблокирующего read-path. Автоконфигурация R2DBC отключена в
+ * {@link com.reactiverates.users.UsersApplication}, чтобы в servlet-режиме не поднимался второй пул
+ * и второй менеджер транзакций рядом с JPA.
+ */
+@Configuration
+@Profile("reactive")
+@EnableR2dbcRepositories(basePackageClasses = ReactiveUsersRepository.class)
+public class ReactivePersistenceConfig extends AbstractR2dbcConfiguration {
+
+    @Value("${users.reactive.r2dbc.url}")
+    private String url;
+
+    @Value("${users.reactive.r2dbc.username}")
+    private String username;
+
+    @Value("${users.reactive.r2dbc.password}")
+    private String password;
+
+    @Value("${users.reactive.r2dbc.pool.max-size:20}")
+    private int maxPoolSize;
+
+    @Value("${users.reactive.r2dbc.pool.max-idle-time:PT30M}")
+    private Duration maxIdleTime;
+
+    @Override
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionFactory() {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url)
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .maxSize(maxPoolSize)
+                .maxIdleTime(maxIdleTime)
+                .build());
+    }
+}
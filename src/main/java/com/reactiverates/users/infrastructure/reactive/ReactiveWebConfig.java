@@ -0,0 +1,51 @@
+package com.reactiverates.users.infrastructure.reactive;
+
+import com.reactiverates.users.api.handler.ReactiveUsersHandler;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.DELETE;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.PATCH;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.PUT;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Маршруты /api/users для профиля reactive (spring.main.web-application-type: reactive).
+ * Явно задаем Netty, иначе при наличии Tomcat в classpath будет выбран он.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> usersRoutes(ReactiveUsersHandler handler) {
+        return route(GET("/api/users"), handler::getAllUsers)
+                .andRoute(GET("/api/users/active"), handler::getActiveUsers)
+                .andRoute(GET("/api/users/search"), handler::searchUsers)
+                .andRoute(GET("/api/users/query"), handler::queryUsers)
+                .andRoute(GET("/api/users/suggest"), handler::suggestUsers)
+                .andRoute(GET("/api/users/availability"), handler::checkAvailability)
+                .andRoute(GET("/api/users/stats"), handler::getUserStats)
+                .andRoute(GET("/api/users/username/{username}"), handler::getUserByUsername)
+                .andRoute(GET("/api/users/email/{email}"), handler::getUserByEmail)
+                .andRoute(GET("/api/users/role/{role}"), handler::getUsersByRole)
+                .andRoute(GET("/api/users/{id:\\d+}"), handler::getUserById)
+                .andRoute(POST("/api/users"), handler::createUser)
+                .andRoute(PUT("/api/users/{id:\\d+}"), handler::updateUser)
+                .andRoute(DELETE("/api/users/{id:\\d+}"), handler::deleteUser)
+                .andRoute(PATCH("/api/users/{id:\\d+}/deactivate"), handler::deactivateUser)
+                .andRoute(PATCH("/api/users/{id:\\d+}/activate"), handler::activateUser);
+    }
+}
@@ -1,5 +1,6 @@
 package com.reactiverates.users.infrastructure.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,6 +16,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Component
@@ -23,6 +25,7 @@ import java.util.stream.Collectors;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final TokenRevocationRegistry revocations;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -37,10 +40,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = extractTokenFromRequest(request);
             
             if (StringUtils.hasText(token)) {
-                if (jwtService.validateToken(token)) {
-                    String username = jwtService.extractUsername(token);
-                    List<String> roles = jwtService.extractRoles(token);
-                    String tokenType = jwtService.extractTokenType(token);
+                // Подпись проверяется один раз, отзыв, имя и роли читаются из тех же claims
+                Optional<Claims> verified = jwtService.verifyAccessToken(token);
+                if (verified.isPresent() && !isRevoked(verified.get())) {
+                    Claims claims = verified.get();
+                    String username = claims.getSubject();
+                    List<String> roles = jwtService.extractRoles(claims);
+                    String tokenType = claims.get("type", String.class);
                     
                     log.info("JWT token validation successful - Type: {}, User: {}, Roles: {}", 
                              tokenType, username, roles);
@@ -73,6 +79,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private boolean isRevoked(Claims claims) {
+        boolean revoked = revocations.isRevoked(claims.getSubject(), claims.getIssuedAt(), claims.getId(), claims.getExpiration());
+        if (revoked) {
+            log.warn("Revoked JWT token presented for user: {}", claims.getSubject());
+        }
+        return revoked;
+    }
+
     private String extractTokenFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -1,20 +1,30 @@
 package com.reactiverates.users.infrastructure.security;
 
+import com.reactiverates.users.infrastructure.jfr.JwtVerificationEvent;
+import com.reactiverates.users.infrastructure.tracing.ChildSpans;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class JwtService {
 
+    private final ObjectProvider<Tracer> tracer;
+
     @Value("${jwt.secret:defaultSecretKeyForDevelopmentOnly}")
     private String jwtSecret;
 
@@ -28,8 +38,15 @@ public class JwtService {
 
     public List<String> extractRoles(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            
+            return extractRoles(extractAllClaims(token));
+        } catch (Exception e) {
+            log.error("Error extracting roles from JWT token: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    public List<String> extractRoles(Claims claims) {
+        try {
             // Сначала пробуем извлечь roles
             List<String> roles = claims.get("roles", List.class);
             if (roles != null && !roles.isEmpty()) {
@@ -53,7 +70,7 @@ public class JwtService {
             
             return List.of();
         } catch (Exception e) {
-            log.error("Error extracting roles from JWT token: {}", e.getMessage());
+            log.error("Error extracting roles from JWT claims: {}", e.getMessage());
             return List.of();
         }
     }
@@ -113,39 +130,67 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parse(token, "claims");
     }
 
-    public boolean validateToken(String token) {
+    // Каждый разбор - полная проверка подписи, событие JFR показывает их число и стоимость на запрос
+    private Claims parse(String token, String operation) {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.begin();
+        Span span = ChildSpans.start(tracer.getIfAvailable(), "jwt " + operation);
+        boolean valid = false;
         try {
             Claims claims = Jwts.parser()
                     .verifyWith(getSigningKey())
                     .build()
                     .parseSignedClaims(token)
                     .getPayload();
+            valid = true;
+            return claims;
+        } finally {
+            if (span != null) {
+                span.tag("jwt.valid", String.valueOf(valid));
+            }
+            ChildSpans.end(span, null);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.valid = valid;
+                event.commit();
+            }
+        }
+    }
+
+    public boolean validateToken(String token) {
+        return verifyAccessToken(token).isPresent();
+    }
+
+    /**
+     * Одна проверка подписи на запрос: claims действительного access-токена для проверки отзыва,
+     * имени и ролей без повторного разбора; пусто - токен недействителен.
+     */
+    public Optional<Claims> verifyAccessToken(String token) {
+        try {
+            Claims claims = parse(token, "validate");
             
             // Проверяем тип токена
             String tokenType = claims.get("type", String.class);
             if (tokenType == null || !"access".equals(tokenType)) {
                 log.error("Invalid token type: {}", tokenType);
-                return false;
+                return Optional.empty();
             }
             
             // Проверяем время создания
             Date issuedAt = claims.getIssuedAt();
             if (issuedAt == null || issuedAt.after(new Date())) {
                 log.error("Invalid token issued at time: {}", issuedAt);
-                return false;
+                return Optional.empty();
             }
             
-            return true;
+            return Optional.of(claims);
         } catch (JwtException | IllegalArgumentException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         }
     }
 
@@ -0,0 +1,107 @@
+package com.reactiverates.users.infrastructure.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactiverates.users.infrastructure.ratelimit.RateLimitProperties;
+import com.reactiverates.users.infrastructure.ratelimit.TokenBucketRateLimiter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты запросов на клиента. Стоит сразу после {@link JwtAuthenticationFilter}:
+ * клиент - subject токена, для запросов без токена - адрес клиента. Отклоненный запрос
+ * получает 429 с Retry-After и не доходит ни до контроллера, ни до базы.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.rate-limit", name = "enabled", havingValue = "true")
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String DEFAULT_ROUTE = "default";
+
+    private final TokenBucketRateLimiter limiter;
+    private final RateLimitProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public RateLimitFilter(TokenBucketRateLimiter limiter, RateLimitProperties properties) {
+        this.limiter = limiter;
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RateLimitProperties.Route route = findRoute(request);
+        RateLimitProperties.Limit limit = route != null ? route.limit() : properties.defaultLimit();
+        if (limit.unlimited()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String routeName = route != null ? route.name() : DEFAULT_ROUTE;
+        String client = clientKey(request);
+        long waitNanos = limiter.tryAcquire(routeName + '|' + client, limit);
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        limiter.recordThrottled("http", routeName);
+        log.debug("Rate limit exceeded for {} on {} {}", client, request.getMethod(), request.getRequestURI());
+        reject(request, response, waitNanos);
+    }
+
+    private RateLimitProperties.Route findRoute(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (RateLimitProperties.Route route : properties.routes()) {
+            if ((route.method() == null || route.method().isBlank() || route.method().equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(route.path(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "sub:" + authentication.getName();
+        }
+        return "addr:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+
+        final Map<String, Object> body = new HashMap<>();
+        body.put("status", 429);
+        body.put("error", "Too Many Requests");
+        body.put("message", "Rate limit exceeded. Retry after " + retryAfterSeconds + "s.");
+        body.put("path", request.getServletPath());
+
+        mapper.writeValue(response.getOutputStream(), body);
+    }
+}
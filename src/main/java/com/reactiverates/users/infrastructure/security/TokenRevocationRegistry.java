@@ -0,0 +1,175 @@
+package com.reactiverates.users.infrastructure.security;
+
+import com.reactiverates.users.domain.event.UserChangedEvent;
+import com.reactiverates.users.domain.event.UsersInvalidatedEvent;
+import com.reactiverates.users.domain.model.UserDto;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отзыв access-токенов без обращения к базе на каждый запрос.
+ * - subject -> момент (epoch seconds): токены пользователя, выпущенные не позже него, недействительны.
+ *   Заполняется при деактивации, смене роли или username и удалении пользователя.
+ * - denylist jti, разложенный по корзинам времени истечения токена: корзина удаляется целиком,
+ *   когда все токены в ней истекли.
+ * Обе проверки - O(1) поиск в хеш-таблице. Записи живут не дольше max-token-ttl-seconds.
+ * Явные отзывы (logout, revoke-tokens) пишутся в {@link TokenRevocationStore}: при старте загружаются все
+ * действующие, затем каждые sync-interval-ms дочитываются новые, в том числе записанные другими экземплярами.
+ * Отзывы по изменению пользователя применяются локально, другим экземплярам их доставляет outbox инвалидаций.
+ */
+@Component
+@Slf4j
+public class TokenRevocationRegistry {
+
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> deniedTokens = new ConcurrentHashMap<>();
+    private final TokenRevocationStore store;
+    private final long maxTokenTtlSeconds;
+    private final long bucketSeconds;
+    private final Duration syncOverlap;
+
+    // created_at последней прочитанной записи; меняет только sync()
+    private volatile Instant syncedUntil = Instant.EPOCH;
+
+    public TokenRevocationRegistry(TokenRevocationStore store,
+                                   @Value("${users.security.revocation.max-token-ttl-seconds:86400}") long maxTokenTtlSeconds,
+                                   @Value("${users.security.revocation.bucket-seconds:60}") long bucketSeconds,
+                                   @Value("${users.security.revocation.sync-overlap-ms:5000}") long syncOverlapMs) {
+        this.store = store;
+        this.maxTokenTtlSeconds = maxTokenTtlSeconds;
+        this.bucketSeconds = bucketSeconds;
+        this.syncOverlap = Duration.ofMillis(syncOverlapMs);
+    }
+
+    /**
+     * Отзывает все токены subject, выпущенные в ту же секунду или раньше, на всех экземплярах.
+     */
+    public void revokeIssuedBefore(String subject, Instant instant) {
+        store.saveIssuedBefore(subject, instant, instant.plusSeconds(maxTokenTtlSeconds));
+        applyIssuedBefore(subject, instant);
+        log.info("Revoked tokens issued before {} for subject: {}", instant, subject);
+    }
+
+    /**
+     * Отзывает один токен по jti до момента его истечения на всех экземплярах.
+     */
+    public void revokeToken(String jti, Date expiresAt) {
+        if (expiresAt.toInstant().getEpochSecond() < Instant.now().getEpochSecond()) {
+            return;
+        }
+        store.saveToken(jti, expiresAt.toInstant());
+        applyToken(jti, expiresAt.toInstant());
+        log.info("Revoked token jti: {}", jti);
+    }
+
+    public boolean isRevoked(String subject, Date issuedAt, String jti, Date expiresAt) {
+        Long before = revokedBefore.get(subject);
+        if (before != null && (issuedAt == null || issuedAt.toInstant().getEpochSecond() <= before)) {
+            return true;
+        }
+        if (jti == null || expiresAt == null) {
+            return false;
+        }
+        Set<String> bucket = deniedTokens.get(bucket(expiresAt.toInstant().getEpochSecond()));
+        return bucket != null && bucket.contains(jti);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        String subject = revokedSubject(event);
+        if (subject != null) {
+            applyIssuedBefore(subject, Instant.now());
+            log.info("Revoked tokens of changed user: {}", subject);
+        }
+    }
+
+    /**
+     * Применяет отзывы, пришедшие с других экземпляров сервиса.
+     */
+    @EventListener
+    public void onUsersInvalidated(UsersInvalidatedEvent event) {
+        event.revokedSubjects().forEach(this::applyIssuedBefore);
+    }
+
+    // Действующие отзывы загружаются до приема запросов
+    @PostConstruct
+    void load() {
+        sync();
+    }
+
+    /**
+     * Дочитывает записанные отзывы. Окно sync-overlap-ms перекрывает прошлое чтение: created_at - время
+     * начала транзакции, и запись с меньшим created_at может стать видимой позже; повторное применение безвредно.
+     */
+    @Scheduled(fixedDelayString = "${users.security.revocation.sync-interval-ms:1000}")
+    void sync() {
+        Instant since = syncedUntil.equals(Instant.EPOCH) ? Instant.EPOCH : syncedUntil.minus(syncOverlap);
+        for (TokenRevocationStore.Revocation revocation : store.findCreatedSince(since)) {
+            if (revocation.jti() != null) {
+                applyToken(revocation.jti(), revocation.expiresAt());
+            } else {
+                applyIssuedBefore(revocation.subject(), revocation.revokedBefore());
+            }
+            if (revocation.createdAt().isAfter(syncedUntil)) {
+                syncedUntil = revocation.createdAt();
+            }
+        }
+    }
+
+    /**
+     * Subject, чьи токены нужно отозвать после изменения пользователя, или null:
+     * удаление, деактивация, смена роли или username.
+     */
+    public static String revokedSubject(UserChangedEvent event) {
+        UserDto previous = event.previous();
+        if (previous == null) {
+            return null;
+        }
+        UserDto current = event.current();
+        boolean revoke = current == null
+                || (Boolean.TRUE.equals(previous.isActive()) && !Boolean.TRUE.equals(current.isActive()))
+                || previous.role() != current.role()
+                || !Objects.equals(previous.username(), current.username());
+        return revoke ? previous.username() : null;
+    }
+
+    @Scheduled(fixedDelayString = "${users.security.revocation.purge-interval-ms:60000}")
+    void purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        // Токены, выпущенные до T, истекают не позже T + max-token-ttl
+        revokedBefore.values().removeIf(before -> before + maxTokenTtlSeconds < now);
+        deniedTokens.keySet().removeIf(bucket -> (bucket + 1) * bucketSeconds <= now);
+        int purged = store.purgeExpired();
+        if (purged > 0) {
+            log.debug("Purged {} expired token revocations", purged);
+        }
+    }
+
+    private void applyIssuedBefore(String subject, Instant instant) {
+        revokedBefore.merge(subject, instant.getEpochSecond(), Math::max);
+    }
+
+    private void applyToken(String jti, Instant expiresAt) {
+        deniedTokens.computeIfAbsent(bucket(expiresAt.getEpochSecond()), b -> ConcurrentHashMap.newKeySet()).add(jti);
+    }
+
+    private long bucket(long epochSeconds) {
+        return epochSeconds / bucketSeconds;
+    }
+}
@@ -0,0 +1,71 @@
+package com.reactiverates.users.infrastructure.security;
+
+import com.reactiverates.users.infrastructure.sharding.ShardContext;
+import com.reactiverates.users.infrastructure.sharding.ShardTopology;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Явные отзывы токенов (logout, revoke-tokens) в таблице token_revocations.
+ * Запись переживает рестарт и читается всеми экземплярами ({@link TokenRevocationRegistry#sync()}).
+ * При шардировании таблица живет на шарде-каталоге.
+ */
+@Component
+public class TokenRevocationStore {
+
+    private static final RowMapper<Revocation> REVOCATION_MAPPER = (rs, rowNum) -> new Revocation(
+            rs.getString("subject"),
+            rs.getString("jti"),
+            toInstant(rs.getTimestamp("revoked_before")),
+            rs.getTimestamp("expires_at").toInstant(),
+            rs.getTimestamp("created_at").toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TokenRevocationStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void saveIssuedBefore(String subject, Instant revokedBefore, Instant expiresAt) {
+        ShardContext.runOn(ShardTopology.CATALOG_SHARD, () -> jdbcTemplate.update(
+                "INSERT INTO token_revocations (subject, revoked_before, expires_at) VALUES (?, ?, ?)",
+                subject, Timestamp.from(revokedBefore), Timestamp.from(expiresAt)));
+    }
+
+    public void saveToken(String jti, Instant expiresAt) {
+        ShardContext.runOn(ShardTopology.CATALOG_SHARD, () -> jdbcTemplate.update(
+                "INSERT INTO token_revocations (jti, expires_at) VALUES (?, ?)",
+                jti, Timestamp.from(expiresAt)));
+    }
+
+    /**
+     * Действующие отзывы, записанные не раньше since, в порядке записи.
+     */
+    public List<Revocation> findCreatedSince(Instant since) {
+        return ShardContext.callOn(ShardTopology.CATALOG_SHARD, () -> jdbcTemplate.query(
+                "SELECT subject, jti, revoked_before, expires_at, created_at FROM token_revocations " +
+                "WHERE created_at >= ? AND expires_at > now() ORDER BY created_at",
+                REVOCATION_MAPPER, Timestamp.from(since)));
+    }
+
+    public int purgeExpired() {
+        return ShardContext.callOn(ShardTopology.CATALOG_SHARD, () -> jdbcTemplate.update(
+                "DELETE FROM token_revocations WHERE expires_at <= now()"));
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    /**
+     * Отзыв одного токена (jti) или всех токенов subject, выпущенных не позже revokedBefore.
+     */
+    public record Revocation(String subject, String jti, Instant revokedBefore, Instant expiresAt, Instant createdAt) {
+    }
+}
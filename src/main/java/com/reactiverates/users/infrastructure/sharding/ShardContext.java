@@ -0,0 +1,60 @@
+package com.reactiverates.users.infrastructure.sharding;
+
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Шард, на который маршрутизируются соединения текущего потока ({@link ShardRoutingDataSource}).
+ * Без явного шарда используется {@link ShardTopology#CATALOG_SHARD}.
+ * Шард должен быть выбран до открытия транзакции: соединение берется из пула в ее начале.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Текущий шард или null, если маршрутизация не задана.
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T callOn(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public static void runOn(int shard, Runnable action) {
+        callOn(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Выполняет action последовательно на каждом шарде; без шардирования (topology == null) -
+     * один раз на единственной базе с индексом 0.
+     */
+    public static void forEachShard(ShardTopology topology, IntConsumer action) {
+        if (topology == null) {
+            action.accept(0);
+            return;
+        }
+        for (int shard = 0; shard < topology.size(); shard++) {
+            int current = shard;
+            runOn(current, () -> action.accept(current));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.reactiverates.users.infrastructure.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Настраивает identity-колонку users шарда так, чтобы выдаваемые id давали остаток shard по модулю shardCount:
+ * INCREMENT BY shardCount, START/RESTART с ближайшего подходящего значения выше существующих id.
+ * Идемпотентно: уже настроенная последовательность не трогается.
+ */
+@Slf4j
+final class ShardIdentity {
+
+    private ShardIdentity() {
+    }
+
+    static void configure(DataSource dataSource, int shard, int shardCount) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String sequence = jdbcTemplate.queryForObject("SELECT pg_get_serial_sequence('users', 'id')", String.class);
+        Map<String, Object> current = jdbcTemplate.queryForMap(
+                "SELECT increment_by, start_value FROM pg_sequences WHERE format('%I.%I', schemaname, sequencename) = ?",
+                sequence);
+        long increment = ((Number) current.get("increment_by")).longValue();
+        long start = ((Number) current.get("start_value")).longValue();
+        if (increment == shardCount && Math.floorMod(start, (long) shardCount) == shard) {
+            return;
+        }
+        // Архив тоже: восстановленный из архива пользователь возвращается с прежним id
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT greatest((SELECT coalesce(max(id), 0) FROM users), (SELECT coalesce(max(id), 0) FROM users_archive))",
+                Long.class);
+        long next = maxId + 1;
+        next += Math.floorMod(shard - next, (long) shardCount);
+        // Значения - числа, вычисленные здесь же: DDL не принимает параметры
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN id SET INCREMENT BY " + shardCount
+                + " SET START WITH " + next + " RESTART WITH " + next);
+        log.info("Shard {} identity reconfigured: increment {}, next id {}", shard, shardCount, next);
+    }
+}
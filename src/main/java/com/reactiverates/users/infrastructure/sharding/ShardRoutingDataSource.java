@@ -0,0 +1,28 @@
+package com.reactiverates.users.infrastructure.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DataSource для JPA и JdbcTemplate: соединение берется из пула шарда, выбранного в {@link ShardContext}.
+ */
+class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    ShardRoutingDataSource(ShardTopology topology) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < topology.size(); shard++) {
+            targets.put(shard, topology.dataSource(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(topology.dataSource(ShardTopology.CATALOG_SHARD));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = ShardContext.current();
+        return shard != null ? shard : ShardTopology.CATALOG_SHARD;
+    }
+}
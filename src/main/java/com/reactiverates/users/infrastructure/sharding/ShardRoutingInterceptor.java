@@ -0,0 +1,210 @@
+package com.reactiverates.users.infrastructure.sharding;
+
+import com.reactiverates.users.domain.model.CreateUserRequest;
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.model.UserPageDto;
+import com.reactiverates.users.domain.model.UserQuery;
+import com.reactiverates.users.domain.model.UserStatsDto;
+import com.reactiverates.users.domain.model.UserSuggestionDto;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Маршрутизация вызовов UsersService по шардам. Работает снаружи TransactionInterceptor:
+ * транзакция открывается уже на соединении выбранного шарда.
+ * - операции над одним пользователем по id - на шард id mod N;
+ * - lookup по username/email - на шард id из {@link UserIdentityCatalog};
+ * - создание - на шард по хешу username;
+ * - списки, поиск, пакетные lookup и статистика - scatter на все шарды и слияние результатов;
+ * - страница queryUsers - первые limit строк с каждого шарда, слияние в порядке сортировки запроса;
+ * - подсказки suggestUsers - scatter (до готовности in-memory индекса база каждого шарда знает только
+ *   своих пользователей), слияние без повторов в порядке username и первые limit.
+ * Прочие методы (проверка доступности через каталог) выполняются на шарде-каталоге.
+ */
+class ShardRoutingInterceptor implements MethodInterceptor {
+
+    private static final Comparator<UserDto> BY_ID = Comparator.comparing(UserDto::id);
+    private static final Comparator<UserSuggestionDto> BY_USERNAME = Comparator
+            .comparing(UserSuggestionDto::username, UserQuery::compareCodePoints)
+            .thenComparing(UserSuggestionDto::id);
+
+    private final ObjectProvider<ShardTopology> topologyProvider;
+    private final ObjectProvider<UserIdentityCatalog> catalogProvider;
+
+    ShardRoutingInterceptor(ObjectProvider<ShardTopology> topologyProvider,
+                            ObjectProvider<UserIdentityCatalog> catalogProvider) {
+        this.topologyProvider = topologyProvider;
+        this.catalogProvider = catalogProvider;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (ShardContext.current() != null) {
+            // Вложенный вызов уже маршрутизирован внешним
+            return invocation.proceed();
+        }
+        ShardTopology topology = topologyProvider.getObject();
+        Object[] args = invocation.getArguments();
+        return switch (invocation.getMethod().getName()) {
+            case "getUserById", "updateUser", "deleteUser", "deactivateUser", "activateUser" ->
+                    proceedOn(invocation, topology.shardOf((Long) args[0]));
+            case "getUserByUsername" ->
+                    proceedOn(invocation, shardOfIdentity(topology, catalog().findIdByUsername((String) args[0])));
+            case "getUserByEmail" ->
+                    proceedOn(invocation, shardOfIdentity(topology, catalog().findIdByEmail((String) args[0])));
+            case "createUser" ->
+                    proceedOn(invocation, topology.shardForNewUser(((CreateUserRequest) args[0]).username()));
+            case "getUsersByIds" -> getUsersByIds(invocation, topology, (Collection<Long>) args[0]);
+            case "getAllUsers", "getUsersByUsernames", "getUsersByRole", "getActiveUsers", "searchUsers" ->
+                    mergeLists(topology.scatter(shard -> (List<UserDto>) proceedClone(invocation, args)));
+            case "queryUsers" -> mergePages((UserQuery) args[0],
+                    topology.scatter(shard -> (UserPageDto) proceedClone(invocation, args)));
+            case "suggestUsers" -> mergeSuggestions((Integer) args[1],
+                    topology.scatter(shard -> castSuggestions(proceedClone(invocation, args))));
+            case "getUserStats" ->
+                    mergeStats(topology.scatter(shard -> (UserStatsDto) proceedClone(invocation, args)));
+            default -> proceedOn(invocation, ShardTopology.CATALOG_SHARD);
+        };
+    }
+
+    private Object getUsersByIds(MethodInvocation invocation, ShardTopology topology, Collection<Long> ids) {
+        Map<Integer, List<Long>> byShard = new LinkedHashMap<>();
+        for (Long id : ids) {
+            byShard.computeIfAbsent(topology.shardOf(id), shard -> new ArrayList<>()).add(id);
+        }
+        List<List<UserDto>> results = topology.scatter(shard -> {
+            List<Long> shardIds = byShard.get(shard);
+            return shardIds == null ? List.<UserDto>of() : castList(proceedClone(invocation, new Object[] {shardIds}));
+        });
+        return mergeLists(results);
+    }
+
+    private static int shardOfIdentity(ShardTopology topology, Optional<Long> userId) {
+        // Нет в каталоге - нет нигде: сервис вернет пустой результат с шарда-каталога
+        return userId.map(topology::shardOf).orElse(ShardTopology.CATALOG_SHARD);
+    }
+
+    private static Object proceedOn(MethodInvocation invocation, int shard) throws Throwable {
+        try {
+            return ShardContext.callOn(shard, () -> proceedUnchecked(invocation));
+        } catch (InvocationFailure failure) {
+            throw failure.getCause();
+        }
+    }
+
+    private static Object proceedClone(MethodInvocation invocation, Object[] args) {
+        MethodInvocation clone = ((ProxyMethodInvocation) invocation).invocableClone(args);
+        try {
+            return proceedUnchecked(clone);
+        } catch (InvocationFailure failure) {
+            if (failure.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw failure;
+        }
+    }
+
+    private static Object proceedUnchecked(MethodInvocation invocation) {
+        try {
+            return invocation.proceed();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new InvocationFailure(e);
+        }
+    }
+
+    private static List<UserDto> mergeLists(List<List<UserDto>> perShard) {
+        List<UserDto> merged = new ArrayList<>();
+        perShard.forEach(merged::addAll);
+        merged.sort(BY_ID);
+        return merged;
+    }
+
+    // Курсор задает позицию в общем порядке, поэтому один и тот же курсор подходит каждому шарду
+    private static UserPageDto mergePages(UserQuery query, List<UserPageDto> perShard) {
+        List<UserDto> merged = new ArrayList<>();
+        boolean more = false;
+        for (UserPageDto page : perShard) {
+            merged.addAll(page.users());
+            more |= page.nextCursor() != null;
+        }
+        merged.sort(query.comparator());
+        return query.page(merged, more);
+    }
+
+    // Готовый индекс содержит пользователей всех шардов и отдает одно и то же с каждого - отсюда повторы
+    private static List<UserSuggestionDto> mergeSuggestions(int limit, List<List<UserSuggestionDto>> perShard) {
+        Map<Long, UserSuggestionDto> merged = new LinkedHashMap<>();
+        perShard.forEach(suggestions -> suggestions.forEach(user -> merged.putIfAbsent(user.id(), user)));
+        return merged.values().stream()
+                .sorted(BY_USERNAME)
+                .limit(limit)
+                .toList();
+    }
+
+    private static UserStatsDto mergeStats(List<UserStatsDto> perShard) {
+        UserStatsDto first = perShard.get(0);
+        long total = 0;
+        long active = 0;
+        long inactive = 0;
+        Map<User.UserRole, Long> byRole = new EnumMap<>(User.UserRole.class);
+        // Все шарды заполняют одинаковую сетку периодов, поэтому слияние - сумма по началу периода
+        Map<LocalDate, Long> signups = new LinkedHashMap<>();
+        for (UserStatsDto stats : perShard) {
+            total += stats.total();
+            active += stats.active();
+            inactive += stats.inactive();
+            stats.byRole().forEach((role, count) -> byRole.merge(role, count, Long::sum));
+            stats.signups().forEach(bucket -> signups.merge(bucket.periodStart(), bucket.count(), Long::sum));
+        }
+        List<UserStatsDto.SignupBucket> buckets = signups.entrySet().stream()
+                .map(entry -> new UserStatsDto.SignupBucket(entry.getKey(), entry.getValue()))
+                .toList();
+        LocalDateTime computedAt = perShard.stream()
+                .map(UserStatsDto::computedAt)
+                .min(Comparator.naturalOrder())
+                .orElse(first.computedAt());
+        return new UserStatsDto(first.from(), first.to(), first.granularity(), total, active, inactive,
+                byRole, buckets, computedAt);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<UserDto> castList(Object value) {
+        return (List<UserDto>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<UserSuggestionDto> castSuggestions(Object value) {
+        return (List<UserSuggestionDto>) value;
+    }
+
+    private UserIdentityCatalog catalog() {
+        return catalogProvider.getObject();
+    }
+
+    /**
+     * Checked-исключение вызова, пронесенное через Supplier.
+     */
+    private static final class InvocationFailure extends RuntimeException {
+        InvocationFailure(Throwable cause) {
+            super(cause);
+        }
+    }
+}
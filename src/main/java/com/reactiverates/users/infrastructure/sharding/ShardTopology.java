@@ -0,0 +1,112 @@
+package com.reactiverates.users.infrastructure.sharding;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+
+/**
+ * Набор физических шардов: пулы соединений, правило размещения пользователей и параллельный scatter.
+ * Пользователь с id живет на шарде id mod N. Identity-колонка users на шарде k настроена
+ * с шагом N и остатком k ({@link ShardIdentity}), поэтому id, выданный шардом, сам кодирует шард.
+ * Шард {@link #CATALOG_SHARD} дополнительно хранит глобальный каталог username/email ({@link UserIdentityCatalog}).
+ */
+@Slf4j
+public class ShardTopology implements AutoCloseable {
+
+    public static final int CATALOG_SHARD = 0;
+
+    private final List<ShardingProperties.Shard> shards;
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final ExecutorService scatterExecutor;
+
+    public ShardTopology(ShardingProperties properties) {
+        if (properties.shards().isEmpty()) {
+            throw new IllegalStateException("users.sharding.enabled=true requires at least one users.sharding.shards entry");
+        }
+        this.shards = properties.shards();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            ShardingProperties.Shard descriptor = shards.get(shard);
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("users-shard-" + shard);
+            config.setJdbcUrl(descriptor.url());
+            config.setUsername(descriptor.username());
+            config.setPassword(descriptor.password());
+            config.setMaximumPoolSize(descriptor.maxPoolSize());
+            dataSources.add(new HikariDataSource(config));
+        }
+        this.scatterExecutor = Executors.newFixedThreadPool(properties.scatterThreads(), Thread.ofPlatform()
+                .name("users-shard-scatter-", 0)
+                .daemon()
+                .factory());
+        log.info("User sharding enabled with {} shards", shards.size());
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public ShardingProperties.Shard shard(int shard) {
+        return shards.get(shard);
+    }
+
+    public DataSource dataSource(int shard) {
+        return dataSources.get(shard);
+    }
+
+    public int shardOf(long userId) {
+        return (int) Math.floorMod(userId, (long) shards.size());
+    }
+
+    /**
+     * Шард для нового пользователя: хеш username без учета регистра равномерно распределяет запись.
+     */
+    public int shardForNewUser(String username) {
+        int hash = username.toLowerCase(Locale.ROOT).hashCode();
+        // Перемешивание старших бит: hashCode близких строк отличается в младших разрядах слабо
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, shards.size());
+    }
+
+    /**
+     * Выполняет perShard на всех шардах параллельно (каждый вызов - в {@link ShardContext} своего шарда).
+     * Результаты в порядке индексов шардов, исключение любого шарда пробрасывается вызывающему.
+     */
+    public <T> List<T> scatter(IntFunction<T> perShard) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            int current = shard;
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> ShardContext.callOn(current, () -> perShard.apply(current)), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        scatterExecutor.shutdownNow();
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
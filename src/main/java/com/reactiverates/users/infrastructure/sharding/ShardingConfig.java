@@ -0,0 +1,76 @@
+package com.reactiverates.users.infrastructure.sharding;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+import static com.reactiverates.users.infrastructure.config.UsersServicePointcuts.USERS_SERVICE_METHODS;
+
+/**
+ * Горизонтальное шардирование таблицы users (users.sharding.enabled).
+ * Основной DataSource заменяется маршрутизирующим, миграции Flyway применяются к каждому шарду,
+ * после чего identity каждого шарда настраивается на выдачу id со своим остатком.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "users.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    private static final int CATALOG_BACKFILL_BATCH_SIZE = 5000;
+
+    @Bean(destroyMethod = "close")
+    public ShardTopology shardTopology(ShardingProperties properties) {
+        return new ShardTopology(properties);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardTopology topology) {
+        return new ShardRoutingDataSource(topology);
+    }
+
+    /**
+     * Flyway из автоконфигурации смотрит на основной DataSource, то есть только на шард по умолчанию:
+     * вместо него та же конфигурация применяется к каждому шарду.
+     */
+    @Bean
+    public FlywayMigrationStrategy shardedFlywayMigrationStrategy(ShardTopology topology) {
+        return flyway -> {
+            for (int shard = 0; shard < topology.size(); shard++) {
+                DataSource dataSource = topology.dataSource(shard);
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(dataSource)
+                        .load()
+                        .migrate();
+                ShardIdentity.configure(dataSource, shard, topology.size());
+            }
+            UserIdentityCatalog.backfillIfEmpty(topology, CATALOG_BACKFILL_BATCH_SIZE);
+        };
+    }
+
+    /**
+     * Снаружи диагностики пула и транзакций: scatter-вызовы на рабочих потоках проходят
+     * всю цепочку советов заново, уже с выбранным шардом.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor shardRoutingAdvisor(ObjectProvider<ShardTopology> topology,
+                                              ObjectProvider<UserIdentityCatalog> catalog) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(USERS_SERVICE_METHODS, new ShardRoutingInterceptor(topology, catalog));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,38 @@
+package com.reactiverates.users.infrastructure.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * users.sharding: список физических шардов. Порядок списка задает индекс шарда
+ * (id пользователя mod число шардов), поэтому менять его без перешардирования данных нельзя.
+ */
+@ConfigurationProperties(prefix = "users.sharding")
+public record ShardingProperties(
+    boolean enabled,
+    List<Shard> shards,
+    int scatterThreads
+) {
+
+    public ShardingProperties {
+        shards = shards != null ? List.copyOf(shards) : List.of();
+        if (scatterThreads <= 0) {
+            scatterThreads = Math.max(4, shards.size() * 4);
+        }
+    }
+
+    public record Shard(
+        String url,
+        String username,
+        String password,
+        int maxPoolSize
+    ) {
+
+        public Shard {
+            if (maxPoolSize <= 0) {
+                maxPoolSize = 10;
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.reactiverates.users.infrastructure.sharding;
+
+import com.reactiverates.users.domain.event.UserChangedEvent;
+import com.reactiverates.users.domain.model.UserDto;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Глобальный каталог username/email -> id на шарде-каталоге.
+ * Уникальные индексы каталога гарантируют уникальность между шардами, lookup по username/email
+ * узнает id, а значит и шард пользователя, одним запросом по индексу.
+ *
+ * Каталог обновляется вне транзакции шарда (другая база): запись делается до коммита шарда, и конфликт
+ * уникальности откатывает изменение пользователя; при откате транзакции шарда изменение каталога компенсируется.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.sharding", name = "enabled", havingValue = "true")
+@Slf4j
+public class UserIdentityCatalog {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserIdentityCatalog(ShardTopology topology) {
+        this.jdbcTemplate = new JdbcTemplate(topology.dataSource(ShardTopology.CATALOG_SHARD));
+    }
+
+    public Optional<Long> findIdByUsername(String username) {
+        return jdbcTemplate.queryForList("SELECT user_id FROM user_identity_catalog WHERE username_lower = ?",
+                Long.class, key(username)).stream().findFirst();
+    }
+
+    public Optional<Long> findIdByEmail(String email) {
+        return jdbcTemplate.queryForList("SELECT user_id FROM user_identity_catalog WHERE email_lower = ?",
+                Long.class, email != null ? key(email.trim()) : null).stream().findFirst();
+    }
+
+    public boolean existsByUsername(String username) {
+        return findIdByUsername(username).isPresent();
+    }
+
+    public boolean existsByEmail(String email) {
+        return findIdByEmail(email).isPresent();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        UserDto previous = event.previous();
+        UserDto current = event.current();
+        switch (event.type()) {
+            case CREATED -> {
+                insert(current);
+                afterRollback(() -> delete(current.id()));
+            }
+            case UPDATED -> {
+                if (!Objects.equals(key(previous.username()), key(current.username()))
+                        || !Objects.equals(key(previous.email()), key(current.email()))) {
+                    update(current);
+                    afterRollback(() -> update(previous));
+                }
+            }
+            case DELETED -> {
+                delete(previous.id());
+                afterRollback(() -> insert(previous));
+            }
+        }
+    }
+
+    /**
+     * Заполняет пустой каталог по users и users_archive всех шардов (переход на шардирование с готовыми данными).
+     */
+    static void backfillIfEmpty(ShardTopology topology, int batchSize) {
+        JdbcTemplate catalog = new JdbcTemplate(topology.dataSource(ShardTopology.CATALOG_SHARD));
+        Boolean empty = catalog.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM user_identity_catalog)", Boolean.class);
+        if (!Boolean.TRUE.equals(empty)) {
+            return;
+        }
+        long total = 0;
+        for (int shard = 0; shard < topology.size(); shard++) {
+            JdbcTemplate source = new JdbcTemplate(topology.dataSource(shard));
+            for (String table : List.of("users", "users_archive")) {
+                long afterId = 0;
+                List<Object[]> rows;
+                do {
+                    rows = source.query("SELECT id, lower(username), lower(email) FROM " + table
+                                    + " WHERE id > ? ORDER BY id LIMIT ?",
+                            (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getString(2), rs.getString(3)},
+                            afterId, batchSize);
+                    catalog.batchUpdate("INSERT INTO user_identity_catalog (user_id, username_lower, email_lower) "
+                            + "VALUES (?, ?, ?) ON CONFLICT DO NOTHING", rows);
+                    total += rows.size();
+                    if (!rows.isEmpty()) {
+                        afterId = (Long) rows.get(rows.size() - 1)[0];
+                    }
+                } while (rows.size() == batchSize);
+            }
+        }
+        log.info("User identity catalog backfilled with {} users", total);
+    }
+
+    private void insert(UserDto user) {
+        try {
+            jdbcTemplate.update("INSERT INTO user_identity_catalog (user_id, username_lower, email_lower) VALUES (?, ?, ?)",
+                    user.id(), key(user.username()), key(user.email()));
+        } catch (DuplicateKeyException e) {
+            throw new RuntimeException("Пользователь с таким именем или email уже существует", e);
+        }
+    }
+
+    private void update(UserDto user) {
+        try {
+            jdbcTemplate.update("UPDATE user_identity_catalog SET username_lower = ?, email_lower = ? WHERE user_id = ?",
+                    key(user.username()), key(user.email()), user.id());
+        } catch (DuplicateKeyException e) {
+            throw new RuntimeException("Пользователь с таким именем или email уже существует", e);
+        }
+    }
+
+    private void delete(Long userId) {
+        jdbcTemplate.update("DELETE FROM user_identity_catalog WHERE user_id = ?", userId);
+    }
+
+    private static void afterRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    try {
+                        compensation.run();
+                    } catch (RuntimeException e) {
+                        log.error("Failed to compensate user identity catalog after rollback: {}", e.getMessage(), e);
+                    }
+                }
+            }
+        });
+    }
+
+    private static String key(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.reactiverates.users.infrastructure.stats;
+
+import com.reactiverates.users.domain.model.UserStatsDto;
+import com.reactiverates.users.infrastructure.sharding.ShardContext;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Короткоживущий кеш статистики: частые обновления дашбордов в пределах TTL
+ * не порождают повторных GROUP BY запросов. ttl-ms: 0 отключает кеш.
+ */
+@Component
+public class UserStatsCache {
+
+    private static final int MAX_ENTRIES = 256;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+
+    public UserStatsCache(@Value("${users.stats.cache-ttl-ms:5000}") long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public UserStatsDto get(LocalDate from, LocalDate to, UserStatsDto.Granularity granularity,
+                            Supplier<UserStatsDto> loader) {
+        if (ttlMillis <= 0) {
+            return loader.get();
+        }
+        // При шардировании каждый шард кеширует свою часть статистики
+        Key key = new Key(from, to, granularity, ShardContext.current());
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.value();
+        }
+        UserStatsDto value = loader.get();
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+        entries.put(key, new Entry(value, now + ttlMillis));
+        return value;
+    }
+
+    private record Key(LocalDate from, LocalDate to, UserStatsDto.Granularity granularity, Integer shard) {
+    }
+
+    private record Entry(UserStatsDto value, long expiresAt) {
+    }
+}
@@ -0,0 +1,175 @@
+package com.reactiverates.users.infrastructure.suggest;
+
+import com.reactiverates.users.domain.model.UserSuggestionDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Отсортированный индекс нормализованных термов (username, email, имя, фамилия) -> id пользователя.
+ * Основная часть - два параллельных массива, отсортированных по (терм, id): поиск по префиксу -
+ * бинарный поиск и последовательный проход. Изменения копятся в небольшом отсортированном дельта-наборе
+ * и наборе удаленных записей основной части, а при росте дельты сливаются в новые массивы,
+ * поэтому запись не сдвигает весь массив.
+ *
+ * Не потокобезопасен: доступ синхронизирует {@link UserSuggestIndex}.
+ */
+class SuggestTable {
+
+    private static final int MIN_MERGE_THRESHOLD = 1024;
+
+    private String[] terms = new String[0];
+    private long[] ids = new long[0];
+    private final TreeSet<Entry> added = new TreeSet<>();
+    private final Set<Entry> removed = new HashSet<>();
+    private final Map<Long, UserSuggestionDto> users = new HashMap<>();
+
+    int size() {
+        return users.size();
+    }
+
+    void upsert(UserSuggestionDto user) {
+        remove(user.id());
+        users.put(user.id(), user);
+        for (String term : terms(user)) {
+            Entry entry = new Entry(term, user.id());
+            if (!removed.remove(entry)) {
+                added.add(entry);
+            }
+        }
+        mergeIfNeeded();
+    }
+
+    void remove(long userId) {
+        UserSuggestionDto previous = users.remove(userId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : terms(previous)) {
+            Entry entry = new Entry(term, userId);
+            if (!added.remove(entry)) {
+                removed.add(entry);
+            }
+        }
+        mergeIfNeeded();
+    }
+
+    /**
+     * До limit различных пользователей, у которых хотя бы один терм начинается с prefix,
+     * в порядке совпавшего терма.
+     */
+    List<UserSuggestionDto> search(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Set<Long> found = new LinkedHashSet<>();
+        int base = lowerBound(key);
+        Iterator<Entry> delta = added.tailSet(new Entry(key, Long.MIN_VALUE), true).iterator();
+        Entry pending = delta.hasNext() ? delta.next() : null;
+        while (found.size() < limit) {
+            boolean baseMatches = base < terms.length && terms[base].startsWith(key);
+            boolean deltaMatches = pending != null && pending.term().startsWith(key);
+            if (!baseMatches && !deltaMatches) {
+                break;
+            }
+            // Слияние двух отсортированных последовательностей
+            if (baseMatches && (!deltaMatches || compare(terms[base], ids[base], pending) <= 0)) {
+                if (!removed.contains(new Entry(terms[base], ids[base]))) {
+                    found.add(ids[base]);
+                }
+                base++;
+            } else {
+                found.add(pending.id());
+                pending = delta.hasNext() ? delta.next() : null;
+            }
+        }
+        List<UserSuggestionDto> result = new ArrayList<>(found.size());
+        for (Long id : found) {
+            result.add(users.get(id));
+        }
+        return result;
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> terms(UserSuggestionDto user) {
+        Set<String> terms = new HashSet<>(4);
+        for (String value : new String[] {user.username(), user.email(), user.firstName(), user.lastName()}) {
+            String term = normalize(value);
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void mergeIfNeeded() {
+        if (added.size() + removed.size() <= Math.max(MIN_MERGE_THRESHOLD, terms.length / 8)) {
+            return;
+        }
+        int capacity = terms.length - removed.size() + added.size();
+        String[] mergedTerms = new String[capacity];
+        long[] mergedIds = new long[capacity];
+        int size = 0;
+        int base = 0;
+        Iterator<Entry> delta = added.iterator();
+        Entry pending = delta.hasNext() ? delta.next() : null;
+        while (base < terms.length || pending != null) {
+            if (pending == null || (base < terms.length && compare(terms[base], ids[base], pending) <= 0)) {
+                if (!removed.contains(new Entry(terms[base], ids[base]))) {
+                    mergedTerms[size] = terms[base];
+                    mergedIds[size++] = ids[base];
+                }
+                base++;
+            } else {
+                mergedTerms[size] = pending.term();
+                mergedIds[size++] = pending.id();
+                pending = delta.hasNext() ? delta.next() : null;
+            }
+        }
+        terms = size == capacity ? mergedTerms : Arrays.copyOf(mergedTerms, size);
+        ids = size == capacity ? mergedIds : Arrays.copyOf(mergedIds, size);
+        added.clear();
+        removed.clear();
+    }
+
+    private static int compare(String term, long id, Entry entry) {
+        int byTerm = term.compareTo(entry.term());
+        return byTerm != 0 ? byTerm : Long.compare(id, entry.id());
+    }
+
+    private record Entry(String term, long id) implements Comparable<Entry> {
+
+        @Override
+        public int compareTo(Entry other) {
+            int byTerm = term.compareTo(other.term);
+            return byTerm != 0 ? byTerm : Long.compare(id, other.id);
+        }
+    }
+}
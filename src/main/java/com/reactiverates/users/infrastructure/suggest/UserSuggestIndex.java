@@ -0,0 +1,171 @@
+package com.reactiverates.users.infrastructure.suggest;
+
+import com.reactiverates.users.domain.event.UserChangedEvent;
+import com.reactiverates.users.domain.event.UsersArchivedEvent;
+import com.reactiverates.users.domain.event.UsersInvalidatedEvent;
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.model.UserQuery;
+import com.reactiverates.users.domain.model.UserSuggestionDto;
+import com.reactiverates.users.infrastructure.persistence.entity.UserEntity;
+import com.reactiverates.users.infrastructure.persistence.repository.UsersRepository;
+import com.reactiverates.users.infrastructure.sharding.ShardContext;
+import com.reactiverates.users.infrastructure.sharding.ShardTopology;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Автодополнение по префиксу username, email, имени и фамилии из памяти ({@link SuggestTable}).
+ * Строится при старте, затем обновляется из write-path через {@link UserChangedEvent} после коммита.
+ * Изменения других экземпляров приходят только инвалидациями, поэтому индекс включается вместе
+ * с users.invalidation.enabled. Пока индекс не построен ({@link #isReady()}), подсказки берутся из базы.
+ * Страница, прочитанная при построении, может быть старше события, уже примененного к таблице:
+ * пользователи, измененные или удаленные во время построения, из страниц не вставляются.
+ */
+@Component
+@ConditionalOnExpression("${users.suggest.enabled:true} and ${users.invalidation.enabled:false}")
+@Slf4j
+public class UserSuggestIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SuggestTable table = new SuggestTable();
+    // Пользователи, чьи события пришли во время построения; под write lock
+    private final Set<Long> changedDuringBuild = new HashSet<>();
+    private boolean building;
+    private final UsersRepository repository;
+    private final ObjectProvider<ShardTopology> shards;
+    private final int batchSize;
+    private volatile boolean ready;
+
+    public UserSuggestIndex(UsersRepository repository,
+                            ObjectProvider<ShardTopology> shards,
+                            @Value("${users.suggest.load-batch-size:1000}") int batchSize) {
+        this.repository = repository;
+        this.shards = shards;
+        this.batchSize = batchSize;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<UserSuggestionDto> suggest(String prefix, int limit) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return table.search(prefix, limit);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long startTime = System.currentTimeMillis();
+        write(t -> building = true);
+        ShardContext.forEachShard(shards.getIfAvailable(), shard -> {
+            // Keyset по id: без count и OFFSET на каждую страницу
+            List<UserEntity> batch;
+            UserQuery.Cursor after = null;
+            do {
+                batch = repository.findByQuery(new UserQuery(null, null, null, null, null, null, null,
+                        UserQuery.SortField.ID, false, after, batchSize), batchSize);
+                List<UserSuggestionDto> users = batch.stream()
+                        .map(UserEntity::toDomain)
+                        .map(UserDto::fromDomain)
+                        .map(UserSuggestionDto::fromUser)
+                        .toList();
+                write(t -> users.stream()
+                        .filter(user -> !changedDuringBuild.contains(user.id()))
+                        .forEach(t::upsert));
+                if (!batch.isEmpty()) {
+                    after = new UserQuery.Cursor(UserQuery.SortField.ID, false, batch.get(batch.size() - 1).getId(), null);
+                }
+            } while (batch.size() == batchSize);
+        });
+        write(t -> {
+            building = false;
+            changedDuringBuild.clear();
+        });
+        ready = true;
+        log.info("User suggest index built with {} users in {}ms", size(), System.currentTimeMillis() - startTime);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        write(t -> {
+            markChanged(event.userId());
+            if (event.type() == UserChangedEvent.Type.DELETED) {
+                t.remove(event.userId());
+            } else {
+                t.upsert(UserSuggestionDto.fromUser(event.current()));
+            }
+        });
+    }
+
+    // Списки и поиск архив не затрагивают, подсказки тоже
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsersArchived(UsersArchivedEvent event) {
+        write(t -> event.userIds().forEach(userId -> {
+            markChanged(userId);
+            t.remove(userId);
+        }));
+    }
+
+    @EventListener
+    public void onUsersInvalidated(UsersInvalidatedEvent event) {
+        write(t -> {
+            event.current().forEach(user -> {
+                markChanged(user.id());
+                t.upsert(UserSuggestionDto.fromUser(user));
+            });
+            event.deletedIds().forEach(userId -> {
+                markChanged(userId);
+                t.remove(userId);
+            });
+        });
+    }
+
+    public int size() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return table.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // Вызывается под write lock
+    private void markChanged(Long userId) {
+        if (building) {
+            changedDuringBuild.add(userId);
+        }
+    }
+
+    private void write(Consumer<SuggestTable> action) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            action.accept(table);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
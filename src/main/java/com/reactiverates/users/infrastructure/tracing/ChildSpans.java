@@ -0,0 +1,46 @@
+package com.reactiverates.users.infrastructure.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+/**
+ * Дочерние span внутри уже идущего трейса. Корневые span создает только входящий HTTP- или gRPC-запрос:
+ * фоновые задачи (загрузка реплики, архивация) трейсов не порождают, а в невыбранном сэмплером
+ * запросе дочерние span не создаются вовсе, поэтому трассировку можно держать включенной.
+ */
+public final class ChildSpans {
+
+    private ChildSpans() {
+    }
+
+    /**
+     * Начатый span с родителем - текущим span потока, или null, если трейса нет или он не сэмплирован.
+     */
+    public static Span start(Tracer tracer, String name) {
+        if (tracer == null) {
+            return null;
+        }
+        Span parent = tracer.currentSpan();
+        if (parent == null || !Boolean.TRUE.equals(parent.context().sampled())) {
+            return null;
+        }
+        return tracer.nextSpan().name(name).start();
+    }
+
+    /**
+     * Делает span текущим; null-span дает null, что допустимо в try-with-resources.
+     */
+    public static Tracer.SpanInScope open(Tracer tracer, Span span) {
+        return span != null ? tracer.withSpan(span) : null;
+    }
+
+    public static void end(Span span, Throwable error) {
+        if (span == null) {
+            return;
+        }
+        if (error != null) {
+            span.error(error);
+        }
+        span.end();
+    }
+}
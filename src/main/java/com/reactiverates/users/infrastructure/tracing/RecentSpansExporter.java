@@ -0,0 +1,84 @@
+package com.reactiverates.users.infrastructure.tracing;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Экспортер, хранящий последние recent-spans завершенных span в памяти для /actuator/traces.
+ * Для локальной отладки без коллектора; Spring Boot подключает его к BatchSpanProcessor,
+ * так что запрос не ждет экспорта.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.tracing", name = "exporter", havingValue = "memory", matchIfMissing = true)
+public class RecentSpansExporter implements SpanExporter {
+
+    private final int capacity;
+    private final Deque<SpanView> spans = new ArrayDeque<>();
+
+    public RecentSpansExporter(@Value("${users.tracing.recent-spans:2000}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> batch) {
+        for (SpanData span : batch) {
+            if (spans.size() == capacity) {
+                spans.removeFirst();
+            }
+            spans.addLast(SpanView.of(span));
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Последние трейсы, новые первыми: traceId -> его span в порядке начала.
+     */
+    public synchronized Map<String, List<SpanView>> traces(int limit) {
+        Map<String, List<SpanView>> traces = new LinkedHashMap<>();
+        var newestFirst = spans.descendingIterator();
+        while (newestFirst.hasNext()) {
+            SpanView span = newestFirst.next();
+            List<SpanView> trace = traces.get(span.traceId());
+            if (trace == null) {
+                if (traces.size() == limit) {
+                    continue;
+                }
+                trace = new ArrayList<>();
+                traces.put(span.traceId(), trace);
+            }
+            trace.add(span);
+        }
+        traces.values().forEach(trace -> trace.sort((a, b) -> a.startedAt().compareTo(b.startedAt())));
+        return traces;
+    }
+
+    public synchronized List<SpanView> trace(String traceId) {
+        return spans.stream()
+                .filter(span -> span.traceId().equals(traceId))
+                .sorted((a, b) -> a.startedAt().compareTo(b.startedAt()))
+                .toList();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+}
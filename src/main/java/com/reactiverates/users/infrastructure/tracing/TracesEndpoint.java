@@ -0,0 +1,36 @@
+package com.reactiverates.users.infrastructure.tracing;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/traces: последние трейсы из {@link RecentSpansExporter}, /actuator/traces/{traceId} - один трейс.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.tracing", name = "exporter", havingValue = "memory", matchIfMissing = true)
+@Endpoint(id = "traces")
+@RequiredArgsConstructor
+public class TracesEndpoint {
+
+    private static final int MAX_TRACES = 50;
+
+    private final RecentSpansExporter exporter;
+
+    @ReadOperation
+    public Map<String, List<SpanView>> traces() {
+        return exporter.traces(MAX_TRACES);
+    }
+
+    @ReadOperation
+    public List<SpanView> trace(@Selector String traceId) {
+        return exporter.trace(traceId);
+    }
+}
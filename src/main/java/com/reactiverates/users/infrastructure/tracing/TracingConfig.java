@@ -0,0 +1,48 @@
+package com.reactiverates.users.infrastructure.tracing;
+
+import io.micrometer.tracing.Tracer;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static com.reactiverates.users.infrastructure.config.UsersServicePointcuts.USERS_SERVICE_METHODS;
+
+/**
+ * Span для методов UsersService и BCrypt. Серверные span HTTP и gRPC (с извлечением W3C traceparent
+ * из заголовков и metadata) создают наблюдения Spring MVC/WebFlux и spring-grpc, span проверки JWT -
+ * JwtService, span JDBC-запросов - обертка DataSource из диагностики.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "users.tracing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor usersServiceTracingAdvisor(ObjectProvider<Tracer> tracer) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(USERS_SERVICE_METHODS, new UsersServiceTracingInterceptor(tracer));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return advisor;
+    }
+
+    @Bean
+    public static BeanPostProcessor tracingPasswordEncoderPostProcessor(ObjectProvider<Tracer> tracer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof PasswordEncoder encoder && !(bean instanceof TracingPasswordEncoder)) {
+                    return new TracingPasswordEncoder(encoder, tracer);
+                }
+                return bean;
+            }
+        };
+    }
+}
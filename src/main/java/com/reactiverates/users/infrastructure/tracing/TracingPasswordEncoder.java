@@ -0,0 +1,46 @@
+package com.reactiverates.users.infrastructure.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Обертка PasswordEncoder: span "password encode" / "password matches" вокруг BCrypt.
+ */
+class TracingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ObjectProvider<Tracer> tracerProvider;
+
+    TracingPasswordEncoder(PasswordEncoder delegate, ObjectProvider<Tracer> tracerProvider) {
+        this.delegate = delegate;
+        this.tracerProvider = tracerProvider;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        Span span = ChildSpans.start(tracerProvider.getIfAvailable(), "password encode");
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            ChildSpans.end(span, null);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Span span = ChildSpans.start(tracerProvider.getIfAvailable(), "password matches");
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            ChildSpans.end(span, null);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,43 @@
+package com.reactiverates.users.infrastructure.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Span на вызов метода UsersService ("UsersService.getUserById") с ключом точечной операции.
+ * JDBC-запросы и BCrypt внутри метода становятся его дочерними span.
+ */
+class UsersServiceTracingInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<Tracer> tracerProvider;
+
+    UsersServiceTracingInterceptor(ObjectProvider<Tracer> tracerProvider) {
+        this.tracerProvider = tracerProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Tracer tracer = tracerProvider.getIfAvailable();
+        Span span = ChildSpans.start(tracer, "UsersService." + invocation.getMethod().getName());
+        if (span == null) {
+            return invocation.proceed();
+        }
+        Object[] args = invocation.getArguments();
+        if (args.length > 0 && args[0] instanceof Long id) {
+            span.tag("users.id", String.valueOf(id));
+        }
+        Throwable error = null;
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            ChildSpans.end(span, error);
+        }
+    }
+}
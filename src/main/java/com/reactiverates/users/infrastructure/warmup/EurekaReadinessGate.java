@@ -0,0 +1,38 @@
+package com.reactiverates.users.infrastructure.warmup;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Экземпляр регистрируется в Eureka со статусом STARTING (eureka.instance.initial-status) и не получает
+ * трафик от клиентов, пока не станет UP. Spring Boot объявляет ACCEPTING_TRAFFIC после всех обработчиков
+ * ApplicationReadyEvent, то есть после {@link StartupWarmup} и построения in-memory реплики,
+ * фильтра существования и индекса подсказок; только тогда статус становится UP.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EurekaReadinessGate {
+
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+
+    @EventListener
+    public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+        InstanceInfo.InstanceStatus status = event.getState() == ReadinessState.ACCEPTING_TRAFFIC
+                ? InstanceInfo.InstanceStatus.UP
+                : InstanceInfo.InstanceStatus.OUT_OF_SERVICE;
+        applicationInfoManager.ifAvailable(manager -> {
+            manager.setInstanceStatus(status);
+            log.info("Instance marked {} in Eureka", status);
+        });
+    }
+}
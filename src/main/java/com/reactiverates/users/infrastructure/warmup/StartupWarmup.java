@@ -0,0 +1,247 @@
+package com.reactiverates.users.infrastructure.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.model.UserQuery;
+import com.reactiverates.users.infrastructure.diagnostics.StartupReport;
+import com.reactiverates.users.infrastructure.persistence.entity.UserEntity;
+import com.reactiverates.users.infrastructure.persistence.repository.UsersArchiveRepository;
+import com.reactiverates.users.infrastructure.persistence.repository.UsersRepository;
+import com.reactiverates.users.infrastructure.security.JwtService;
+import com.reactiverates.users.infrastructure.sharding.ShardContext;
+import com.reactiverates.users.infrastructure.sharding.ShardTopology;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Прогрев до приема трафика: открывает соединения пула, прогоняет запросы UsersRepository,
+ * проверку JWT и сериализацию ответов заданное число раз, чтобы JIT, планы запросов Hibernate
+ * и prepared statements драйвера были готовы к первому клиенту.
+ * Выполняется в самой ранней фазе жизненного цикла: HTTP-коннектор и gRPC-сервер открывают порты
+ * только после прогрева, а статус UP в Eureka выставляет {@link EurekaReadinessGate} после построения кэшей.
+ * Ошибки прогрева логируются и старт не прерывают; прогрев ограничен max-duration-ms.
+ */
+@Component
+@ConditionalOnProperty(prefix = "users.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class StartupWarmup implements SmartLifecycle {
+
+    static final int PHASE = Integer.MIN_VALUE;
+
+    private static final String MISSING = "warmup-missing-user";
+
+    private final DataSource dataSource;
+    private final UsersRepository repository;
+    private final UsersArchiveRepository archive;
+    private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<ShardTopology> shards;
+    private final StartupReport startupReport;
+    private final String jwtSecret;
+    private final int connections;
+    private final int iterations;
+    private final int sampleSize;
+    private final long maxDurationMs;
+    private volatile boolean running;
+    private long deadline;
+
+    public StartupWarmup(DataSource dataSource,
+                         UsersRepository repository,
+                         UsersArchiveRepository archive,
+                         JwtService jwtService,
+                         ObjectMapper objectMapper,
+                         ObjectProvider<ShardTopology> shards,
+                         StartupReport startupReport,
+                         @Value("${jwt.secret:defaultSecretKeyForDevelopmentOnly}") String jwtSecret,
+                         @Value("${users.warmup.connections:10}") int connections,
+                         @Value("${users.warmup.iterations:200}") int iterations,
+                         @Value("${users.warmup.sample-size:50}") int sampleSize,
+                         @Value("${users.warmup.max-duration-ms:30000}") long maxDurationMs) {
+        this.dataSource = dataSource;
+        this.repository = repository;
+        this.archive = archive;
+        this.jwtService = jwtService;
+        this.objectMapper = objectMapper;
+        this.shards = shards;
+        this.startupReport = startupReport;
+        this.jwtSecret = jwtSecret;
+        this.connections = connections;
+        this.iterations = iterations;
+        this.sampleSize = sampleSize;
+        this.maxDurationMs = maxDurationMs;
+    }
+
+    @Override
+    public void start() {
+        long startTime = System.currentTimeMillis();
+        deadline = startTime + maxDurationMs;
+        ShardTopology topology = shards.getIfAvailable();
+        step("pool", () -> ShardContext.forEachShard(topology, shard -> openConnections()));
+        List<UserDto> sample = new ArrayList<>();
+        step("queries", () -> ShardContext.forEachShard(topology, shard -> sample.addAll(warmQueries())));
+        step("jwt", this::warmJwt);
+        step("json", () -> warmJson(sample));
+        long elapsed = System.currentTimeMillis() - startTime;
+        startupReport.recordWarmup(elapsed);
+        log.info("Warm-up finished in {}ms ({} iterations, {} sample users)", elapsed, iterations, sample.size());
+        running = true;
+    }
+
+    private void step(String name, Runnable action) {
+        long startTime = System.currentTimeMillis();
+        try {
+            action.run();
+            log.info("Warm-up step {} took {}ms", name, System.currentTimeMillis() - startTime);
+        } catch (RuntimeException e) {
+            log.warn("Warm-up step {} failed after {}ms: {}", name, System.currentTimeMillis() - startTime, e.getMessage());
+        }
+    }
+
+    /**
+     * Держит connections соединений одновременно: пул создает недостающие сейчас, а не под первым трафиком.
+     */
+    private void openConnections() {
+        List<Connection> open = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                open.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            log.warn("Warm-up opened only {} of {} connections: {}", open.size(), connections, e.getMessage());
+        } finally {
+            for (Connection connection : open) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Failed to release warm-up connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Точечные запросы - iterations раз по выборке недавно измененных пользователей и по отсутствующим ключам
+     * (путь в архив); запросы по фильтрам - по одному разу и с limit 1. Полных сканов на старте нет:
+     * JPQL findByNameContaining/findBySearchTerm Spring Data компилирует при создании репозитория,
+     * а их выполнение (LIKE '%...%') - это чтение всей таблицы, поэтому они не вызываются.
+     */
+    private List<UserDto> warmQueries() {
+        // findByQuery, а не findAll(Pageable): без запроса count(*) по всей таблице
+        UserQuery recent = filter(null, null, null, UserQuery.SortField.UPDATED_AT, true, sampleSize);
+        List<UserDto> sample = repository.findByQuery(recent, sampleSize).stream()
+                .map(UserEntity::toDomain)
+                .map(UserDto::fromDomain)
+                .toList();
+        repository.findByQuery(filter(User.UserRole.ADMIN, true, null, UserQuery.SortField.ID, false, 1), 1);
+        repository.findByQuery(filter(null, false, null, UserQuery.SortField.CREATED_AT, false, 1), 1);
+        repository.findByQuery(filter(null, null, MISSING, UserQuery.SortField.USERNAME, false, 1), 1);
+        repository.findByUpdatedAtGreaterThanEqual(LocalDateTime.now());
+        repository.countByRoleAndActive();
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        repository.countSignups("day", today.minusDays(7), today.plusDays(1));
+        archive.countSignups("day", today.minusDays(7), today.plusDays(1));
+
+        repeat(i -> {
+            UserDto user = sample.isEmpty() ? null : sample.get(i % sample.size());
+            long id = user != null ? user.id() : -1L;
+            String username = user != null ? user.username() : MISSING;
+            String email = user != null ? user.email() : MISSING + "@example.com";
+            repository.findById(id).map(UserEntity::toDomain).map(UserDto::fromDomain);
+            repository.findByUsername(username);
+            repository.findByEmail(email);
+            repository.existsByUsername(username);
+            repository.existsByEmail(email);
+            repository.findAllById(List.of(id, -1L));
+            repository.findByUsernameIn(List.of(username.toLowerCase(Locale.ROOT), MISSING));
+            // Префикс - весь username: короткий префикс совпадает с большой частью таблицы
+            repository.findByPrefix(username.toLowerCase(Locale.ROOT), PageRequest.of(0, 10));
+            archive.findById(-1L);
+            archive.findByUsername(MISSING);
+            archive.existsByUsername(MISSING);
+        });
+        return sample;
+    }
+
+    private static UserQuery filter(User.UserRole role, Boolean active, String namePrefix,
+                                    UserQuery.SortField sort, boolean descending, int limit) {
+        return new UserQuery(role, active, null, null, null, null, namePrefix, sort, descending, null, limit);
+    }
+
+    private void warmJwt() {
+        Date now = new Date();
+        String token = Jwts.builder()
+                .subject("warmup")
+                .claim("type", "access")
+                .claim("roles", List.of("USER"))
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
+                .compact();
+        repeat(i -> {
+            jwtService.verifyAccessToken(token).ifPresent(jwtService::extractRoles);
+        });
+    }
+
+    private void warmJson(List<UserDto> sample) {
+        if (sample.isEmpty()) {
+            return;
+        }
+        repeat(i -> {
+            try {
+                objectMapper.writeValueAsString(sample);
+                objectMapper.writeValueAsString(Map.of("user", sample.get(i % sample.size())));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private void repeat(IntConsumer action) {
+        for (int i = 0; i < iterations; i++) {
+            if (System.currentTimeMillis() > deadline) {
+                log.warn("Warm-up stopped at iteration {} of {}: max duration {}ms reached", i, iterations, maxDurationMs);
+                return;
+            }
+            action.accept(i);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,4 @@
+-- queryUsers с sort=USERNAME: ORDER BY username COLLATE ucs_basic, id и keyset по той же паре.
+-- Порядок по кодовым точкам не зависит от локали базы и совпадает со слиянием страниц шардов в сервисе;
+-- uk_users_username построен в правиле сортировки базы и такой ORDER BY не обслуживает.
+CREATE INDEX ix_users_username_code_point ON users (username COLLATE ucs_basic, id);
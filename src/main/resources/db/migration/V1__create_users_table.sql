@@ -0,0 +1,16 @@
+-- Базовая схема таблицы users (ранее создавалась Hibernate через ddl-auto)
+CREATE TABLE users (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username     VARCHAR(255) NOT NULL,
+    email        VARCHAR(255) NOT NULL,
+    password     VARCHAR(255) NOT NULL,
+    first_name   VARCHAR(255),
+    last_name    VARCHAR(255),
+    phone_number VARCHAR(255),
+    role         VARCHAR(255) CHECK (role IN ('USER', 'MODERATOR', 'ADMIN')),
+    is_active    BOOLEAN,
+    created_at   TIMESTAMP(6),
+    updated_at   TIMESTAMP(6),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
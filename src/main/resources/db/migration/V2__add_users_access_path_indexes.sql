@@ -0,0 +1,19 @@
+-- Индексы под запросы UsersRepository / ReactiveUsersRepository.
+-- Отдельный индекс по is_active не нужен: его покрывает ведущая колонка ix_users_active_role_id.
+
+-- existsByUsername / existsByEmail / findByEmail: сравнение без учета регистра,
+-- уникальность тоже без учета регистра
+CREATE UNIQUE INDEX ux_users_username_lower ON users (lower(username));
+CREATE UNIQUE INDEX ux_users_email_lower ON users (lower(email));
+
+-- findByRole
+CREATE INDEX ix_users_role ON users (role);
+
+-- findByIsActive(true): активных пользователей подавляющее большинство читающих запросов
+CREATE INDEX ix_users_active_id ON users (id) WHERE is_active;
+
+-- findByIsActive(false) и keyset-сканы WHERE is_active = ? AND role = ? AND id > ? ORDER BY id
+CREATE INDEX ix_users_active_role_id ON users (is_active, role, id);
+
+-- findByUpdatedAtGreaterThanEqual: догрузка in-memory реплики после снапшота
+CREATE INDEX ix_users_updated_at ON users (updated_at);
@@ -0,0 +1,2 @@
+-- countSignups: регистрации за диапазон дат
+CREATE INDEX ix_users_created_at ON users (created_at);
@@ -0,0 +1,11 @@
+-- Outbox инвалидаций кэшей между экземплярами сервиса.
+-- Строка пишется в той же транзакции, что и изменение пользователя; origin - экземпляр-источник.
+CREATE TABLE user_invalidation_outbox (
+    id              BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    user_id         BIGINT       NOT NULL,
+    origin          VARCHAR(64)  NOT NULL,
+    revoked_subject VARCHAR(255),
+    created_at      TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX ix_user_invalidation_outbox_created_at ON user_invalidation_outbox (created_at);
@@ -0,0 +1,31 @@
+-- Архив давно неактивных пользователей: строки переносятся из users фоновой задачей (UserArchiver)
+-- и возвращаются обратно при активации. HASH(id) - lookup по id затрагивает одну секцию.
+-- Уникальность username/email между users и архивом обеспечивает сервис.
+CREATE TABLE users_archive (
+    id           BIGINT       NOT NULL,
+    username     VARCHAR(255) NOT NULL,
+    email        VARCHAR(255) NOT NULL,
+    password     VARCHAR(255) NOT NULL,
+    first_name   VARCHAR(255),
+    last_name    VARCHAR(255),
+    phone_number VARCHAR(255),
+    role         VARCHAR(255),
+    is_active    BOOLEAN,
+    created_at   TIMESTAMP(6),
+    updated_at   TIMESTAMP(6),
+    archived_at  TIMESTAMP(6) NOT NULL DEFAULT now(),
+    PRIMARY KEY (id)
+) PARTITION BY HASH (id);
+
+CREATE TABLE users_archive_p0 PARTITION OF users_archive FOR VALUES WITH (MODULUS 8, REMAINDER 0);
+CREATE TABLE users_archive_p1 PARTITION OF users_archive FOR VALUES WITH (MODULUS 8, REMAINDER 1);
+CREATE TABLE users_archive_p2 PARTITION OF users_archive FOR VALUES WITH (MODULUS 8, REMAINDER 2);
+CREATE TABLE users_archive_p3 PARTITION OF users_archive FOR VALUES WITH (MODULUS 8, REMAINDER 3);
+CREATE TABLE users_archive_p4 PARTITION OF users_archive FOR VALUES WITH (MODULUS 8, REMAINDER 4);
+CREATE TABLE users_archive_p5 PARTITION OF users_archive FOR VALUES WITH (MODULUS 8, REMAINDER 5);
+CREATE TABLE users_archive_p6 PARTITION OF users_archive FOR VALUES WITH (MODULUS 8, REMAINDER 6);
+CREATE TABLE users_archive_p7 PARTITION OF users_archive FOR VALUES WITH (MODULUS 8, REMAINDER 7);
+
+CREATE INDEX ix_users_archive_username_lower ON users_archive (lower(username));
+CREATE INDEX ix_users_archive_email_lower ON users_archive (lower(email));
+CREATE INDEX ix_users_archive_created_at ON users_archive (created_at);
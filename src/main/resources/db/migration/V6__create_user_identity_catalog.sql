@@ -0,0 +1,10 @@
+-- Глобальный каталог username/email -> id для шардированного режима (users.sharding).
+-- Используется только на шарде-каталоге (индекс 0): гарантирует уникальность между шардами
+-- и направляет lookup по username/email на нужный шард. На остальных шардах таблица пуста.
+CREATE TABLE user_identity_catalog (
+    user_id        BIGINT       PRIMARY KEY,
+    username_lower VARCHAR(255) NOT NULL,
+    email_lower    VARCHAR(255) NOT NULL,
+    CONSTRAINT ux_user_identity_catalog_username UNIQUE (username_lower),
+    CONSTRAINT ux_user_identity_catalog_email UNIQUE (email_lower)
+);
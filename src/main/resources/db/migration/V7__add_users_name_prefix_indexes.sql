@@ -0,0 +1,5 @@
+-- findByQuery: префикс имени lower(col) LIKE 'abc%'. Индексы ux_users_*_lower с правилом сортировки
+-- базы LIKE не обслуживают, text_pattern_ops сравнивает посимвольно и дает диапазон по префиксу.
+CREATE INDEX ix_users_username_lower_pattern ON users (lower(username) text_pattern_ops);
+CREATE INDEX ix_users_first_name_lower_pattern ON users (lower(first_name) text_pattern_ops);
+CREATE INDEX ix_users_last_name_lower_pattern ON users (lower(last_name) text_pattern_ops);
@@ -0,0 +1,3 @@
+-- findByPrefix (подсказки до готовности in-memory индекса): lower(email) LIKE 'abc%'.
+-- ux_users_email_lower с правилом сортировки базы LIKE не обслуживает, см. V7.
+CREATE INDEX ix_users_email_lower_pattern ON users (lower(email) text_pattern_ops);
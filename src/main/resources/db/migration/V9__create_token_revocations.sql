@@ -0,0 +1,15 @@
+-- Явные отзывы access-токенов (logout, revoke-tokens): переживают рестарт и читаются всеми экземплярами.
+-- jti задан - отзыв одного токена, иначе - всех токенов subject, выпущенных не позже revoked_before.
+-- expires_at - момент, после которого запись не нужна: истечение токена или revoked_before + max TTL.
+CREATE TABLE token_revocations (
+    id             BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    subject        VARCHAR(255),
+    jti            VARCHAR(255),
+    revoked_before TIMESTAMPTZ,
+    expires_at     TIMESTAMPTZ  NOT NULL,
+    created_at     TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    CONSTRAINT ck_token_revocations_target CHECK (jti IS NOT NULL OR (subject IS NOT NULL AND revoked_before IS NOT NULL))
+);
+
+CREATE INDEX ix_token_revocations_created_at ON token_revocations (created_at);
+CREATE INDEX ix_token_revocations_expires_at ON token_revocations (expires_at);
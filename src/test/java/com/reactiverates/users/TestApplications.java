@@ -0,0 +1,49 @@
+package com.reactiverates.users;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запуск приложения в интеграционных тестах: без Config Server, Eureka и веб-сервера, gRPC на свободном
+ * порту, основной DataSource - встроенный PostgreSQL. Тест передает только свои свойства.
+ */
+public final class TestApplications {
+
+    private TestApplications() {
+    }
+
+    public static ConfigurableApplicationContext start(EmbeddedPostgres postgres, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.config.import=",
+                "--spring.cloud.config.enabled=false",
+                "--spring.cloud.discovery.enabled=false",
+                "--eureka.client.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.grpc.server.port=" + freePort(),
+                "--logging.level.root=WARN",
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres"));
+        args.addAll(List.of(properties));
+        return new SpringApplicationBuilder(UsersApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.reactiverates.users.infrastructure.diagnostics;
+
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Бюджет запросов к базе в интеграционных тестах: действие выполняется как отдельный входящий запрос,
+ * и тест падает, если Hibernate выполнил больше maxStatements выражений. Требует контекст приложения
+ * с включенной диагностикой (users.diagnostics.enabled, по умолчанию включена).
+ */
+public final class QueryAssertions {
+
+    private QueryAssertions() {
+    }
+
+    public static <T> T assertMaxQueries(int maxStatements, ThrowingSupplier<T> action) {
+        RequestQueries queries = new RequestQueries("test", "assertMaxQueries");
+        T result;
+        try (RequestQueries.Binding ignored = queries.bind()) {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new AssertionError("Action failed", e);
+        }
+        assertThat(queries.statements())
+                .as("SQL statements (%s)", queries.summary())
+                .isLessThanOrEqualTo(maxStatements);
+        return result;
+    }
+
+    public static void assertMaxQueries(int maxStatements, Runnable action) {
+        assertMaxQueries(maxStatements, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
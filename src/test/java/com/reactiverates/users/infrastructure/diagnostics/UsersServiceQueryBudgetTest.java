@@ -0,0 +1,124 @@
+package com.reactiverates.users.infrastructure.diagnostics;
+
+import com.reactiverates.users.TestApplications;
+import com.reactiverates.users.domain.model.CreateUserRequest;
+import com.reactiverates.users.domain.model.UpdateUserRequest;
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.model.UserPageDto;
+import com.reactiverates.users.domain.model.UserQuery;
+import com.reactiverates.users.domain.service.UsersService;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.reactiverates.users.infrastructure.diagnostics.QueryAssertions.assertMaxQueries;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Бюджеты запросов операций UsersService на пути в базу (реплика и фильтр существования выключены):
+ * точечный и пакетный поиск - одно выражение, без N+1 по пользователям пакета.
+ */
+class UsersServiceQueryBudgetTest {
+
+    private static final int USERS = 10;
+
+    private static EmbeddedPostgres postgres;
+    private static ConfigurableApplicationContext context;
+    private static final List<UserDto> created = new ArrayList<>();
+
+    @BeforeAll
+    static void startService() throws Exception {
+        postgres = EmbeddedPostgres.start();
+        context = TestApplications.start(postgres,
+                "--users.directory.enabled=false",
+                "--users.availability-filter.enabled=false");
+        UsersService users = context.getBean(UsersService.class);
+        for (int i = 0; i < USERS; i++) {
+            created.add(users.createUser(new CreateUserRequest(
+                    "budget_user_" + i, "budget_user_" + i + "@example.com", "password123",
+                    "Budget", "User", null, User.UserRole.USER)));
+        }
+    }
+
+    @AfterAll
+    static void stopService() throws Exception {
+        if (context != null) {
+            context.close();
+        }
+        postgres.close();
+    }
+
+    @Test
+    void pointLookupsUseOneStatement() {
+        UsersService users = context.getBean(UsersService.class);
+        UserDto user = created.get(0);
+
+        assertThat(assertMaxQueries(1, () -> users.getUserById(user.id()))).isPresent();
+        assertThat(assertMaxQueries(1, () -> users.getUserByUsername(user.username()))).isPresent();
+        assertThat(assertMaxQueries(1, () -> users.getUserByEmail(user.email()))).isPresent();
+    }
+
+    @Test
+    void batchLookupsDoNotQueryPerUser() {
+        UsersService users = context.getBean(UsersService.class);
+        List<Long> ids = created.stream().map(UserDto::id).toList();
+        List<String> usernames = created.stream().map(UserDto::username).toList();
+
+        assertThat(assertMaxQueries(1, () -> users.getUsersByIds(ids))).hasSize(USERS);
+        assertThat(assertMaxQueries(1, () -> users.getUsersByUsernames(usernames))).hasSize(USERS);
+    }
+
+    @Test
+    void batchUsernameLookupIgnoresCase() {
+        UsersService users = context.getBean(UsersService.class);
+        UserDto user = created.get(2);
+        List<String> usernames = List.of(user.username(), user.username().toUpperCase(), "Budget_User_3");
+
+        // Найденные без учета регистра не уходят в запрос к архиву
+        assertThat(assertMaxQueries(1, () -> users.getUsersByUsernames(usernames)))
+                .extracting(UserDto::id)
+                .containsExactlyInAnyOrder(user.id(), created.get(3).id());
+    }
+
+    @Test
+    void filteredQueryPagesWithOneStatementPerPage() {
+        UsersService users = context.getBean(UsersService.class);
+        List<String> usernames = new ArrayList<>();
+        UserQuery.Cursor cursor = null;
+        do {
+            // '_' в префиксе экранируется и не работает как шаблон LIKE
+            UserQuery query = new UserQuery(User.UserRole.USER, true, null, null, null, null, "Budget_User_",
+                    UserQuery.SortField.USERNAME, true, cursor, 4);
+            UserPageDto page = assertMaxQueries(1, () -> users.queryUsers(query));
+            page.users().forEach(user -> usernames.add(user.username()));
+            cursor = page.nextCursor() != null ? UserQuery.Cursor.decode(page.nextCursor()) : null;
+        } while (cursor != null);
+
+        assertThat(usernames).containsExactlyElementsOf(created.stream()
+                .map(UserDto::username)
+                .sorted(Comparator.reverseOrder())
+                .toList());
+    }
+
+    @Test
+    void writesStayWithinBudget() {
+        UsersService users = context.getBean(UsersService.class);
+
+        // Проверка username и email в users и архиве, затем insert
+        assertMaxQueries(5, () -> users.createUser(new CreateUserRequest(
+                "budget_writer", "budget_writer@example.com", "password123",
+                "Budget", "Writer", null, User.UserRole.USER)));
+        // Чтение и update измененных полей
+        assertMaxQueries(2, () -> users.updateUser(created.get(1).id(),
+                new UpdateUserRequest(null, null, null, "Renamed", null, null, null)));
+    }
+}
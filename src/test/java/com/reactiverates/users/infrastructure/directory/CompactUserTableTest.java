@@ -0,0 +1,123 @@
+package com.reactiverates.users.infrastructure.directory;
+
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.UserDto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactUserTableTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123_456_000);
+
+    @Test
+    void findsUserByIdUsernameAndEmail() {
+        CompactUserTable table = new CompactUserTable(4);
+        UserDto user = user(1, "john", "john@example.com", T0);
+
+        table.upsert(user);
+
+        assertThat(table.read(table.findById(1))).isEqualTo(user);
+        assertThat(table.findByUsername("john")).isEqualTo(table.findById(1));
+        assertThat(table.findByEmail("john@example.com")).isEqualTo(table.findById(1));
+        assertThat(table.findByUsername("jane")).isNegative();
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    void findsUsernameIgnoringCase() {
+        CompactUserTable table = new CompactUserTable(4);
+        UserDto user = user(1, "John.Doe", "john@example.com", T0);
+
+        table.upsert(user);
+
+        assertThat(table.findByUsername("john.doe")).isEqualTo(table.findById(1));
+        assertThat(table.findByUsername("JOHN.DOE")).isEqualTo(table.findById(1));
+        assertThat(table.read(table.findByUsername("john.doe")).username()).isEqualTo("John.Doe");
+
+        table.upsert(user(1, "Johnny", "john@example.com", T0.plusSeconds(1)));
+        assertThat(table.findByUsername("john.doe")).isNegative();
+        assertThat(table.findByUsername("JOHNNY")).isEqualTo(table.findById(1));
+    }
+
+    @Test
+    void keepsNullFields() {
+        CompactUserTable table = new CompactUserTable(4);
+        UserDto user = new UserDto(7L, "nulls", "nulls@example.com", null, null, null, null, null, null, null, null);
+
+        table.upsert(user);
+
+        assertThat(table.read(table.findById(7))).isEqualTo(user);
+        assertThat(table.watermark()).isEqualTo(CompactUserTable.NULL_TIME);
+    }
+
+    @Test
+    void updateReindexesRenamedUserAndIgnoresOlderVersion() {
+        CompactUserTable table = new CompactUserTable(4);
+        table.upsert(user(1, "john", "john@example.com", T0));
+
+        assertThat(table.upsert(user(1, "johnny", "johnny@example.com", T0.plusSeconds(1)))).isTrue();
+        assertThat(table.findByUsername("john")).isNegative();
+        assertThat(table.findByEmail("john@example.com")).isNegative();
+        assertThat(table.read(table.findByUsername("johnny")).email()).isEqualTo("johnny@example.com");
+
+        assertThat(table.upsert(user(1, "stale", "stale@example.com", T0))).isFalse();
+        assertThat(table.findByUsername("stale")).isNegative();
+        assertThat(table.watermark()).isEqualTo(CompactUserTable.toMicros(T0.plusSeconds(1)));
+    }
+
+    @Test
+    void removedSlotIsReused() {
+        CompactUserTable table = new CompactUserTable(4);
+        table.upsert(user(1, "john", "john@example.com", T0));
+        table.upsert(user(2, "jane", "jane@example.com", T0));
+        int slot = table.findById(1);
+
+        assertThat(table.remove(1)).isTrue();
+        assertThat(table.remove(1)).isFalse();
+        assertThat(table.findById(1)).isNegative();
+        assertThat(table.findByUsername("john")).isNegative();
+
+        table.upsert(user(3, "jack", "jack@example.com", T0));
+        assertThat(table.findById(3)).isEqualTo(slot);
+        assertThat(table.size()).isEqualTo(2);
+    }
+
+    @Test
+    void retainIfRemovesRejectedIds() {
+        CompactUserTable table = new CompactUserTable(4);
+        for (long id = 1; id <= 10; id++) {
+            table.upsert(user(id, "user" + id, "user" + id + "@example.com", T0));
+        }
+
+        assertThat(table.retainIf(id -> id % 2 == 0)).isEqualTo(5);
+        assertThat(table.size()).isEqualTo(5);
+        assertThat(table.findById(3)).isNegative();
+        assertThat(table.read(table.findByUsername("user4")).id()).isEqualTo(4L);
+    }
+
+    @Test
+    void growsAndCompactsHeapUnderRepeatedUpdates() {
+        CompactUserTable table = new CompactUserTable(16);
+        String padding = "x".repeat(1024);
+        for (int version = 0; version < 200; version++) {
+            for (long id = 1; id <= 50; id++) {
+                table.upsert(new UserDto(id, "user" + id, "user" + id + "@example.com", padding + version, null,
+                        null, User.UserRole.USER, true, T0, T0.plusSeconds(version), "hash"));
+            }
+        }
+
+        assertThat(table.size()).isEqualTo(50);
+        assertThat(table.read(table.findByUsername("user25")).firstName()).isEqualTo(padding + 199);
+        // Живые строки - около 50 * 1 KB; без компакции буфер вырос бы до ~10 MB мусора
+        assertThat(table.heap().length).isLessThan(8 << 20);
+    }
+
+    static UserDto user(long id, String username, String email, LocalDateTime updatedAt) {
+        return new UserDto(id, username, email, "First", "Last", "+7 999 000-00-00",
+                User.UserRole.MODERATOR, true, T0.minusDays(1), updatedAt, "hash-" + id);
+    }
+}
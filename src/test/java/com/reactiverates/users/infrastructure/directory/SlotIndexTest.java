@@ -0,0 +1,57 @@
+package com.reactiverates.users.infrastructure.directory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlotIndexTest {
+
+    @Test
+    void resolvesCollidingHashesThroughMatcher() {
+        SlotIndex index = new SlotIndex(4);
+        index.insert(42, 0);
+        index.insert(42, 1);
+        index.insert(42, 2);
+
+        assertThat(index.find(42, slot -> slot == 1)).isEqualTo(1);
+        assertThat(index.find(42, slot -> slot == 2)).isEqualTo(2);
+        assertThat(index.find(42, slot -> slot == 3)).isEqualTo(-1);
+        assertThat(index.find(7, slot -> true)).isEqualTo(-1);
+    }
+
+    @Test
+    void removeLeavesTombstoneForLaterEntriesInProbeChain() {
+        SlotIndex index = new SlotIndex(4);
+        index.insert(42, 0);
+        index.insert(42, 1);
+
+        assertThat(index.remove(42, 0)).isTrue();
+        assertThat(index.remove(42, 0)).isFalse();
+        assertThat(index.find(42, slot -> slot == 0)).isEqualTo(-1);
+        assertThat(index.find(42, slot -> slot == 1)).isEqualTo(1);
+    }
+
+    @Test
+    void keepsEntriesAcrossRehash() {
+        SlotIndex index = new SlotIndex(4);
+        for (int slot = 0; slot < 10_000; slot++) {
+            index.insert(SlotIndex.mix(slot), slot);
+        }
+        for (int slot = 0; slot < 10_000; slot += 2) {
+            index.remove(SlotIndex.mix(slot), slot);
+        }
+        // Повторные вставки и удаления переиспользуют tombstone и не зацикливают пробирование
+        for (int round = 0; round < 10; round++) {
+            for (int slot = 0; slot < 10_000; slot += 2) {
+                index.insert(SlotIndex.mix(slot), slot);
+                index.remove(SlotIndex.mix(slot), slot);
+            }
+        }
+
+        for (int slot = 0; slot < 10_000; slot++) {
+            int expected = slot % 2 == 0 ? -1 : slot;
+            int current = slot;
+            assertThat(index.find(SlotIndex.mix(slot), candidate -> candidate == current)).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.reactiverates.users.infrastructure.directory;
+
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.infrastructure.persistence.entity.UserEntity;
+import com.reactiverates.users.infrastructure.persistence.repository.UsersRepository;
+import com.reactiverates.users.infrastructure.sharding.ShardTopology;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.reactiverates.users.infrastructure.directory.CompactUserTableTest.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Старт из снапшота: догрузка по watermark с окном перекрытия и сверка удалений по id.
+ */
+class UserDirectoryLoaderTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 1, 12, 0);
+    private static final long OVERLAP_MS = 60_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void catchesUpFromWatermarkMinusOverlapAndDropsDeletedUsers() {
+        Path snapshot = directory.resolve("users.snap");
+        UsersRepository repository = mock(UsersRepository.class);
+        writeSnapshot(snapshot, repository,
+                user(1, "alice", "alice@example.com", T0),
+                user(2, "bob", "bob@example.com", T0.plusMinutes(1)),
+                user(3, "carol", "carol@example.com", T0.plusMinutes(2)));
+
+        // После снапшота: bob переименован, carol удалена, dave создан; строка bob закоммичена
+        // с updated_at раньше watermark (T0 + 2 мин), но внутри окна перекрытия
+        LocalDateTime since = T0.plusMinutes(2).minusSeconds(60);
+        UserDto renamed = user(2, "bobby", "bobby@example.com", T0.plusMinutes(1).plusSeconds(30));
+        UserDto created = user(4, "dave", "dave@example.com", T0.plusMinutes(3));
+        when(repository.findByUpdatedAtGreaterThanEqual(since))
+                .thenReturn(List.of(UserEntity.fromDomain(renamed.toDomain()), UserEntity.fromDomain(created.toDomain())));
+        when(repository.count()).thenReturn(3L);
+        when(repository.findAllIds()).thenReturn(List.of(1L, 2L, 4L));
+
+        UserDirectory restored = new UserDirectory(4);
+        loader(restored, repository, snapshot).warmUp();
+
+        assertThat(restored.isReady()).isTrue();
+        assertThat(restored.size()).isEqualTo(3);
+        assertThat(restored.findByUsername("bobby")).contains(renamed);
+        assertThat(restored.findByUsername("bob")).isEmpty();
+        assertThat(restored.findById(3L)).isEmpty();
+        assertThat(restored.findById(4L)).contains(created);
+        verify(repository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void skipsIdReconciliationWhenCountsMatch() {
+        Path snapshot = directory.resolve("users.snap");
+        UsersRepository repository = mock(UsersRepository.class);
+        writeSnapshot(snapshot, repository,
+                user(1, "alice", "alice@example.com", T0),
+                user(2, "bob", "bob@example.com", T0));
+        when(repository.findByUpdatedAtGreaterThanEqual(T0.minusSeconds(60))).thenReturn(List.of());
+        when(repository.count()).thenReturn(2L);
+
+        UserDirectory restored = new UserDirectory(4);
+        loader(restored, repository, snapshot).warmUp();
+
+        assertThat(restored.size()).isEqualTo(2);
+        verify(repository, never()).findAllIds();
+    }
+
+    private void writeSnapshot(Path snapshot, UsersRepository repository, UserDto... users) {
+        UserDirectory source = new UserDirectory(4);
+        source.upsertAll(List.of(users));
+        source.markReady();
+        loader(source, repository, snapshot).snapshot();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UserDirectoryLoader loader(UserDirectory directory, UsersRepository repository, Path snapshot) {
+        ObjectProvider<ShardTopology> shards = mock(ObjectProvider.class);
+        return new UserDirectoryLoader(directory, repository, shards, snapshot, 1000, OVERLAP_MS);
+    }
+}
@@ -0,0 +1,63 @@
+package com.reactiverates.users.infrastructure.directory;
+
+import com.reactiverates.users.domain.model.UserDto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static com.reactiverates.users.infrastructure.directory.CompactUserTableTest.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserDirectorySnapshotStoreTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsLiveUsersAndWatermark() throws IOException {
+        CompactUserTable source = new CompactUserTable(4);
+        for (long id = 1; id <= 100; id++) {
+            source.upsert(user(id, "user" + id, "user" + id + "@example.com", T0.plusMinutes(id)));
+        }
+        source.upsert(new UserDto(101L, "nulls", "nulls@example.com", null, null, null, null, null, null, null, null));
+        source.upsert(new UserDto(102L, "юзер", "юзер@пример.рф", "Имя", "Фамилия", null, null, true, T0, T0, "hash"));
+        source.remove(50);
+        source.upsert(user(7, "renamed", "renamed@example.com", T0.plusDays(1)));
+
+        UserDirectorySnapshotStore store = new UserDirectorySnapshotStore(directory.resolve("users.snap"));
+        assertThat(store.exists()).isFalse();
+        assertThat(store.write(store.encode(source))).isEqualTo(101);
+        assertThat(store.exists()).isTrue();
+        assertThat(Files.exists(directory.resolve("users.snap.tmp"))).isFalse();
+
+        CompactUserTable restored = new CompactUserTable(4);
+        assertThat(store.read(restored)).isEqualTo(101);
+
+        assertThat(restored.size()).isEqualTo(source.size());
+        assertThat(restored.watermark()).isEqualTo(source.watermark());
+        assertThat(restored.findById(50)).isNegative();
+        assertThat(restored.findByUsername("user7")).isNegative();
+        for (long id : new long[] {1, 7, 49, 51, 100, 101, 102}) {
+            assertThat(restored.read(restored.findById(id))).isEqualTo(source.read(source.findById(id)));
+        }
+        assertThat(restored.read(restored.findByEmail("юзер@пример.рф")).firstName()).isEqualTo("Имя");
+        assertThat(restored.read(restored.findByUsername("renamed")).id()).isEqualTo(7L);
+    }
+
+    @Test
+    void rejectsForeignFile() throws IOException {
+        Path file = directory.resolve("garbage.snap");
+        Files.write(file, new byte[64]);
+
+        assertThatThrownBy(() -> new UserDirectorySnapshotStore(file).read(new CompactUserTable(4)))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,115 @@
+package com.reactiverates.users.infrastructure.grpc;
+
+import com.reactiverates.users.infrastructure.drain.InFlightCalls;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Учет вызовов за bulkhead: вызов, который bulkhead отклонил и закрыл в обход интерсептора,
+ * освобождает место в {@link InFlightCalls} по onComplete.
+ */
+class DrainServerInterceptorTest {
+
+    private static final MethodDescriptor<Object, Object> GET_USER_BY_ID = MethodDescriptor.newBuilder()
+            .setType(MethodDescriptor.MethodType.UNARY)
+            .setFullMethodName("users.UsersService/GetUserById")
+            .setRequestMarshaller(marshaller())
+            .setResponseMarshaller(marshaller())
+            .build();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InFlightCalls inFlightCalls = new InFlightCalls(meterRegistry);
+    private final DrainServerInterceptor drain = new DrainServerInterceptor(inFlightCalls);
+    // Один поток без очереди: пока он занят, следующий вызов отклоняется
+    private final BulkheadServerInterceptor bulkhead = new BulkheadServerInterceptor(new GrpcBulkheadProperties(
+            true, new GrpcBulkheadProperties.Pool(1, 0, null), null, null), meterRegistry);
+
+    @AfterEach
+    void shutdown() {
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void rejectedCallLeavesInFlightCountOnComplete() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ServerCallHandler<Object, Object> service = (call, headers) -> new ServerCall.Listener<>() {
+            @Override
+            public void onMessage(Object message) {
+                started.countDown();
+                await(release);
+                call.close(Status.OK, new Metadata());
+            }
+        };
+
+        ServerCall<Object, Object> busyCall = call();
+        ServerCall.Listener<Object> busy = start(busyCall, service);
+        busy.onMessage("first");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        ServerCall<Object, Object> rejectedCall = call();
+        ServerCall.Listener<Object> rejected = start(rejectedCall, service);
+        assertThat(inFlightCalls.active()).isEqualTo(2);
+        rejected.onMessage("second");
+        ArgumentCaptor<Status> status = ArgumentCaptor.forClass(Status.class);
+        verify(rejectedCall).close(status.capture(), any());
+        assertThat(status.getValue().getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+        // Транспорт завершает закрытый вызов
+        rejected.onComplete();
+        assertThat(inFlightCalls.active()).isEqualTo(1);
+
+        release.countDown();
+        verify(busyCall, timeout(5_000)).close(any(), any());
+        busy.onComplete();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (inFlightCalls.active() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(inFlightCalls.active()).isZero();
+    }
+
+    // Порядок как в сервере: bulkhead снаружи, учет вызовов внутри
+    private ServerCall.Listener<Object> start(ServerCall<Object, Object> call, ServerCallHandler<Object, Object> service) {
+        return bulkhead.interceptCall(call, new Metadata(),
+                (guarded, headers) -> drain.interceptCall(guarded, headers, service));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ServerCall<Object, Object> call() {
+        ServerCall<Object, Object> call = mock(ServerCall.class);
+        when(call.getMethodDescriptor()).thenReturn(GET_USER_BY_ID);
+        return call;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MethodDescriptor.Marshaller<Object> marshaller() {
+        return mock(MethodDescriptor.Marshaller.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.reactiverates.users.infrastructure.grpc;
+
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.service.UsersService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Батчинг GetUserByUsername: запросы одного username в разном регистре попадают в один батч
+ * и разрешаются одним пользователем.
+ */
+class UserLookupBatcherTest {
+
+    private UserLookupBatcher batcher;
+
+    @AfterEach
+    void shutdown() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mixedCaseUsernamesInOneBatchResolveToTheSameUser() throws Exception {
+        UserDto alice = user(1L, "alice");
+        UserDto bob = user(2L, "Bob");
+        UsersService usersService = mock(UsersService.class);
+        // Дубликат в ответе - как у реплики, нашедшей пользователя по двум написаниям
+        when(usersService.getUsersByUsernames(any())).thenReturn(List.of(alice, bob, alice));
+        batcher = new UserLookupBatcher(usersService, 100, 50_000, 1);
+
+        List<CompletableFuture<Optional<UserDto>>> lookups = List.of(
+                batcher.byUsername("Alice"), batcher.byUsername("alice"), batcher.byUsername("ALICE"),
+                batcher.byUsername("bob"), batcher.byUsername("carol"));
+
+        assertThat(lookups.get(0).get(5, TimeUnit.SECONDS)).contains(alice);
+        assertThat(lookups.get(1).get(5, TimeUnit.SECONDS)).contains(alice);
+        assertThat(lookups.get(2).get(5, TimeUnit.SECONDS)).contains(alice);
+        assertThat(lookups.get(3).get(5, TimeUnit.SECONDS)).contains(bob);
+        assertThat(lookups.get(4).get(5, TimeUnit.SECONDS)).isEmpty();
+        ArgumentCaptor<Collection<String>> keys = ArgumentCaptor.forClass(Collection.class);
+        verify(usersService).getUsersByUsernames(keys.capture());
+        assertThat(keys.getValue()).containsExactlyInAnyOrder("alice", "bob", "carol");
+    }
+
+    private static UserDto user(long id, String username) {
+        return UserDto.fromDomain(User.builder()
+                .id(id)
+                .username(username)
+                .email(username + "@example.com")
+                .role(User.UserRole.USER)
+                .isActive(true)
+                .build());
+    }
+}
@@ -0,0 +1,128 @@
+package com.reactiverates.users.infrastructure.invalidation;
+
+import com.reactiverates.users.TestApplications;
+import com.reactiverates.users.domain.model.CreateUserRequest;
+import com.reactiverates.users.domain.model.UpdateUserRequest;
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.service.UsersService;
+import com.reactiverates.users.infrastructure.availability.UserAvailabilityIndex;
+import com.reactiverates.users.infrastructure.directory.UserDirectory;
+import com.reactiverates.users.infrastructure.security.TokenRevocationRegistry;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Два экземпляра сервиса в одной JVM на общем встроенном PostgreSQL:
+ * изменения, сделанные через первый, должны дойти до реплики, фильтра и отзыва токенов второго,
+ * явные отзывы токенов - через token_revocations.
+ */
+class UserInvalidationBusTest {
+
+    private static final Duration PROPAGATION_TIMEOUT = Duration.ofSeconds(10);
+
+    @TempDir
+    static Path snapshots;
+
+    private static EmbeddedPostgres postgres;
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+
+    @BeforeAll
+    static void startInstances() throws Exception {
+        postgres = EmbeddedPostgres.start();
+        // Последовательно: миграции Flyway выполняет первый экземпляр
+        first = startInstance("first");
+        second = startInstance("second");
+    }
+
+    @AfterAll
+    static void stopInstances() throws Exception {
+        if (second != null) {
+            second.close();
+        }
+        if (first != null) {
+            first.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void changesOnOneInstanceInvalidateTheOther() {
+        UsersService writer = first.getBean(UsersService.class);
+        UserDirectory remoteDirectory = second.getBean(UserDirectory.class);
+        UserAvailabilityIndex remoteFilter = second.getBean(UserAvailabilityIndex.class);
+        TokenRevocationRegistry remoteRevocations = second.getBean(TokenRevocationRegistry.class);
+
+        UserDto created = writer.createUser(new CreateUserRequest(
+                "bus_user", "bus_user@example.com", "password123", "Bus", "User", null, User.UserRole.USER));
+        awaitTrue(() -> remoteDirectory.findById(created.id()).isPresent());
+        assertThat(remoteFilter.isUsernameDefinitelyAbsent("bus_user")).isFalse();
+        assertThat(remoteFilter.isEmailDefinitelyAbsent("bus_user@example.com")).isFalse();
+
+        Date issuedBeforeChange = Date.from(Instant.now().minusSeconds(5));
+        writer.updateUser(created.id(), new UpdateUserRequest(
+                null, null, null, null, null, null, User.UserRole.MODERATOR, null));
+        awaitTrue(() -> remoteDirectory.findById(created.id())
+                .map(user -> user.role() == User.UserRole.MODERATOR)
+                .orElse(false));
+        assertThat(remoteRevocations.isRevoked("bus_user", issuedBeforeChange, null, null)).isTrue();
+
+        assertThat(writer.deleteUser(created.id())).isTrue();
+        awaitTrue(() -> remoteDirectory.findById(created.id()).isEmpty());
+        assertThat(first.getBean(UserDirectory.class).findById(created.id())).isEqualTo(Optional.empty());
+    }
+
+    @Test
+    void explicitTokenRevocationsReachTheOtherInstance() {
+        TokenRevocationRegistry local = first.getBean(TokenRevocationRegistry.class);
+        TokenRevocationRegistry remote = second.getBean(TokenRevocationRegistry.class);
+        Date expiresAt = Date.from(Instant.now().plusSeconds(600));
+        Date issuedBefore = Date.from(Instant.now().minusSeconds(5));
+
+        local.revokeToken("logged-out-jti", expiresAt);
+        local.revokeIssuedBefore("revoked_user", Instant.now());
+
+        awaitTrue(() -> remote.isRevoked("someone", issuedBefore, "logged-out-jti", expiresAt));
+        awaitTrue(() -> remote.isRevoked("revoked_user", issuedBefore, null, null));
+        assertThat(remote.isRevoked("someone", issuedBefore, "other-jti", expiresAt)).isFalse();
+    }
+
+    private static ConfigurableApplicationContext startInstance(String name) {
+        return TestApplications.start(postgres,
+                "--users.directory.enabled=true",
+                "--users.directory.snapshot-path=" + snapshots.resolve(name + ".snap"),
+                "--users.invalidation.enabled=true",
+                "--users.invalidation.poll-interval-ms=200");
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + PROPAGATION_TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("invalidation propagated in time").isLessThan(deadline);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.reactiverates.users.infrastructure.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.UserDto;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ручной сериализатор UserDto должен выдавать тот же JSON, что и рефлексивный путь Jackson.
+ * Сравнение скорости - в группе load: ./mvnw test -Pload-test -Dtest=UserDtoJsonSerializerTest
+ */
+class UserDtoJsonSerializerTest {
+
+    private static final ObjectMapper REFLECTIVE = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private static final ObjectMapper SPECIALIZED = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .registerModule(new SimpleModule().addSerializer(UserDto.class, new UserDtoJsonSerializer()))
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void matchesReflectiveOutput() throws Exception {
+        List<UserDto> users = List.of(
+                user(1L, LocalDateTime.of(2024, 1, 1, 10, 0)),
+                user(2L, LocalDateTime.of(2024, 2, 29, 23, 59, 59, 120_000_000)),
+                user(3L, LocalDateTime.of(1999, 12, 31, 0, 0, 5, 123_456_789)),
+                user(4L, LocalDateTime.of(2024, 6, 1, 8, 30, 0, 1_000)),
+                user(5L, LocalDateTime.of(12024, 6, 1, 8, 30)),
+                new UserDto(null, "nulls", null, null, null, null, null, null, null, null, null),
+                new UserDto(6L, "esc\"ape\\", "юникод@example.com", "Имя\n", "\u0001", null,
+                        User.UserRole.ADMIN, false, LocalDateTime.of(2024, 1, 1, 0, 0), null, "$2a$10$hash"));
+
+        for (UserDto user : users) {
+            assertThat(SPECIALIZED.writeValueAsString(user)).isEqualTo(REFLECTIVE.writeValueAsString(user));
+        }
+        assertThat(SPECIALIZED.writeValueAsString(users)).isEqualTo(REFLECTIVE.writeValueAsString(users));
+    }
+
+    @Test
+    void timestampsAsNumbersFollowObjectMapperSettings() throws Exception {
+        UserDto user = user(1L, LocalDateTime.of(2024, 2, 29, 23, 59, 59, 120_000_000));
+        ObjectMapper reflective = REFLECTIVE.copy().enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ObjectMapper specialized = SPECIALIZED.copy().enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        assertThat(specialized.writeValueAsString(user)).isEqualTo(reflective.writeValueAsString(user));
+    }
+
+    @Test
+    @Tag("load")
+    void compareThroughputWithReflectivePath() throws Exception {
+        List<UserDto> page = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            page.add(user(id, LocalDateTime.now().minusSeconds(ThreadLocalRandom.current().nextInt(1_000_000))));
+        }
+        ObjectWriter reflective = REFLECTIVE.writerFor(REFLECTIVE.getTypeFactory().constructCollectionType(List.class, UserDto.class));
+        ObjectWriter specialized = SPECIALIZED.writerFor(SPECIALIZED.getTypeFactory().constructCollectionType(List.class, UserDto.class));
+
+        // Прогрев JIT обоих путей, затем поочередные замеры
+        measure(reflective, page, 2_000);
+        measure(specialized, page, 2_000);
+        double reflectiveMicros = measure(reflective, page, 5_000);
+        double specializedMicros = measure(specialized, page, 5_000);
+
+        String report = String.format(Locale.ROOT,
+                "List<UserDto> x%d: reflective %.1f us/op, specialized %.1f us/op, speedup %.2fx%n",
+                page.size(), reflectiveMicros, specializedMicros, reflectiveMicros / specializedMicros);
+        System.out.print(report);
+        Files.writeString(Path.of("target", "user-json-report.txt"), report, StandardCharsets.UTF_8);
+        assertThat(specializedMicros).isLessThan(reflectiveMicros);
+    }
+
+    private static double measure(ObjectWriter writer, List<UserDto> page, int iterations) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            writer.writeValue(OutputStream.nullOutputStream(), page);
+        }
+        return (System.nanoTime() - start) / 1000.0 / iterations;
+    }
+
+    private static UserDto user(Long id, LocalDateTime createdAt) {
+        return new UserDto(id, "user_" + id, "user_" + id + "@example.com", "First", "Last", "+7 (999) 123-45-67",
+                User.UserRole.USER, true, createdAt, createdAt.plusHours(1), "$2a$10$abcdefghijklmnopqrstuv");
+    }
+}
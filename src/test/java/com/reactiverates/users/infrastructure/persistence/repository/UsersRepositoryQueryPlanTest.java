@@ -0,0 +1,257 @@
+package com.reactiverates.users.infrastructure.persistence.repository;
+
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.UserQuery;
+import com.reactiverates.users.infrastructure.persistence.entity.UserEntity;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import jakarta.persistence.EntityManager;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что каждый точечный запрос репозиториев обслуживается индексом из миграций.
+ * Методы репозиториев вызываются по-настоящему, план строится для SQL, который Hibernate
+ * и JdbcTemplate передали драйверу, с подставленными значениями параметров.
+ * Сканы всей таблицы по определению (findAll, findAllIds, findAllIdentities) и поиск
+ * по подстроке LIKE '%...%' (findByNameContaining, findBySearchTerm) сюда не входят.
+ */
+class UsersRepositoryQueryPlanTest {
+
+    private static final List<String> executed = new CopyOnWriteArrayList<>();
+
+    private static EmbeddedPostgres postgres;
+    private static LocalContainerEntityManagerFactoryBean entityManagerFactory;
+    private static UsersRepository repository;
+    private static UsersArchiveRepository archive;
+
+    @BeforeAll
+    static void migrate() throws Exception {
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO users (username, email, password, role, is_active, created_at, updated_at)
+                    SELECT 'user' || i, 'user' || i || '@example.com', 'hash',
+                           (ARRAY['USER', 'MODERATOR', 'ADMIN'])[1 + i % 3], i % 10 <> 0,
+                           now() - i * interval '1 minute', now() - i * interval '1 minute'
+                    FROM generate_series(1, 10000) AS i
+                    """);
+            statement.execute("""
+                    INSERT INTO users_archive (id, username, email, password, role, is_active, created_at, updated_at)
+                    SELECT 100000 + i, 'archived' || i, 'archived' || i || '@example.com', 'hash', 'USER', false,
+                           now() - interval '3 years', now() - interval '2 years'
+                    FROM generate_series(1, 10000) AS i
+                    """);
+            statement.execute("ANALYZE users");
+            statement.execute("ANALYZE users_archive");
+        }
+
+        DataSource dataSource = recording(postgres.getPostgresDatabase());
+        entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setPackagesToScan(UserEntity.class.getPackageName());
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactory.afterPropertiesSet();
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory.getObject());
+        repository = new JpaRepositoryFactory(entityManager).getRepository(UsersRepository.class);
+        archive = new UsersArchiveRepository(new JdbcTemplate(dataSource));
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        entityManagerFactory.destroy();
+        postgres.close();
+    }
+
+    static Stream<Arguments> repositoryQueries() {
+        LocalDateTime now = LocalDateTime.now();
+        return Stream.of(
+                query("findById", () -> repository.findById(42L)),
+                query("findByUsername", () -> repository.findByUsername("user42")),
+                query("findByUsernameIn", () -> repository.findByUsernameIn(List.of("user1", "user2", "user3"))),
+                query("findByEmail", () -> repository.findByEmail("User42@Example.com")),
+                query("existsByUsername", () -> repository.existsByUsername("User42")),
+                query("existsByEmail", () -> repository.existsByEmail("user42@example.com")),
+                query("findByRole", () -> repository.findByRole(User.UserRole.ADMIN)),
+                query("findByIsActive(true)", () -> repository.findByIsActive(true)),
+                query("findByIsActive(false)", () -> repository.findByIsActive(false)),
+                query("findByPrefix", () -> repository.findByPrefix("user12", PageRequest.of(0, 10))),
+                query("findByUpdatedAtGreaterThanEqual",
+                        () -> repository.findByUpdatedAtGreaterThanEqual(now.minusMinutes(5))),
+                query("countByRoleAndActive", () -> repository.countByRoleAndActive()),
+                query("countSignups", () -> repository.countSignups("week", now.minusDays(30), now)),
+                query("findByQuery keyset scan", () -> repository.findByQuery(new UserQuery(
+                        User.UserRole.USER, true, null, null, null, null, null, UserQuery.SortField.ID, false,
+                        new UserQuery.Cursor(UserQuery.SortField.ID, false, 5000, "5000"), 50), 51)),
+                query("findByQuery created range", () -> repository.findByQuery(new UserQuery(
+                        null, null, LocalDate.now().minusDays(7), LocalDate.now(), null, null, null,
+                        UserQuery.SortField.CREATED_AT, false, null, 50), 51)),
+                query("findByQuery updated keyset desc", () -> repository.findByQuery(new UserQuery(
+                        null, null, null, null, null, null, null, UserQuery.SortField.UPDATED_AT, true,
+                        new UserQuery.Cursor(UserQuery.SortField.UPDATED_AT, true, 500,
+                                now.minusMinutes(10).toString()), 50), 51)),
+                query("findByQuery username keyset", () -> repository.findByQuery(new UserQuery(
+                        null, null, null, null, null, null, null, UserQuery.SortField.USERNAME, false,
+                        new UserQuery.Cursor(UserQuery.SortField.USERNAME, false, 500, "user500"), 50), 51)),
+                query("findByQuery namePrefix", () -> repository.findByQuery(new UserQuery(
+                        null, null, null, null, null, null, "User12", UserQuery.SortField.ID, false, null, 50), 51)),
+                query("archiveBatch", () -> archive.archiveBatch(now.minusDays(365), LocalDateTime.of(1970, 1, 1, 0, 0), 500)),
+                query("archive findById", () -> archive.findById(42L)),
+                query("archive findByUsername", () -> archive.findByUsername("User42")),
+                query("archive findByEmail", () -> archive.findByEmail("user42@example.com")));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void queryUsesIndex(String method, Runnable call) throws Exception {
+        executed.clear();
+        call.run();
+        assertThat(executed).as("SQL executed by %s", method).isNotEmpty();
+        for (String sql : executed) {
+            assertThat(explain(sql)).as("plan for %s: %s", method, sql).doesNotContain("Seq Scan");
+        }
+    }
+
+    private static Arguments query(String method, Runnable call) {
+        return Arguments.of(method, call);
+    }
+
+    // enable_seqscan = off: seq scan остается в плане, только если подходящего индекса нет вообще
+    private static String explain(String sql) throws Exception {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SET enable_seqscan = off");
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    /**
+     * DataSource, записывающий каждое выполненное подготовленное выражение с подставленными значениями
+     * параметров: план строится для того же SQL и тех же значений, что видит PostgreSQL.
+     */
+    private static DataSource recording(DataSource target) {
+        return new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                return proxy(Connection.class, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if ("prepareStatement".equals(method.getName())) {
+                        return recordingStatement((PreparedStatement) result, (String) args[0]);
+                    }
+                    return result;
+                });
+            }
+        };
+    }
+
+    private static PreparedStatement recordingStatement(PreparedStatement statement, String sql) {
+        Map<Integer, Object> parameters = new HashMap<>();
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, "setNull".equals(name) ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                parameters.clear();
+            } else if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                executed.add(inline(sql, parameters));
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    // Заменяет плейсхолдеры ? вне строковых литералов значениями параметров
+    private static String inline(String sql, Map<Integer, Object> parameters) {
+        StringBuilder inlined = new StringBuilder(sql.length());
+        boolean quoted = false;
+        int index = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (c == '?' && !quoted) {
+                inlined.append(literal(parameters.get(++index)));
+            } else {
+                inlined.append(c);
+            }
+        }
+        return inlined.toString();
+    }
+
+    private static String literal(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof Object[] array) {
+            return quote(Arrays.stream(array).map(e -> "\"" + e + "\"").collect(Collectors.joining(",", "{", "}")));
+        }
+        return quote(value.toString());
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.reactiverates.users.infrastructure.sharding;
+
+import com.reactiverates.users.TestApplications;
+import com.reactiverates.users.domain.model.CreateUserRequest;
+import com.reactiverates.users.domain.model.User;
+import com.reactiverates.users.domain.model.UserDto;
+import com.reactiverates.users.domain.model.UserPageDto;
+import com.reactiverates.users.domain.model.UserQuery;
+import com.reactiverates.users.domain.model.UserStatsDto;
+import com.reactiverates.users.domain.model.UserSuggestionDto;
+import com.reactiverates.users.domain.service.UsersService;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Сервис на двух встроенных PostgreSQL: пользователи распределяются по шардам, id кодирует шард,
+ * lookup и списки видят пользователей обоих шардов, уникальность username/email глобальная,
+ * постраничная выдача queryUsers и подсказки сливают шарды в порядке запроса.
+ */
+class ShardedUsersTest {
+
+    private static final int SHARDS = 2;
+
+    private static final List<EmbeddedPostgres> databases = new ArrayList<>();
+    private static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void startService() throws Exception {
+        List<String> args = new ArrayList<>(List.of("--users.sharding.enabled=true"));
+        for (int shard = 0; shard < SHARDS; shard++) {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            databases.add(postgres);
+            args.add("--users.sharding.shards[" + shard + "].url=" + postgres.getJdbcUrl("postgres", "postgres"));
+            args.add("--users.sharding.shards[" + shard + "].username=postgres");
+            args.add("--users.sharding.shards[" + shard + "].password=postgres");
+        }
+        // spring.datasource - шард 0: автоконфигурация требует его и при замене основного DataSource
+        context = TestApplications.start(databases.get(0), args.toArray(String[]::new));
+    }
+
+    @AfterAll
+    static void stopService() throws Exception {
+        if (context != null) {
+            context.close();
+        }
+        for (EmbeddedPostgres postgres : databases) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void usersAreSpreadAcrossShardsAndVisibleFromAnyLookup() {
+        UsersService users = context.getBean(UsersService.class);
+        List<UserDto> created = new ArrayList<>();
+        for (int i = 0; i < 50 && (countOn(0) < 2 || countOn(1) < 2); i++) {
+            created.add(users.createUser(new CreateUserRequest(
+                    "shard_user_" + i, "shard_user_" + i + "@example.com", "password123",
+                    "Shard", "User", null, User.UserRole.USER)));
+        }
+        assertThat(countOn(0)).isGreaterThanOrEqualTo(2);
+        assertThat(countOn(1)).isGreaterThanOrEqualTo(2);
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            List<Long> ids = jdbc(shard).queryForList("SELECT id FROM users", Long.class);
+            int expected = shard;
+            assertThat(ids).allMatch(id -> Math.floorMod(id, SHARDS) == expected);
+        }
+
+        // Сравнение по id: точность временных меток после чтения из базы ниже, чем у созданного объекта
+        for (UserDto user : created) {
+            assertThat(users.getUserById(user.id())).map(UserDto::id).contains(user.id());
+            assertThat(users.getUserByUsername(user.username().toUpperCase())).map(UserDto::id).contains(user.id());
+            assertThat(users.getUserByEmail(user.email())).map(UserDto::id).contains(user.id());
+        }
+        List<Long> createdIds = created.stream().map(UserDto::id).toList();
+        assertThat(users.getAllUsers()).extracting(UserDto::id).containsAll(createdIds);
+        assertThat(users.getUsersByIds(createdIds)).extracting(UserDto::id)
+                .containsExactlyInAnyOrderElementsOf(createdIds);
+
+        UserStatsDto stats = users.getUserStats(LocalDate.now().minusDays(1), LocalDate.now(), UserStatsDto.Granularity.DAY);
+        assertThat(stats.total()).isEqualTo(countOn(0) + countOn(1));
+    }
+
+    @Test
+    void usernameAndEmailAreUniqueAcrossShards() {
+        UsersService users = context.getBean(UsersService.class);
+        users.createUser(new CreateUserRequest(
+                "unique_owner", "unique_owner@example.com", "password123", "Unique", "Owner", null, User.UserRole.USER));
+
+        // Другой username - скорее всего другой шард, но email уже занят на первом
+        for (int i = 0; i < 4; i++) {
+            String username = "unique_other_" + i;
+            assertThatThrownBy(() -> users.createUser(new CreateUserRequest(
+                    username, "UNIQUE_OWNER@example.com", "password123", "Unique", "Other", null, User.UserRole.USER)))
+                    .isInstanceOf(RuntimeException.class);
+            assertThat(users.getUserByUsername(username)).isEmpty();
+        }
+        assertThat(context.getBean(UserIdentityCatalog.class).existsByEmail("unique_owner@example.com")).isTrue();
+    }
+
+    @Test
+    void usernamePagesMergeShardsInCodePointOrder() {
+        UsersService users = context.getBean(UsersService.class);
+        // Регистр вперемешку: правило сортировки локали и String.compareTo расходятся на таких именах
+        String[] prefixes = {"MIXED_", "Mixed_", "mixed_", "mIxEd_"};
+        List<String> created = new ArrayList<>();
+        for (int i = 0; i < 40 && (created.size() < 12 || countMixedOn(0) < 3 || countMixedOn(1) < 3); i++) {
+            char letter = (char) ((i % 2 == 0 ? 'a' : 'A') + i % 26);
+            String username = prefixes[i % prefixes.length] + letter + i;
+            users.createUser(new CreateUserRequest(
+                    username, "mixed_" + i + "@example.com", "password123", "Mixed", "Case", null, User.UserRole.USER));
+            created.add(username);
+        }
+        assertThat(countMixedOn(0)).isGreaterThanOrEqualTo(3);
+        assertThat(countMixedOn(1)).isGreaterThanOrEqualTo(3);
+
+        Comparator<String> codePoints = Comparator.comparing(username -> username.codePoints().toArray(), Arrays::compare);
+        assertThat(pageThrough(users, false)).containsExactlyElementsOf(created.stream().sorted(codePoints).toList());
+        assertThat(pageThrough(users, true)).containsExactlyElementsOf(created.stream().sorted(codePoints.reversed()).toList());
+    }
+
+    @Test
+    void suggestionsBeforeTheIndexCoverAllShards() {
+        UsersService users = context.getBean(UsersService.class);
+        List<String> created = new ArrayList<>();
+        for (int i = 0; i < 40 && (created.size() < 4 || countLike(0, "hint\\_%") < 2 || countLike(1, "hint\\_%") < 2); i++) {
+            String username = "hint_" + i;
+            users.createUser(new CreateUserRequest(
+                    username, username + "@example.com", "password123", "Hint", "User", null, User.UserRole.USER));
+            created.add(username);
+        }
+        // '_' префикса - символ, а не шаблон LIKE: hintx0 в подсказки не попадает
+        users.createUser(new CreateUserRequest(
+                "hintx0", "hintx0@example.com", "password123", "Other", "User", null, User.UserRole.USER));
+
+        assertThat(users.suggestUsers("HINT_", 50)).extracting(UserSuggestionDto::username)
+                .containsExactlyElementsOf(created.stream().sorted().toList());
+        assertThat(users.suggestUsers("hint_", 3)).extracting(UserSuggestionDto::username)
+                .containsExactlyElementsOf(created.stream().sorted().limit(3).toList());
+        assertThat(users.suggestUsers("%", 50)).isEmpty();
+    }
+
+    private static List<String> pageThrough(UsersService users, boolean descending) {
+        List<String> usernames = new ArrayList<>();
+        UserQuery.Cursor after = null;
+        for (int pages = 0; pages < 50; pages++) {
+            UserPageDto page = users.queryUsers(new UserQuery(null, null, null, null, null, null, "mixed_",
+                    UserQuery.SortField.USERNAME, descending, after, 3));
+            page.users().forEach(user -> usernames.add(user.username()));
+            if (page.nextCursor() == null) {
+                return usernames;
+            }
+            after = UserQuery.Cursor.decode(page.nextCursor());
+        }
+        throw new AssertionError("Выдача не закончилась за 50 страниц: " + usernames);
+    }
+
+    private static long countMixedOn(int shard) {
+        return countLike(shard, "mixed\\_%");
+    }
+
+    private static long countLike(int shard, String pattern) {
+        return jdbc(shard).queryForObject("SELECT count(*) FROM users WHERE lower(username) LIKE ?", Long.class, pattern);
+    }
+
+    private static long countOn(int shard) {
+        return jdbc(shard).queryForObject("SELECT count(*) FROM users", Long.class);
+    }
+
+    private static JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(context.getBean(ShardTopology.class).dataSource(shard));
+    }
+}
@@ -0,0 +1,30 @@
+package com.reactiverates.users.loadtest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Результат прогона: пропускная способность и перцентили латентности (мкс) по операциям.
+ */
+record LoadReport(double targetRate, Duration duration, List<OperationResult> operations) {
+
+    String format() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "Target rate: %.0f req/s, measured for %ds%n",
+                targetRate, duration.toSeconds()));
+        report.append(String.format(Locale.ROOT, "%-28s %9s %7s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "dropped", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (OperationResult op : operations) {
+            report.append(String.format(Locale.ROOT, "%-28s %9d %7d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    op.name(), op.count(), op.errors(), op.dropped(), op.throughput(),
+                    op.p50Micros() / 1000.0, op.p99Micros() / 1000.0, op.p999Micros() / 1000.0,
+                    op.maxMicros() / 1000.0));
+        }
+        return report.toString();
+    }
+
+    record OperationResult(String name, long count, long errors, long dropped, double throughput,
+                           long p50Micros, long p99Micros, long p999Micros, long maxMicros) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.reactiverates.users.loadtest;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Access-токены, подписанные тем же секретом, что проверяет {@link com.reactiverates.users.infrastructure.security.JwtService}.
+ */
+final class LoadTestTokens {
+
+    private LoadTestTokens() {
+    }
+
+    static String accessToken(String secret, String subject, List<String> roles, Duration ttl) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .subject(subject)
+                .claim("roles", roles)
+                .claim("type", "access")
+                .issuedAt(Date.from(now.minusSeconds(1)))
+                .expiration(Date.from(now.plus(ttl)))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
@@ -0,0 +1,134 @@
+package com.reactiverates.users.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Генератор нагрузки по открытой модели: запросы отправляются с постоянной частотой независимо
+ * от того, успели ли завершиться предыдущие. Латентность отсчитывается от запланированного момента
+ * отправки, поэтому отставание генератора не скрывает очередь (coordinated omission).
+ */
+final class OpenModelLoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final List<Operation> operations;
+    private final int[] cumulativeWeights;
+    private final double ratePerSecond;
+    private final int maxInFlight;
+
+    OpenModelLoadGenerator(List<Operation> operations, double ratePerSecond, int maxInFlight) {
+        this.operations = List.copyOf(operations);
+        this.cumulativeWeights = new int[operations.size()];
+        int total = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            total += operations.get(i).weight();
+            cumulativeWeights[i] = total;
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.maxInFlight = maxInFlight;
+    }
+
+    LoadReport run(Duration warmup, Duration duration) throws InterruptedException {
+        Map<String, OperationStats> stats = new LinkedHashMap<>();
+        operations.forEach(op -> stats.put(op.name(), new OperationStats()));
+        AtomicInteger inFlight = new AtomicInteger();
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long next = start;
+
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            long intended = next;
+            next += intervalNanos;
+
+            Operation operation = pick();
+            OperationStats opStats = stats.get(operation.name());
+            boolean measured = intended >= measureFrom;
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                if (measured) {
+                    opStats.dropped.increment();
+                }
+                continue;
+            }
+
+            CompletableFuture<?> call;
+            try {
+                call = operation.call().get();
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            call.whenComplete((result, error) -> {
+                inFlight.decrementAndGet();
+                if (!measured) {
+                    return;
+                }
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+                opStats.latency.recordValue(Math.min(Math.max(micros, 1), HIGHEST_TRACKABLE_MICROS));
+                if (error != null) {
+                    opStats.errors.increment();
+                }
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+
+        List<LoadReport.OperationResult> results = new ArrayList<>();
+        double seconds = duration.toNanos() / 1e9;
+        stats.forEach((name, s) -> results.add(s.toResult(name, seconds)));
+        return new LoadReport(ratePerSecond, duration, results);
+    }
+
+    private Operation pick() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations.get(i);
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    /**
+     * Операция нагрузки. call должен быть асинхронным: поток генератора не блокируется на ответе.
+     */
+    record Operation(String name, int weight, Supplier<CompletableFuture<?>> call) {
+    }
+
+    private static final class OperationStats {
+        final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+
+        LoadReport.OperationResult toResult(String name, double seconds) {
+            long count = latency.getTotalCount();
+            return new LoadReport.OperationResult(name, count, errors.sum(), dropped.sum(), count / seconds,
+                    latency.getValueAtPercentile(50), latency.getValueAtPercentile(99),
+                    latency.getValueAtPercentile(99.9), latency.getMaxValue());
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.reactiverates.users.loadtest;
+
+import com.reactiverates.users.grpc.CreateUserRequest;
+import com.reactiverates.users.grpc.GetUserByIdRequest;
+import com.reactiverates.users.grpc.GetUserByUsernameRequest;
+import com.reactiverates.users.grpc.UserRole;
+import com.reactiverates.users.grpc.UsersServiceGrpc;
+
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сквозной нагрузочный тест REST и gRPC поверх встроенного PostgreSQL.
+ * Не входит в обычный прогон тестов, запуск: ./mvnw test -Pload-test [-Dloadtest.rate=500 ...]
+ *
+ * Параметры (system properties): loadtest.rate - запросов в секунду, loadtest.warmup-seconds,
+ * loadtest.duration-seconds, loadtest.users - число пользователей в базе, loadtest.max-in-flight.
+ * Отчет печатается и сохраняется в target/load-test-report.txt.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class UsersLoadTest {
+
+    private static final int SEED_USERS = Integer.getInteger("loadtest.users", 1000);
+    private static final double MAX_ERROR_RATE = 0.01;
+
+    private static EmbeddedPostgres postgres;
+
+    @LocalServerPort
+    private int httpPort;
+
+    @Value("${spring.grpc.server.port}")
+    private int grpcPort;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    private final AtomicLong created = new AtomicLong();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws Exception {
+        postgres = EmbeddedPostgres.start();
+        // Схема и данные готовы до старта приложения: фильтры и реплики строятся по ним на ApplicationReadyEvent
+        DataSource dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        seed(dataSource);
+        int grpcPort = freePort();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.grpc.server.port", () -> grpcPort);
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void mixedRestAndGrpcWorkload() throws Exception {
+        String token = LoadTestTokens.accessToken(jwtSecret, "loadtest-admin", List.of("ADMIN"), Duration.ofHours(1));
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        ManagedChannel channel = ManagedChannelBuilder.forAddress("localhost", grpcPort).usePlaintext().build();
+        UsersServiceGrpc.UsersServiceStub grpc = UsersServiceGrpc.newStub(channel);
+        String base = "http://localhost:" + httpPort + "/api/users";
+
+        List<OpenModelLoadGenerator.Operation> operations = List.of(
+                new OpenModelLoadGenerator.Operation("rest GET /{id}", 25,
+                        () -> get(http, token, base + "/" + randomId())),
+                new OpenModelLoadGenerator.Operation("rest GET /username/{u}", 15,
+                        () -> get(http, token, base + "/username/user" + randomId())),
+                new OpenModelLoadGenerator.Operation("rest GET /email/{e}", 10,
+                        () -> get(http, token, base + "/email/user" + randomId() + "@loadtest.local")),
+                new OpenModelLoadGenerator.Operation("rest GET /search", 5,
+                        () -> get(http, token, base + "/search?q=user" + randomId())),
+                new OpenModelLoadGenerator.Operation("rest GET /", 2,
+                        () -> get(http, token, base)),
+                new OpenModelLoadGenerator.Operation("rest POST /", 3,
+                        () -> post(http, token, base, createBody())),
+                new OpenModelLoadGenerator.Operation("grpc GetUserById", 25,
+                        () -> unary(observer -> grpc.getUserById(
+                                GetUserByIdRequest.newBuilder().setUserId(randomId()).build(), observer))),
+                new OpenModelLoadGenerator.Operation("grpc GetUserByUsername", 12,
+                        () -> unary(observer -> grpc.getUserByUsername(
+                                GetUserByUsernameRequest.newBuilder().setUsername("user" + randomId()).build(), observer))),
+                new OpenModelLoadGenerator.Operation("grpc CreateUser", 3,
+                        () -> unary(observer -> grpc.createUser(createRequest(), observer))));
+
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 30));
+        int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 2000);
+
+        LoadReport report;
+        try {
+            report = new OpenModelLoadGenerator(operations, rate, maxInFlight).run(warmup, duration);
+        } finally {
+            channel.shutdownNow();
+        }
+
+        String formatted = report.format();
+        System.out.println(formatted);
+        Files.writeString(Path.of("target", "load-test-report.txt"), formatted, StandardCharsets.UTF_8);
+
+        long total = report.operations().stream().mapToLong(LoadReport.OperationResult::count).sum();
+        long failed = report.operations().stream().mapToLong(op -> op.errors() + op.dropped()).sum();
+        assertThat(total).isPositive();
+        assertThat((double) failed / total).as("error rate").isLessThan(MAX_ERROR_RATE);
+    }
+
+    private static CompletableFuture<?> get(HttpClient http, String token, String uri) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return send(http, request);
+    }
+
+    private static CompletableFuture<?> post(HttpClient http, String token, String uri, String json) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return send(http, request);
+    }
+
+    // 404 на lookup - ожидаемый ответ, ошибкой считаются только 5xx и 401/403
+    private static CompletableFuture<?> send(HttpClient http, HttpRequest request) {
+        return http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> {
+                    int status = response.statusCode();
+                    if (status >= 500 || status == 401 || status == 403) {
+                        throw new IllegalStateException(request.method() + " " + request.uri() + " -> " + status);
+                    }
+                    return status;
+                });
+    }
+
+    private static <T> CompletableFuture<T> unary(Consumer<StreamObserver<T>> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        call.accept(new StreamObserver<>() {
+            @Override
+            public void onNext(T value) {
+                future.complete(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                future.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                future.complete(null);
+            }
+        });
+        return future;
+    }
+
+    private String createBody() {
+        long n = created.incrementAndGet();
+        return """
+                {"username":"lt_rest_%d","email":"lt_rest_%d@loadtest.local","password":"password123",\
+                "firstName":"Load","lastName":"Test","role":"USER"}""".formatted(n, n);
+    }
+
+    private CreateUserRequest createRequest() {
+        long n = created.incrementAndGet();
+        return CreateUserRequest.newBuilder()
+                .setUsername("lt_grpc_" + n)
+                .setEmail("lt_grpc_" + n + "@loadtest.local")
+                .setPassword("password123")
+                .setFirstName("Load")
+                .setLastName("Test")
+                .setRole(UserRole.USER)
+                .build();
+    }
+
+    private static long randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(SEED_USERS);
+    }
+
+    private static void seed(DataSource dataSource) throws Exception {
+        String passwordHash = new BCryptPasswordEncoder().encode("password123");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement("""
+                     INSERT INTO users (id, username, email, password, first_name, last_name, role, is_active, created_at, updated_at)
+                     VALUES (?, ?, ?, ?, 'Load', 'Test', 'USER', true, now(), now())
+                     """)) {
+            for (int i = 1; i <= SEED_USERS; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, "user" + i);
+                insert.setString(3, "user" + i + "@loadtest.local");
+                insert.setString(4, passwordHash);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            statement.execute(
+                    "SELECT setval(pg_get_serial_sequence('users', 'id'), " + SEED_USERS + ")");
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}